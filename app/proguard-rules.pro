@@ -19,3 +19,9 @@
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
 #-renamesourcefileattribute SourceFile
+
+# Drop debug logging calls, and building their arguments, in builds that minify. The release
+# build does not (minifyEnabled false), there Logs.setDebugEnabled(false) gates them at runtime.
+-assumenosideeffects class org.mediasoup.droid.lib.Logs {
+    public static void d(...);
+}
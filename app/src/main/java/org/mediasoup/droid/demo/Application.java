@@ -1,16 +1,31 @@
 package org.mediasoup.droid.demo;
 
 import org.mediasoup.droid.Logger;
-import org.mediasoup.droid.MediasoupClient;
+import org.mediasoup.droid.lib.Logs;
+import org.mediasoup.droid.lib.StartupTrace;
+import org.mediasoup.droid.lib.WarmStart;
+import org.mediasoup.droid.lib.metrics.FileSink;
+import org.mediasoup.droid.lib.metrics.LogcatSink;
+import org.mediasoup.droid.lib.metrics.Metrics;
+
+import java.io.File;
 
 public class Application extends android.app.Application {
 
   @Override
   public void onCreate() {
     super.onCreate();
+    StartupTrace.mark(StartupTrace.APP_CREATE);
 
-    Logger.setLogLevel(Logger.LogLevel.LOG_DEBUG);
+    // debug logging only in debug builds; release ones keep the calls, gated off at runtime.
+    Logs.setDebugEnabled(BuildConfig.LOG_DEBUG);
+    Logs.setLevel(BuildConfig.LOG_DEBUG ? Logs.DEBUG : Logs.WARN);
     Logger.setDefaultHandler();
-    MediasoupClient.initialize(getApplicationContext());
+    // join and first frame timings, exported when a room closes.
+    Metrics.get().addSink(new LogcatSink());
+    Metrics.get().addSink(
+        new FileSink(new File(getFilesDir(), "metrics.jsonl"), BuildConfig.VERSION_NAME));
+    // native init and PeerConnectionFactory creation run in the background.
+    WarmStart.get().start(getApplicationContext());
   }
 }
@@ -7,11 +7,13 @@ import android.view.animation.Animation;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.core.view.ViewCompat;
 import androidx.databinding.BindingAdapter;
 
-import org.mediasoup.droid.demo.vm.MeProps;
+import org.mediasoup.droid.demo.view.RendererPool;
 import org.mediasoup.droid.lib.RoomClient;
 import org.mediasoup.droid.lib.model.DeviceInfo;
+import org.mediasoup.droid.lib.model.DeviceState;
 import org.webrtc.SurfaceViewRenderer;
 import org.webrtc.VideoTrack;
 
@@ -116,12 +118,12 @@ public class BindingAdapters {
   }
 
   @BindingAdapter({"edias_mic_state"})
-  public static void deviceMicState(ImageView imageView, MeProps.DeviceState state) {
+  public static void deviceMicState(ImageView imageView, DeviceState state) {
     if (state == null) {
       return;
     }
     Log.d(TAG, "edias_mic_state: " + state.name());
-    if (MeProps.DeviceState.ON.equals(state)) {
+    if (DeviceState.ON.equals(state)) {
       imageView.setBackgroundResource(R.drawable.bg_media_box_on);
     } else {
       imageView.setBackgroundResource(R.drawable.bg_media_box_off);
@@ -141,12 +143,12 @@ public class BindingAdapters {
   }
 
   @BindingAdapter({"edias_cam_state"})
-  public static void deviceCamState(ImageView imageView, MeProps.DeviceState state) {
+  public static void deviceCamState(ImageView imageView, DeviceState state) {
     if (state == null) {
       return;
     }
     Log.d(TAG, "edias_cam_state: " + state.name());
-    if (MeProps.DeviceState.ON.equals(state)) {
+    if (DeviceState.ON.equals(state)) {
       imageView.setBackgroundResource(R.drawable.bg_media_box_on);
     } else {
       imageView.setBackgroundResource(R.drawable.bg_media_box_off);
@@ -166,12 +168,12 @@ public class BindingAdapters {
   }
 
   @BindingAdapter({"edias_change_came_state"})
-  public static void changeCamState(View view, MeProps.DeviceState state) {
+  public static void changeCamState(View view, DeviceState state) {
     if (state == null) {
       return;
     }
     Log.d(TAG, "edias_change_came_state: " + state.name());
-    if (MeProps.DeviceState.ON.equals(state)) {
+    if (DeviceState.ON.equals(state)) {
       view.setEnabled(true);
     } else {
       view.setEnabled(false);
@@ -179,12 +181,12 @@ public class BindingAdapters {
   }
 
   @BindingAdapter({"edias_share_state"})
-  public static void shareState(View view, MeProps.DeviceState state) {
+  public static void shareState(View view, DeviceState state) {
     if (state == null) {
       return;
     }
     Log.d(TAG, "edias_share_state: " + state.name());
-    if (MeProps.DeviceState.ON.equals(state)) {
+    if (DeviceState.ON.equals(state)) {
       view.setEnabled(true);
     } else {
       view.setEnabled(false);
@@ -195,9 +197,15 @@ public class BindingAdapters {
   public static void render(SurfaceViewRenderer renderer, VideoTrack track) {
     Log.d(TAG, "edias_render: " + (track != null));
     if (track != null) {
-      track.addSink(renderer);
+      // Off-screen tiles attach their sink once they become visible.
+      if (ViewCompat.isAttachedToWindow(renderer)) {
+        RendererPool.get().attach(renderer, track);
+      } else {
+        RendererPool.get().detach(renderer);
+      }
       renderer.setVisibility(View.VISIBLE);
     } else {
+      RendererPool.get().detach(renderer);
       renderer.setVisibility(View.GONE);
     }
   }
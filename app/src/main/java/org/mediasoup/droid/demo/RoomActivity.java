@@ -8,6 +8,8 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.preference.PreferenceManager;
 import android.text.TextUtils;
 import android.view.KeyEvent;
@@ -18,31 +20,41 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.databinding.DataBindingUtil;
-import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProviders;
-import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.nabinbhandari.android.permissions.PermissionHandler;
 import com.nabinbhandari.android.permissions.Permissions;
 
 import org.mediasoup.droid.Logger;
 import org.mediasoup.droid.MediasoupClient;
+import org.mediasoup.droid.demo.adapter.ChatHistoryAdapter;
 import org.mediasoup.droid.demo.adapter.PeerAdapter;
+import org.mediasoup.droid.demo.adapter.TilePrewarmer;
 import org.mediasoup.droid.demo.databinding.ActivityRoomBinding;
+import org.mediasoup.droid.demo.view.RendererPool;
+import org.mediasoup.droid.demo.view.TileLayoutManager;
 import org.mediasoup.droid.demo.vm.EdiasProps;
 import org.mediasoup.droid.demo.vm.MeProps;
 import org.mediasoup.droid.demo.vm.RoomProps;
+import org.mediasoup.droid.lib.BackgroundMode;
 import org.mediasoup.droid.lib.PeerConnectionUtils;
 import org.mediasoup.droid.lib.RoomClient;
 import org.mediasoup.droid.lib.RoomOptions;
+import org.mediasoup.droid.lib.StartupTrace;
+import org.mediasoup.droid.lib.WarmStart;
+import org.mediasoup.droid.lib.lv.ActionJournal;
 import org.mediasoup.droid.lib.lv.RoomStore;
+import org.mediasoup.droid.lib.metrics.Tracer;
 import org.mediasoup.droid.lib.model.Me;
 import org.mediasoup.droid.lib.model.Notify;
-import org.mediasoup.droid.lib.model.Peer;
 
-import java.util.List;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 
 public class RoomActivity extends AppCompatActivity {
 
@@ -51,18 +63,35 @@ public class RoomActivity extends AppCompatActivity {
 
   private String mRoomId, mPeerId, mDisplayName;
   private boolean mForceH264, mForceVP9;
+  private int mTileMode;
+  private int mPrewarmTiles;
 
   private RoomOptions mOptions;
   private RoomStore mRoomStore;
   private RoomClient mRoomClient;
+  private BackgroundMode mBackgroundMode;
 
   private ActivityRoomBinding mBinding;
   private PeerAdapter mPeerAdapter;
+  private TilePrewarmer mTilePrewarmer;
+  private boolean mTilesPrewarmed;
+
+  private final Handler mNotifyHandler = new Handler(Looper.getMainLooper());
+  private final Runnable mDrainNotify = this::drainNotify;
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
+    StartupTrace.mark(StartupTrace.ROOM_ACTIVITY);
     mBinding = DataBindingUtil.setContentView(this, R.layout.activity_room);
+    // normally ready after the splash, but the process may be restored straight into the room.
+    WarmStart.get().whenNativeReady(this::onNativeReady);
+  }
+
+  private void onNativeReady() {
+    if (isFinishing() || isDestroyed()) {
+      return;
+    }
     createRoom();
     checkPermission();
   }
@@ -71,8 +100,17 @@ public class RoomActivity extends AppCompatActivity {
     mOptions = new RoomOptions();
     loadRoomConfig();
 
+    // a factory for the media engine, unless it or the warm start one is still alive.
+    WarmStart.get().prewarmFactory();
     mRoomStore = new RoomStore();
+    if (mOptions.isJournal()) {
+      mRoomStore.setJournal(new ActionJournal(ActionJournal.DEFAULT_CAPACITY));
+    }
     initRoomClient();
+    if (mOptions.isBackgroundMode()) {
+      mBackgroundMode = new BackgroundMode(mRoomClient);
+      mBackgroundMode.attach();
+    }
 
     getViewModelStore().clear();
     initViewModel();
@@ -87,6 +125,15 @@ public class RoomActivity extends AppCompatActivity {
     mDisplayName = preferences.getString("displayName", "");
     mForceH264 = preferences.getBoolean("forceH264", false);
     mForceVP9 = preferences.getBoolean("forceVP9", false);
+    try {
+      mPrewarmTiles = Integer.parseInt(preferences.getString("prewarmTiles", "6"));
+    } catch (NumberFormatException e) {
+      mPrewarmTiles = 6;
+    }
+    mTileMode =
+        "speaker".equals(preferences.getString("layout", "grid"))
+            ? TileLayoutManager.MODE_SPEAKER
+            : TileLayoutManager.MODE_GRID;
     if (TextUtils.isEmpty(mRoomId)) {
       mRoomId = getRandomString(8);
       preferences.edit().putString("roomId", mRoomId).apply();
@@ -105,10 +152,23 @@ public class RoomActivity extends AppCompatActivity {
     mOptions.setConsume(preferences.getBoolean("consume", true));
     mOptions.setForceTcp(preferences.getBoolean("forceTcp", false));
     mOptions.setUseDataChannel(preferences.getBoolean("dataChannel", true));
+    mOptions.setRenderStats(preferences.getBoolean("renderStats", false));
+    mOptions.setSpeakerPolicy(preferences.getBoolean("speakerPolicy", false));
+    mOptions.setMicSilenceSuppression(preferences.getBoolean("micSilenceSuppression", false));
+    mOptions.setJournal(preferences.getBoolean("journal", false));
+    mOptions.setPrewarmMedia(preferences.getBoolean("prewarmMedia", false));
+    mOptions.setBackgroundMode(preferences.getBoolean("backgroundMode", true));
+    mOptions.setNetworkAdaptation(preferences.getBoolean("networkAdaptation", true));
+    try {
+      mOptions.setLastN(Integer.parseInt(preferences.getString("lastN", "0")));
+    } catch (NumberFormatException e) {
+      mOptions.setLastN(0);
+    }
 
     // Device config.
     String camera = preferences.getString("camera", "front");
     PeerConnectionUtils.setPreferCameraFace(camera);
+    Tracer.setEnabled(preferences.getBoolean("trace", false));
 
     // Display version number.
     ((TextView)findViewById(R.id.version)).setText(String.valueOf(MediasoupClient.version()));
@@ -164,14 +224,29 @@ public class RoomActivity extends AppCompatActivity {
 
     // Peers.
     mPeerAdapter = new PeerAdapter(mRoomStore, this, mRoomClient);
-    mBinding.remotePeers.setLayoutManager(new LinearLayoutManager(this));
+    TileLayoutManager layoutManager = new TileLayoutManager();
+    layoutManager.setMode(mTileMode);
+    // let the consumers of each peer follow the size of its tile.
+    layoutManager.setOnTileSizeListener(
+        (position, width, height) -> {
+          String peerId = mPeerAdapter.getPeerId(position);
+          if (peerId != null) {
+            mRoomClient.setPeerTileSize(peerId, width, height);
+          }
+        });
+    mBinding.remotePeers.setLayoutManager(layoutManager);
     mBinding.remotePeers.setAdapter(mPeerAdapter);
+    if (mTilePrewarmer != null) {
+      mTilePrewarmer.cancel();
+    }
+    mTilePrewarmer = new TilePrewarmer(mBinding.remotePeers, mPeerAdapter);
+    mTilesPrewarmed = false;
+    // the list is copied on the derive thread, only when peers join or leave.
     mRoomStore
-        .getPeers()
+        .peerList()
         .observe(
             this,
-            peers -> {
-              List<Peer> peersList = peers.getAllPeers();
+            peersList -> {
               if (peersList.isEmpty()) {
                 mBinding.remotePeers.setVisibility(View.GONE);
                 mBinding.roomState.setVisibility(View.VISIBLE);
@@ -180,27 +255,26 @@ public class RoomActivity extends AppCompatActivity {
                 mBinding.roomState.setVisibility(View.GONE);
               }
               mPeerAdapter.replacePeers(peersList);
+              layoutManager.setSpeakerPosition(
+                  mPeerAdapter.indexOf(mRoomStore.getRoomInfo().getValue().getActiveSpeakerId()));
+            });
+    // moves the speaker between slots, tiles are not rebound.
+    mRoomStore
+        .getRoomInfo()
+        .observe(
+            this,
+            roomInfo -> {
+              layoutManager.setSpeakerPosition(mPeerAdapter.indexOf(roomInfo.getActiveSpeakerId()));
+              // once joined, get tiles ready for the peers to come while nothing else happens.
+              if (roomInfo.getConnectionState() == RoomClient.ConnectionState.CONNECTED
+                  && !mTilesPrewarmed) {
+                mTilesPrewarmed = true;
+                mTilePrewarmer.prewarm(mPrewarmTiles);
+              }
             });
 
     // Notify
-    final Observer<Notify> notifyObserver =
-        notify -> {
-          if (notify == null) {
-            return;
-          }
-          if ("error".equals(notify.getType())) {
-            Toast toast = Toast.makeText(this, notify.getText(), notify.getTimeout());
-            TextView toastMessage = toast.getView().findViewById(android.R.id.message);
-            toastMessage.setTextColor(Color.RED);
-            toast.show();
-          } else if ("message".equals(notify.getType())) {
-            Toast.makeText(this, notify.getTitle() + "\n" + notify.getText(), notify.getTimeout())
-                .show();
-          } else {
-            Toast.makeText(this, notify.getText(), notify.getTimeout()).show();
-          }
-        };
-    mRoomStore.getNotify().observe(this, notifyObserver);
+    mRoomStore.getNotify().getPending().observe(this, pending -> drainNotify());
 
     // Chat
     mBinding.chatInput.setImeActionLabel("Send", KeyEvent.KEYCODE_ENTER);
@@ -233,6 +307,70 @@ public class RoomActivity extends AppCompatActivity {
         }
       };
 
+  // Show the next notification allowed by the queue, and come back when the next one is due.
+  private void drainNotify() {
+    mNotifyHandler.removeCallbacks(mDrainNotify);
+    if (mRoomStore == null) {
+      return;
+    }
+    Notify notify = mRoomStore.getNotify().poll();
+    if (notify != null) {
+      showNotify(notify);
+    }
+    long delay = mRoomStore.getNotify().nextDelayMs();
+    if (delay >= 0) {
+      mNotifyHandler.postDelayed(mDrainNotify, delay);
+    }
+  }
+
+  private void showNotify(Notify notify) {
+    if ("error".equals(notify.getType())) {
+      Toast toast = Toast.makeText(this, notify.getText(), notify.getTimeout());
+      TextView toastMessage = toast.getView().findViewById(android.R.id.message);
+      toastMessage.setTextColor(Color.RED);
+      toast.show();
+    } else if ("message".equals(notify.getType())) {
+      Toast.makeText(this, notify.getTitle() + "\n" + notify.getText(), notify.getTimeout())
+          .show();
+    } else {
+      Toast.makeText(this, notify.getText(), notify.getTimeout()).show();
+    }
+  }
+
+  private void showChatHistory() {
+    if (mRoomStore == null) {
+      return;
+    }
+    new AlertDialog.Builder(this)
+        .setTitle(R.string.chat_history)
+        .setAdapter(new ChatHistoryAdapter(mRoomStore.getChatHistory()), null)
+        .setPositiveButton(android.R.string.ok, null)
+        .show();
+  }
+
+  private void exportJournal() {
+    ActionJournal journal = mRoomStore != null ? mRoomStore.getJournal() : null;
+    if (journal == null) {
+      Toast.makeText(this, R.string.journal_disabled, Toast.LENGTH_SHORT).show();
+      return;
+    }
+    File file =
+        new File(getExternalFilesDir(null), "journal-" + System.currentTimeMillis() + ".bin");
+    RoomStore roomStore = mRoomStore;
+    new Thread(
+            () -> {
+              try (OutputStream out = new FileOutputStream(file)) {
+                journal.write(out);
+                roomStore.addNotify(getString(R.string.journal_exported, file.getPath()));
+              } catch (IOException e) {
+                Logger.e(TAG, "exportJournal() | failed:", e);
+                roomStore.addNotify("export journal failed: ", e);
+              }
+            },
+            "journal-export")
+        .start();
+  }
+
   private void checkPermission() {
     String[] permissions = {
       Manifest.permission.INTERNET,
@@ -247,11 +385,16 @@ public class RoomActivity extends AppCompatActivity {
   }
 
   private void destroyRoom() {
+    if (mBackgroundMode != null) {
+      mBackgroundMode.detach();
+      mBackgroundMode = null;
+    }
     if (mRoomClient != null) {
       mRoomClient.close();
       mRoomClient = null;
     }
     if (mRoomStore != null) {
+      mRoomStore.dispose();
       mRoomStore = null;
     }
   }
@@ -269,6 +412,12 @@ public class RoomActivity extends AppCompatActivity {
       Intent intent = new Intent(this, SettingsActivity.class);
       startActivityForResult(intent, REQUEST_CODE_SETTING);
       return true;
+    } else if (item.getItemId() == R.id.chat_history) {
+      showChatHistory();
+      return true;
+    } else if (item.getItemId() == R.id.export_journal) {
+      exportJournal();
+      return true;
     } else {
       return super.onOptionsItemSelected(item);
     }
@@ -278,6 +427,10 @@ public class RoomActivity extends AppCompatActivity {
   protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
     if (requestCode == REQUEST_CODE_SETTING) {
       Logger.d(TAG, "request config done");
+      if (mRoomStore == null) {
+        // not created yet, onNativeReady() will with the new config.
+        return;
+      }
       // close, dispose room related and clear store.
       destroyRoom();
       // local config and reCreate room related.
@@ -292,6 +445,11 @@ public class RoomActivity extends AppCompatActivity {
   @Override
   protected void onDestroy() {
     super.onDestroy();
+    mNotifyHandler.removeCallbacks(mDrainNotify);
     destroyRoom();
+    if (mTilePrewarmer != null) {
+      mTilePrewarmer.cancel();
+    }
+    RendererPool.get().clear();
   }
 }
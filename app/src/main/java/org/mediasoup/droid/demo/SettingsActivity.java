@@ -1,10 +1,15 @@
 package org.mediasoup.droid.demo;
 
+import android.os.Build;
 import android.os.Bundle;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.preference.Preference;
 import androidx.preference.PreferenceFragmentCompat;
 
+import org.mediasoup.droid.lib.AudioConfig;
+import org.mediasoup.droid.lib.AudioLatencyProbe;
+
 public class SettingsActivity extends AppCompatActivity {
 
   @Override
@@ -21,6 +26,35 @@ public class SettingsActivity extends AppCompatActivity {
     @Override
     public void onCreatePreferences(Bundle savedInstanceState, String rootKey) {
       setPreferencesFromResource(R.xml.root_preferences, rootKey);
+
+      Preference audioLatency = findPreference("audioLatency");
+      if (audioLatency == null) {
+        return;
+      }
+      int measured = AudioConfig.get(requireContext()).getMeasuredLatencyMs();
+      if (measured > 0) {
+        audioLatency.setSummary(getString(R.string.audio_latency_result, measured, Build.MODEL));
+      }
+      audioLatency.setOnPreferenceClickListener(
+          preference -> {
+            preference.setEnabled(false);
+            preference.setSummary(R.string.audio_latency_measuring);
+            new AudioLatencyProbe(requireContext())
+                .start(
+                    latencyMs -> {
+                      if (!isAdded()) {
+                        return;
+                      }
+                      preference.setEnabled(true);
+                      if (latencyMs > 0) {
+                        preference.setSummary(
+                            getString(R.string.audio_latency_result, latencyMs, Build.MODEL));
+                      } else {
+                        preference.setSummary(R.string.audio_latency_failed);
+                      }
+                    });
+            return true;
+          });
     }
   }
 }
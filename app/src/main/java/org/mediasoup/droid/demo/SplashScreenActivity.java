@@ -1,18 +1,51 @@
 package org.mediasoup.droid.demo;
 
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.os.Bundle;
+import android.preference.PreferenceManager;
+import android.text.TextUtils;
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import org.mediasoup.droid.lib.StartupTrace;
+import org.mediasoup.droid.lib.UrlFactory;
+import org.mediasoup.droid.lib.WarmStart;
+
 public class SplashScreenActivity extends AppCompatActivity {
 
   @Override
   protected void onCreate(Bundle savedInstanceState) {
     super.onCreate(savedInstanceState);
     setContentView(R.layout.activity_splash_screen);
+    StartupTrace.mark(StartupTrace.SPLASH_VISIBLE);
+
+    preconnect();
+    // leave as soon as the native library is usable, instead of a fixed delay.
+    WarmStart.get().whenNativeReady(this::startRoom);
+  }
+
+  // Open the signaling connection while the splash shows, if the room is already known.
+  private void preconnect() {
+    SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(this);
+    String roomId = preferences.getString("roomId", "");
+    String peerId = preferences.getString("peerId", "");
+    if (TextUtils.isEmpty(roomId) || TextUtils.isEmpty(peerId)) {
+      return;
+    }
+    WarmStart.get()
+        .preconnect(
+            UrlFactory.getProtooUrl(
+                roomId,
+                peerId,
+                preferences.getBoolean("forceH264", false),
+                preferences.getBoolean("forceVP9", false)));
+  }
 
-    findViewById(R.id.mediasoup)
-        .postDelayed(() -> startActivity(new Intent(this, RoomActivity.class)), 1000);
+  private void startRoom() {
+    if (isFinishing()) {
+      return;
+    }
+    startActivity(new Intent(this, RoomActivity.class));
   }
 }
@@ -0,0 +1,67 @@
+package org.mediasoup.droid.demo.adapter;
+
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.lib.model.ChatHistory;
+
+import java.util.List;
+
+/** Lists the chat history, loading it a page at a time as the list scrolls. */
+public class ChatHistoryAdapter extends BaseAdapter {
+
+  private static final int PAGE_SIZE = 20;
+
+  @NonNull private final ChatHistory mHistory;
+  // Messages present when the list was opened.
+  private final int mCount;
+  private final SparseArray<List<ChatHistory.Message>> mPages = new SparseArray<>();
+
+  public ChatHistoryAdapter(@NonNull ChatHistory history) {
+    mHistory = history;
+    mCount = history.size();
+  }
+
+  @Override
+  public int getCount() {
+    return mCount;
+  }
+
+  // Newest message first.
+  @Override
+  public ChatHistory.Message getItem(int position) {
+    int index = mCount - 1 - position;
+    int page = index / PAGE_SIZE;
+    List<ChatHistory.Message> messages = mPages.get(page);
+    if (messages == null) {
+      messages = mHistory.page(page * PAGE_SIZE, PAGE_SIZE);
+      mPages.put(page, messages);
+    }
+    return messages.get(index % PAGE_SIZE);
+  }
+
+  @Override
+  public long getItemId(int position) {
+    return position;
+  }
+
+  @Override
+  public View getView(int position, View convertView, ViewGroup parent) {
+    View view = convertView;
+    if (view == null) {
+      view =
+          LayoutInflater.from(parent.getContext())
+              .inflate(android.R.layout.simple_list_item_2, parent, false);
+    }
+    ChatHistory.Message message = getItem(position);
+    ((TextView) view.findViewById(android.R.id.text1)).setText(message.getTitle());
+    ((TextView) view.findViewById(android.R.id.text2)).setText(message.getText());
+    return view;
+  }
+}
@@ -0,0 +1,66 @@
+package org.mediasoup.droid.demo.adapter;
+
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.demo.view.PeerView;
+import org.mediasoup.droid.lib.model.Peer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Logs how long the 10th, 30th and 50th peer to join take from showing up in the peer list to
+ * their tile rendering its first video frame, to compare tile creation strategies.
+ */
+@MainThread
+class FirstFrameBenchmark {
+
+  private static final String TAG = "FirstFrameBenchmark";
+
+  private static final int[] MILESTONES = {10, 30, 50};
+
+  // peerId -> time it showed up, only for the milestone peers not measured yet.
+  private final Map<String, Long> mPending = new HashMap<>();
+  private final Map<String, Integer> mOrdinals = new HashMap<>();
+  private final Set<String> mSeen = new HashSet<>();
+  private int mJoined;
+
+  void onPeers(@NonNull List<Peer> peers) {
+    for (Peer peer : peers) {
+      if (!mSeen.add(peer.getId())) {
+        continue;
+      }
+      mJoined++;
+      for (int milestone : MILESTONES) {
+        if (milestone == mJoined) {
+          mPending.put(peer.getId(), SystemClock.elapsedRealtime());
+          mOrdinals.put(peer.getId(), mJoined);
+        }
+      }
+    }
+  }
+
+  void onBind(@NonNull PeerView view, @NonNull String peerId) {
+    Long joinedAt = mPending.remove(peerId);
+    if (joinedAt == null) {
+      return;
+    }
+    int ordinal = mOrdinals.remove(peerId);
+    view.awaitFirstFrame(
+        () ->
+            Logger.d(
+                TAG,
+                "peer #"
+                    + ordinal
+                    + " first frame after "
+                    + (SystemClock.elapsedRealtime() - joinedAt)
+                    + " ms"));
+  }
+}
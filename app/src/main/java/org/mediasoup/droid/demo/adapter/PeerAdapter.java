@@ -6,6 +6,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.LifecycleOwner;
 import androidx.recyclerview.widget.RecyclerView;
@@ -18,6 +19,8 @@ import org.mediasoup.droid.lib.RoomClient;
 import org.mediasoup.droid.lib.lv.RoomStore;
 import org.mediasoup.droid.lib.model.Peer;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -30,8 +33,9 @@ public class PeerAdapter extends RecyclerView.Adapter<PeerAdapter.PeerViewHolder
   @NonNull private RoomClient mRoomClient;
 
   private List<Peer> mPeers = new LinkedList<>();
-
-  private int containerHeight;
+  // Disconnected props, handed to whichever holder binds next.
+  private final Deque<PeerProps> mSpareProps = new ArrayDeque<>();
+  private final FirstFrameBenchmark mBenchmark = new FirstFrameBenchmark();
 
   public PeerAdapter(
       @NonNull RoomStore store,
@@ -42,56 +46,106 @@ public class PeerAdapter extends RecyclerView.Adapter<PeerAdapter.PeerViewHolder
     mRoomClient = roomClient;
   }
 
+  private final RecyclerView.OnScrollListener mOcclusionListener =
+      new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+          for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            View child = recyclerView.getChildAt(i);
+            if (child instanceof PeerView) {
+              ((PeerView) child).updateOcclusion();
+            }
+          }
+        }
+      };
+
+  @Override
+  public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+    recyclerView.addOnScrollListener(mOcclusionListener);
+  }
+
+  @Override
+  public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+    recyclerView.removeOnScrollListener(mOcclusionListener);
+  }
+
   public void replacePeers(@NonNull List<Peer> peers) {
+    mBenchmark.onPeers(peers);
     mPeers = peers;
     notifyDataSetChanged();
   }
 
+  @Nullable
+  public String getPeerId(int position) {
+    return position >= 0 && position < mPeers.size() ? mPeers.get(position).getId() : null;
+  }
+
+  public int indexOf(@Nullable String peerId) {
+    for (int i = 0; i < mPeers.size(); i++) {
+      if (mPeers.get(i).getId().equals(peerId)) {
+        return i;
+      }
+    }
+    return RecyclerView.NO_POSITION;
+  }
+
+  /** Create spare props ahead of time, up to {@code count}. */
+  void prewarmProps(@NonNull Context context, int count) {
+    while (mSpareProps.size() < count) {
+      mSpareProps.push(new PeerProps(((AppCompatActivity) context).getApplication(), mStore));
+    }
+  }
+
   @NonNull
   @Override
   public PeerViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-    containerHeight = parent.getHeight();
     Context context = parent.getContext();
     View view = LayoutInflater.from(context).inflate(R.layout.item_remote_peer, parent, false);
-    return new PeerViewHolder(
-        view, new PeerProps(((AppCompatActivity) context).getApplication(), mStore));
+    return new PeerViewHolder(view);
   }
 
   @Override
   public void onBindViewHolder(@NonNull PeerViewHolder holder, int position) {
-    // update height
-    ViewGroup.LayoutParams layoutParams = holder.mPeerView.getLayoutParams();
-    layoutParams.height = getItemHeight();
-    holder.mPeerView.setLayoutParams(layoutParams);
-    // bind
-    holder.bind(mLifecycleOwner, mRoomClient, mPeers.get(position));
+    // tile geometry is owned by TileLayoutManager.
+    if (holder.mPeerProps == null) {
+      PeerProps props = mSpareProps.poll();
+      if (props == null) {
+        Context context = holder.itemView.getContext();
+        props = new PeerProps(((AppCompatActivity) context).getApplication(), mStore);
+      }
+      holder.mPeerProps = props;
+    }
+    Peer peer = mPeers.get(position);
+    holder.bind(mLifecycleOwner, mRoomClient, peer);
+    mBenchmark.onBind(holder.mPeerView, peer.getId());
   }
 
   @Override
-  public int getItemCount() {
-    return mPeers.size();
+  public void onViewRecycled(@NonNull PeerViewHolder holder) {
+    holder.mPeerView.recycle();
+    // the holder may sit in the pool for long, give its props to the next bind.
+    if (holder.mPeerProps != null) {
+      holder.mPeerView.clearProps();
+      holder.mPeerProps.disconnect();
+      mSpareProps.push(holder.mPeerProps);
+      holder.mPeerProps = null;
+    }
   }
 
-  private int getItemHeight() {
-    int itemCount = getItemCount();
-    if (itemCount <= 1) {
-      return containerHeight;
-    } else if (itemCount <= 3) {
-      return containerHeight / itemCount;
-    } else {
-      return (int) (containerHeight / 3.2);
-    }
+  @Override
+  public int getItemCount() {
+    return mPeers.size();
   }
 
   static class PeerViewHolder extends RecyclerView.ViewHolder {
 
     @NonNull final PeerView mPeerView;
-    @NonNull final PeerProps mPeerProps;
+    // Bound while the holder shows a peer, null while it is in the pool.
+    @Nullable PeerProps mPeerProps;
 
-    PeerViewHolder(@NonNull View view, @NonNull PeerProps peerProps) {
+    PeerViewHolder(@NonNull View view) {
       super(view);
       mPeerView = view.findViewById(R.id.remote_peer);
-      mPeerProps = peerProps;
     }
 
     void bind(LifecycleOwner owner, RoomClient roomClient, @NonNull Peer peer) {
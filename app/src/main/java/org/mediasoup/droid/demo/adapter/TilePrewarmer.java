@@ -0,0 +1,77 @@
+package org.mediasoup.droid.demo.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.demo.view.RendererPool;
+
+/**
+ * Inflates peer tiles into the RecycledViewPool while the main thread is idle, one tile per idle
+ * period, so a burst of joining peers binds ready tiles instead of inflating and initializing
+ * renderers in the middle of a frame.
+ */
+@MainThread
+public class TilePrewarmer implements MessageQueue.IdleHandler {
+
+  private static final String TAG = "TilePrewarmer";
+
+  // RecycledViewPool default.
+  private static final int DEFAULT_MAX_RECYCLED = 5;
+
+  @NonNull private final RecyclerView mRecyclerView;
+  @NonNull private final PeerAdapter mAdapter;
+  private final Handler mHandler = new Handler(Looper.getMainLooper());
+  private final Runnable mNextIdle = this::scheduleIdle;
+  private int mRemaining;
+
+  public TilePrewarmer(@NonNull RecyclerView recyclerView, @NonNull PeerAdapter adapter) {
+    mRecyclerView = recyclerView;
+    mAdapter = adapter;
+  }
+
+  /** Have {@code count} tiles ready in the pool, inflated during idle time. */
+  public void prewarm(int count) {
+    cancel();
+    RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+    pool.setMaxRecycledViews(0, Math.max(DEFAULT_MAX_RECYCLED, count));
+    RendererPool.get().setMaxIdle(count);
+    mAdapter.prewarmProps(mRecyclerView.getContext(), count);
+    mRemaining = count - pool.getRecycledViewCount(0);
+    Logger.d(TAG, "prewarm() tiles: " + mRemaining);
+    if (mRemaining > 0) {
+      scheduleIdle();
+    }
+  }
+
+  public void cancel() {
+    mRemaining = 0;
+    mHandler.removeCallbacks(mNextIdle);
+    Looper.myQueue().removeIdleHandler(this);
+  }
+
+  private void scheduleIdle() {
+    Looper.myQueue().addIdleHandler(this);
+  }
+
+  @Override
+  public boolean queueIdle() {
+    if (mRemaining <= 0) {
+      return false;
+    }
+    PeerAdapter.PeerViewHolder holder = mAdapter.createViewHolder(mRecyclerView, 0);
+    holder.mPeerView.prewarm();
+    mRecyclerView.getRecycledViewPool().putRecycledView(holder);
+    mRemaining--;
+    if (mRemaining > 0) {
+      // idle handlers only run again once the queue saw another message.
+      mHandler.post(mNextIdle);
+    }
+    return false;
+  }
+}
@@ -15,8 +15,8 @@ import androidx.databinding.DataBindingUtil;
 import org.mediasoup.droid.demo.R;
 import org.mediasoup.droid.demo.databinding.ViewMeBindingImpl;
 import org.mediasoup.droid.demo.vm.MeProps;
-import org.mediasoup.droid.lib.PeerConnectionUtils;
 import org.mediasoup.droid.lib.RoomClient;
+import org.mediasoup.droid.lib.model.DeviceState;
 
 public class MeView extends RelativeLayout {
 
@@ -43,13 +43,28 @@ public class MeView extends RelativeLayout {
   }
 
   ViewMeBindingImpl mBinding;
+  MeProps mProps;
 
   private void init(Context context) {
     mBinding = DataBindingUtil.inflate(LayoutInflater.from(context), R.layout.view_me, this, true);
-    mBinding.peerView.videoRenderer.init(PeerConnectionUtils.getEglContext(), null);
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (mProps != null) {
+      RendererPool.get().attach(mBinding.peerView.videoRenderer, mProps.getVideoTrack().get());
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    RendererPool.get().detach(mBinding.peerView.videoRenderer);
+    super.onDetachedFromWindow();
   }
 
   public void setProps(MeProps props, final RoomClient roomClient) {
+    mProps = props;
 
     // set view model.
     mBinding.peerView.setPeerViewProps(props);
@@ -78,11 +93,13 @@ public class MeView extends RelativeLayout {
 
     // set view model.
     mBinding.setMeProps(props);
+    // rebind once per frame, right after the props applied their changes.
+    props.setOnStateApplied(mBinding::executePendingBindings);
 
     // register click listener.
     mBinding.mic.setOnClickListener(
         view -> {
-          if (MeProps.DeviceState.ON.equals(props.getMicState().get())) {
+          if (DeviceState.ON.equals(props.getMicState().get())) {
             roomClient.muteMic();
           } else {
             roomClient.unmuteMic();
@@ -90,7 +107,7 @@ public class MeView extends RelativeLayout {
         });
     mBinding.cam.setOnClickListener(
         view -> {
-          if (MeProps.DeviceState.ON.equals(props.getCamState().get())) {
+          if (DeviceState.ON.equals(props.getCamState().get())) {
             roomClient.disableCam();
           } else {
             roomClient.enableCam();
@@ -99,7 +116,7 @@ public class MeView extends RelativeLayout {
     mBinding.changeCam.setOnClickListener(view -> roomClient.changeCam());
     mBinding.share.setOnClickListener(
         view -> {
-          if (MeProps.DeviceState.ON.equals(props.getShareState().get())) {
+          if (DeviceState.ON.equals(props.getShareState().get())) {
             roomClient.disableShare();
           } else {
             roomClient.enableShare();
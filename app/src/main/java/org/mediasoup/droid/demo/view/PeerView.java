@@ -1,6 +1,7 @@
 package org.mediasoup.droid.demo.view;
 
 import android.content.Context;
+import android.graphics.Rect;
 import android.os.Build;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
@@ -14,11 +15,16 @@ import androidx.databinding.DataBindingUtil;
 import org.mediasoup.droid.demo.R;
 import org.mediasoup.droid.demo.databinding.ViewPeerBinding;
 import org.mediasoup.droid.demo.vm.PeerProps;
-import org.mediasoup.droid.lib.PeerConnectionUtils;
 import org.mediasoup.droid.lib.RoomClient;
+import org.mediasoup.droid.lib.VideoRenderPipeline;
 
 public class PeerView extends RelativeLayout {
 
+  // Tiles showing less than this fraction of their area are treated as occluded.
+  private static final float MIN_VISIBLE_FRACTION = 0.1f;
+
+  private final Rect mVisibleRect = new Rect();
+
   public PeerView(@NonNull Context context) {
     super(context);
     init(context);
@@ -42,14 +48,73 @@ public class PeerView extends RelativeLayout {
   }
 
   ViewPeerBinding mBinding;
+  PeerProps mProps;
 
   private void init(Context context) {
     mBinding =
         DataBindingUtil.inflate(LayoutInflater.from(context), R.layout.view_peer, this, true);
-    mBinding.peerView.videoRenderer.init(PeerConnectionUtils.getEglContext(), null);
+    // video renderer is initialized lazily by RendererPool once the tile becomes visible.
+  }
+
+  @Override
+  protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
+    if (mProps != null) {
+      RendererPool.get().attach(mBinding.peerView.videoRenderer, mProps.getVideoTrack().get());
+    }
+  }
+
+  @Override
+  protected void onDetachedFromWindow() {
+    RendererPool.get().detach(mBinding.peerView.videoRenderer);
+    super.onDetachedFromWindow();
+  }
+
+  /** Skip rendering for this tile while it is (almost) entirely clipped by its parent. */
+  public void updateOcclusion() {
+    VideoRenderPipeline pipeline =
+        VideoRenderPipeline.find(RendererPool.get().getBoundTrack(mBinding.peerView.videoRenderer));
+    if (pipeline == null) {
+      return;
+    }
+    int area = getWidth() * getHeight();
+    boolean occluded =
+        area <= 0
+            || !getLocalVisibleRect(mVisibleRect)
+            || mVisibleRect.width() * mVisibleRect.height() < area * MIN_VISIBLE_FRACTION;
+    pipeline.setOccluded(mBinding.peerView.videoRenderer, occluded);
+  }
+
+  /** Called when the holding tile is recycled, stop rendering and return the renderer. */
+  public void recycle() {
+    RendererPool.get().recycle(mBinding.peerView.videoRenderer);
+  }
+
+  /** Initialize the renderer of a tile inflated ahead of time, while nothing is shown yet. */
+  public void prewarm() {
+    RendererPool.get().prewarm(mBinding.peerView.videoRenderer);
+  }
+
+  /** Run {@code onFirstFrame} once this tile rendered its first video frame. */
+  public void awaitFirstFrame(@NonNull Runnable onFirstFrame) {
+    RendererPool.get().awaitFirstFrame(mBinding.peerView.videoRenderer, onFirstFrame);
+  }
+
+  /** Unbind the props, so they can be pooled and bound to another tile. */
+  public void clearProps() {
+    if (mProps == null) {
+      return;
+    }
+    mProps.setOnStateApplied(null);
+    mProps = null;
+    mBinding.peerView.setPeerViewProps(null);
+    mBinding.setPeerProps(null);
+    mBinding.executePendingBindings();
   }
 
   public void setProps(PeerProps props, RoomClient roomClient) {
+    mProps = props;
+
     // set view model into included layout
     mBinding.peerView.setPeerViewProps(props);
 
@@ -67,5 +132,7 @@ public class PeerView extends RelativeLayout {
 
     // set view model
     mBinding.setPeerProps(props);
+    // rebind once per frame, right after the props applied their changes.
+    props.setOnStateApplied(mBinding::executePendingBindings);
   }
 }
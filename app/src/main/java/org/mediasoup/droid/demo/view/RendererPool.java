@@ -0,0 +1,266 @@
+package org.mediasoup.droid.demo.view;
+
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.lib.PeerConnectionUtils;
+import org.mediasoup.droid.lib.metrics.Metrics;
+import org.mediasoup.droid.lib.VideoRenderPipeline;
+import org.webrtc.EglRenderer;
+import org.webrtc.SurfaceViewRenderer;
+import org.webrtc.VideoTrack;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps track of which {@link SurfaceViewRenderer}s are initialized and what they render.
+ *
+ * <p>Renderers are not moved between tiles: each stays in the view that inflated it. A renderer is
+ * initialized the first time its tile becomes visible and is kept initialized when its view holder
+ * is recycled, so the same holder rebound to another peer does not pay the EGL setup again. Up to
+ * {@code maxIdle} recycled renderers are kept that way, beyond that the least recently recycled
+ * are released and initialized again on their next attach.
+ *
+ * <p>The pool also tracks sinks: a renderer is bound to at most one track at a time, attaching it
+ * to another track or recycling it first detaches it from the previous one. Frame listeners added
+ * for a track are removed when the renderer is detached from it, so a reused renderer never
+ * reports the first frame of its next track as that of the previous one.
+ */
+@SuppressWarnings("WeakerAccess")
+public class RendererPool {
+
+  private static final String TAG = "RendererPool";
+
+  private static final int DEFAULT_MAX_IDLE = 4;
+
+  private static RendererPool sInstance;
+
+  @MainThread
+  public static RendererPool get() {
+    if (sInstance == null) {
+      sInstance = new RendererPool(DEFAULT_MAX_IDLE);
+    }
+    return sInstance;
+  }
+
+  private int mMaxIdle;
+  // Renderers with an initialized EglRenderer.
+  private final Set<SurfaceViewRenderer> mInitialized = new HashSet<>();
+  // Initialized renderers of recycled holders, most recently recycled first.
+  private final LinkedList<SurfaceViewRenderer> mIdle = new LinkedList<>();
+  // Track each renderer currently receives frames from.
+  private final Map<SurfaceViewRenderer, VideoTrack> mBound = new HashMap<>();
+  // Callbacks waiting for the first frame rendered after the next attach.
+  private final Map<SurfaceViewRenderer, Runnable> mFirstFrame = new HashMap<>();
+  // Frame listeners added for the track each renderer is bound to, not fired yet.
+  private final Map<SurfaceViewRenderer, List<FirstFrameListener>> mFrameListeners =
+      new HashMap<>();
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+  private RendererPool(int maxIdle) {
+    mMaxIdle = maxIdle;
+  }
+
+  /** Keep up to {@code maxIdle} recycled renderers initialized, e.g. to match pre-warmed tiles. */
+  @MainThread
+  public void setMaxIdle(int maxIdle) {
+    mMaxIdle = Math.max(DEFAULT_MAX_IDLE, maxIdle);
+  }
+
+  /** Initialize {@code renderer} ahead of time and park it as idle. */
+  @MainThread
+  public void prewarm(@NonNull SurfaceViewRenderer renderer) {
+    acquire(renderer);
+    recycle(renderer);
+  }
+
+  /**
+   * Run {@code onFirstFrame} on the main thread once {@code renderer} rendered the first frame of
+   * the track it is (or will next be) attached to.
+   */
+  @MainThread
+  public void awaitFirstFrame(
+      @NonNull SurfaceViewRenderer renderer, @NonNull Runnable onFirstFrame) {
+    if (mBound.containsKey(renderer)) {
+      addFrameListener(renderer, onFirstFrame, true);
+    } else {
+      mFirstFrame.put(renderer, onFirstFrame);
+    }
+  }
+
+  @MainThread
+  public void acquire(@NonNull SurfaceViewRenderer renderer) {
+    mIdle.remove(renderer);
+    if (mInitialized.add(renderer)) {
+      Logger.d(TAG, "acquire() init renderer, initialized: " + mInitialized.size());
+      renderer.init(PeerConnectionUtils.getEglContext(), null);
+    }
+  }
+
+  @MainThread
+  public void recycle(@NonNull SurfaceViewRenderer renderer) {
+    detach(renderer);
+    // the tile goes to another peer.
+    mFirstFrame.remove(renderer);
+    if (!mInitialized.contains(renderer) || mIdle.contains(renderer)) {
+      return;
+    }
+    renderer.clearImage();
+    mIdle.addFirst(renderer);
+    while (mIdle.size() > mMaxIdle) {
+      release(mIdle.getLast());
+    }
+  }
+
+  @MainThread
+  public void release(@NonNull SurfaceViewRenderer renderer) {
+    detach(renderer);
+    mFirstFrame.remove(renderer);
+    mIdle.remove(renderer);
+    if (mInitialized.remove(renderer)) {
+      Logger.d(TAG, "release() renderer, initialized: " + mInitialized.size());
+      renderer.release();
+    }
+  }
+
+  /** Render {@code track} into {@code renderer}, detaching it from any previous track. */
+  @MainThread
+  public void attach(@NonNull SurfaceViewRenderer renderer, @Nullable VideoTrack track) {
+    if (track == null) {
+      detach(renderer);
+      return;
+    }
+    VideoTrack bound = mBound.get(renderer);
+    if (bound == track) {
+      return;
+    }
+    if (bound != null) {
+      detach(renderer);
+    }
+    acquire(renderer);
+    VideoRenderPipeline.obtain(track).addRenderer(renderer);
+    mBound.put(renderer, track);
+    Runnable onFirstFrame = mFirstFrame.remove(renderer);
+    if (onFirstFrame != null) {
+      addFrameListener(renderer, onFirstFrame, true);
+    }
+    String trackId = track.id();
+    if (Metrics.get().isAwaitingRender(trackId)) {
+      addFrameListener(renderer, () -> Metrics.get().onRendered(trackId), false);
+    }
+    Logger.d(TAG, "attach() sinks on track: " + getSinkCount(track) + ", bound: " + mBound.size());
+  }
+
+  /** Stop rendering whatever track {@code renderer} is bound to. */
+  @MainThread
+  public void detach(@NonNull SurfaceViewRenderer renderer) {
+    removeFrameListeners(renderer);
+    VideoTrack track = mBound.remove(renderer);
+    if (track == null) {
+      return;
+    }
+    VideoRenderPipeline pipeline = VideoRenderPipeline.find(track);
+    if (pipeline != null) {
+      pipeline.removeRenderer(renderer);
+    }
+  }
+
+  // Run {@code action} on the main thread on the next frame {@code renderer} renders, unless it is
+  // detached first. An {@code awaiting} action then waits for the next attach instead.
+  private void addFrameListener(SurfaceViewRenderer renderer, Runnable action, boolean awaiting) {
+    List<FirstFrameListener> listeners = mFrameListeners.get(renderer);
+    if (listeners == null) {
+      listeners = new ArrayList<>();
+      mFrameListeners.put(renderer, listeners);
+    }
+    FirstFrameListener listener = new FirstFrameListener(renderer, action, awaiting);
+    listeners.add(listener);
+    // a zero scale skips the bitmap readback.
+    renderer.addFrameListener(listener, 0f);
+  }
+
+  private void removeFrameListeners(SurfaceViewRenderer renderer) {
+    List<FirstFrameListener> listeners = mFrameListeners.remove(renderer);
+    if (listeners == null) {
+      return;
+    }
+    for (FirstFrameListener listener : listeners) {
+      renderer.removeFrameListener(listener);
+      if (listener.mAwaiting) {
+        mFirstFrame.put(renderer, listener.mAction);
+      }
+    }
+  }
+
+  private class FirstFrameListener implements EglRenderer.FrameListener {
+
+    final SurfaceViewRenderer mRenderer;
+    final Runnable mAction;
+    final boolean mAwaiting;
+
+    FirstFrameListener(SurfaceViewRenderer renderer, Runnable action, boolean awaiting) {
+      mRenderer = renderer;
+      mAction = action;
+      mAwaiting = awaiting;
+    }
+
+    // Render thread; EglRenderer drops the listener after this first call.
+    @Override
+    public void onFrame(Bitmap frame) {
+      mMainHandler.post(
+          () -> {
+            List<FirstFrameListener> listeners = mFrameListeners.get(mRenderer);
+            // skipped if detached meanwhile.
+            if (listeners != null && listeners.remove(this)) {
+              if (listeners.isEmpty()) {
+                mFrameListeners.remove(mRenderer);
+              }
+              mAction.run();
+            }
+          });
+    }
+  }
+
+  @MainThread
+  @Nullable
+  public VideoTrack getBoundTrack(@NonNull SurfaceViewRenderer renderer) {
+    return mBound.get(renderer);
+  }
+
+  /** Number of renderers bound to {@code track}, for diagnostics. */
+  @MainThread
+  public int getSinkCount(@NonNull VideoTrack track) {
+    int count = 0;
+    for (VideoTrack bound : mBound.values()) {
+      if (bound == track) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Number of renderers bound to a track, for diagnostics. */
+  @MainThread
+  public int getBoundCount() {
+    return mBound.size();
+  }
+
+  @MainThread
+  public void clear() {
+    for (SurfaceViewRenderer renderer : new HashSet<>(mInitialized)) {
+      release(renderer);
+    }
+  }
+}
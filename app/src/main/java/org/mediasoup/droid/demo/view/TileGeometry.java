@@ -0,0 +1,132 @@
+package org.mediasoup.droid.demo.view;
+
+/**
+ * Slot rectangles of a {@link TileLayoutManager} in content coordinates, and the scrollable
+ * content extent. Plain Java, so the geometry can be checked without views.
+ */
+final class TileGeometry {
+
+  // Aspect ratio tiles are fitted to, as width / height.
+  static final float TILE_ASPECT = 16f / 9f;
+  // Grid tiles below this height scroll rather than shrink further.
+  static final int MAX_GRID_ROWS = 4;
+  // Filmstrip height as a fraction of the container height.
+  static final float FILMSTRIP_FRACTION = 0.22f;
+
+  private final int[] mLefts;
+  private final int[] mTops;
+  private final int[] mWidths;
+  private final int[] mHeights;
+  private int mContentExtent;
+
+  private TileGeometry(int slotCount) {
+    mLefts = new int[slotCount];
+    mTops = new int[slotCount];
+    mWidths = new int[slotCount];
+    mHeights = new int[slotCount];
+  }
+
+  static TileGeometry compute(int mode, int itemCount, int width, int height) {
+    TileGeometry geometry = new TileGeometry(itemCount);
+    if (itemCount == 0) {
+      return geometry;
+    }
+    if (mode == TileLayoutManager.MODE_SPEAKER && itemCount > 1) {
+      geometry.computeSpeaker(width, height);
+    } else {
+      geometry.computeGrid(width, height);
+      if (mode == TileLayoutManager.MODE_SPEAKER) {
+        // a lone speaker tile, nothing to scroll horizontally.
+        geometry.mContentExtent = 0;
+      }
+    }
+    return geometry;
+  }
+
+  /**
+   * Slot of adapter {@code position}: slot 0 is the speaker slot in MODE_SPEAKER, slots follow
+   * adapter order otherwise. {@code speaker} out of range means the first position.
+   */
+  static int slotOf(int mode, int position, int speaker, int slotCount) {
+    if (mode != TileLayoutManager.MODE_SPEAKER) {
+      return position;
+    }
+    if (speaker < 0 || speaker >= slotCount) {
+      speaker = 0;
+    }
+    if (position == speaker) {
+      return 0;
+    }
+    return position < speaker ? position + 1 : position;
+  }
+
+  int getSlotCount() {
+    return mLefts.length;
+  }
+
+  int getLeft(int slot) {
+    return mLefts[slot];
+  }
+
+  int getTop(int slot) {
+    return mTops[slot];
+  }
+
+  int getWidth(int slot) {
+    return mWidths[slot];
+  }
+
+  int getHeight(int slot) {
+    return mHeights[slot];
+  }
+
+  /** Extent along the scroll axis: height in MODE_GRID, filmstrip width in MODE_SPEAKER. */
+  int getContentExtent() {
+    return mContentExtent;
+  }
+
+  private void setSlot(int slot, int left, int top, int width, int height) {
+    mLefts[slot] = left;
+    mTops[slot] = top;
+    mWidths[slot] = width;
+    mHeights[slot] = height;
+  }
+
+  // Pick the column count giving the largest tiles at TILE_ASPECT, on a tie the one with more
+  // columns: fewer rows to scroll, and tiles closer to TILE_ASPECT.
+  private void computeGrid(int width, int height) {
+    int itemCount = getSlotCount();
+    int bestColumns = 1;
+    float bestArea = -1;
+    for (int columns = 1; columns <= itemCount; columns++) {
+      int rows = Math.min((itemCount + columns - 1) / columns, MAX_GRID_ROWS);
+      float tileWidth = Math.min(width / (float) columns, (height / (float) rows) * TILE_ASPECT);
+      float area = tileWidth * (tileWidth / TILE_ASPECT);
+      if (area >= bestArea) {
+        bestArea = area;
+        bestColumns = columns;
+      }
+    }
+    int rows = (itemCount + bestColumns - 1) / bestColumns;
+    int tileWidth = width / bestColumns;
+    int tileHeight = height / Math.min(rows, MAX_GRID_ROWS);
+    for (int i = 0; i < itemCount; i++) {
+      int left = (i % bestColumns) * tileWidth;
+      int top = (i / bestColumns) * tileHeight;
+      setSlot(i, left, top, tileWidth, tileHeight);
+    }
+    mContentExtent = rows * tileHeight;
+  }
+
+  private void computeSpeaker(int width, int height) {
+    int itemCount = getSlotCount();
+    int stripHeight = (int) (height * FILMSTRIP_FRACTION);
+    int stripWidth = (int) (stripHeight * TILE_ASPECT);
+    int stageHeight = height - stripHeight;
+    setSlot(0, 0, 0, width, stageHeight);
+    for (int i = 1; i < itemCount; i++) {
+      setSlot(i, (i - 1) * stripWidth, stageHeight, stripWidth, stripHeight);
+    }
+    mContentExtent = (itemCount - 1) * stripWidth;
+  }
+}
@@ -0,0 +1,197 @@
+package org.mediasoup.droid.demo.view;
+
+import android.graphics.Rect;
+import android.util.SparseLongArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.ArrayList;
+
+/**
+ * Lays remote peers out as a grid, or as one large speaker tile over a horizontal filmstrip.
+ *
+ * <p>Tile geometry ({@link TileGeometry}) only depends on the container size, the item count and
+ * the mode, so it is computed once per change of those and reused by every layout pass. Switching
+ * the speaker only changes which adapter position lands in which slot: the views are scrapped and
+ * re-attached at their new slot without being rebound, so renderers keep their tracks.
+ *
+ * <p>The size of each laid out tile is reported through {@link OnTileSizeListener} when it changes,
+ * so consumers can be asked for a matching resolution.
+ */
+public class TileLayoutManager extends RecyclerView.LayoutManager {
+
+  public static final int MODE_GRID = 0;
+  public static final int MODE_SPEAKER = 1;
+
+  public interface OnTileSizeListener {
+    void onTileSize(int position, int width, int height);
+  }
+
+  private int mMode = MODE_GRID;
+  private int mSpeakerPosition = RecyclerView.NO_POSITION;
+  @Nullable private OnTileSizeListener mTileSizeListener;
+
+  // Slots in content coordinates, valid for mGeometryKey.
+  private TileGeometry mGeometry = TileGeometry.compute(MODE_GRID, 0, 0, 0);
+  private long mGeometryKey = -1;
+  // Offset along the scroll axis.
+  private int mScrollOffset;
+  // position -> packed width/height last reported.
+  private final SparseLongArray mReportedSizes = new SparseLongArray();
+
+  public void setMode(int mode) {
+    if (mMode != mode) {
+      mMode = mode;
+      mScrollOffset = 0;
+      requestLayout();
+    }
+  }
+
+  public int getMode() {
+    return mMode;
+  }
+
+  /** The adapter position shown in the speaker slot, NO_POSITION for the first one. */
+  public void setSpeakerPosition(int position) {
+    if (mSpeakerPosition != position) {
+      mSpeakerPosition = position;
+      if (mMode == MODE_SPEAKER) {
+        requestLayout();
+      }
+    }
+  }
+
+  public void setOnTileSizeListener(@Nullable OnTileSizeListener listener) {
+    mTileSizeListener = listener;
+    mReportedSizes.clear();
+  }
+
+  @Override
+  public RecyclerView.LayoutParams generateDefaultLayoutParams() {
+    return new RecyclerView.LayoutParams(
+        ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT);
+  }
+
+  @Override
+  public boolean isAutoMeasureEnabled() {
+    return false;
+  }
+
+  @Override
+  public void onItemsChanged(@NonNull RecyclerView recyclerView) {
+    // positions now refer to other peers.
+    mReportedSizes.clear();
+  }
+
+  @Override
+  public void onLayoutChildren(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    int itemCount = state.getItemCount();
+    if (itemCount == 0) {
+      removeAndRecycleAllViews(recycler);
+      mReportedSizes.clear();
+      return;
+    }
+    computeGeometry(itemCount);
+    mScrollOffset = Math.max(0, Math.min(mScrollOffset, maxScroll()));
+    fill(recycler, state);
+  }
+
+  @Override
+  public boolean canScrollVertically() {
+    return mMode == MODE_GRID && maxScroll() > 0;
+  }
+
+  @Override
+  public boolean canScrollHorizontally() {
+    return mMode == MODE_SPEAKER && maxScroll() > 0;
+  }
+
+  @Override
+  public int scrollVerticallyBy(int dy, RecyclerView.Recycler recycler, RecyclerView.State state) {
+    return scrollBy(dy, recycler, state);
+  }
+
+  @Override
+  public int scrollHorizontallyBy(
+      int dx, RecyclerView.Recycler recycler, RecyclerView.State state) {
+    return scrollBy(dx, recycler, state);
+  }
+
+  private int scrollBy(int delta, RecyclerView.Recycler recycler, RecyclerView.State state) {
+    int offset = Math.max(0, Math.min(mScrollOffset + delta, maxScroll()));
+    int consumed = offset - mScrollOffset;
+    if (consumed != 0) {
+      mScrollOffset = offset;
+      fill(recycler, state);
+    }
+    return consumed;
+  }
+
+  private int maxScroll() {
+    int visible = mMode == MODE_GRID ? getHeight() : getWidth();
+    return Math.max(0, mGeometry.getContentExtent() - visible);
+  }
+
+  // Attach the views of the slots intersecting the viewport, recycle the others.
+  private void fill(RecyclerView.Recycler recycler, RecyclerView.State state) {
+    detachAndScrapAttachedViews(recycler);
+    int dx = mMode == MODE_SPEAKER ? -mScrollOffset : 0;
+    int dy = mMode == MODE_GRID ? -mScrollOffset : 0;
+    Rect viewport = new Rect(0, 0, getWidth(), getHeight());
+    int itemCount = state.getItemCount();
+    for (int position = 0; position < itemCount; position++) {
+      int slot = slotOf(position);
+      // the speaker slot does not scroll with the filmstrip.
+      boolean fixed = mMode == MODE_SPEAKER && slot == 0;
+      int left = mGeometry.getLeft(slot) + (fixed ? 0 : dx);
+      int top = mGeometry.getTop(slot) + (fixed ? 0 : dy);
+      int width = mGeometry.getWidth(slot);
+      int height = mGeometry.getHeight(slot);
+      if (!viewport.intersects(left, top, left + width, top + height)) {
+        continue;
+      }
+      View child = recycler.getViewForPosition(position);
+      addView(child);
+      child.measure(
+          View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+          View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+      layoutDecorated(child, left, top, left + width, top + height);
+      reportTileSize(position, width, height);
+    }
+    // whatever was not re-attached went off screen or away.
+    for (RecyclerView.ViewHolder holder : new ArrayList<>(recycler.getScrapList())) {
+      recycler.recycleView(holder.itemView);
+    }
+  }
+
+  private void reportTileSize(int position, int width, int height) {
+    if (mTileSizeListener == null) {
+      return;
+    }
+    long packed = ((long) width << 32) | height;
+    if (mReportedSizes.get(position, -1) != packed) {
+      mReportedSizes.put(position, packed);
+      mTileSizeListener.onTileSize(position, width, height);
+    }
+  }
+
+  private int slotOf(int position) {
+    int speaker = mSpeakerPosition == RecyclerView.NO_POSITION ? 0 : mSpeakerPosition;
+    return TileGeometry.slotOf(mMode, position, speaker, mGeometry.getSlotCount());
+  }
+
+  private void computeGeometry(int itemCount) {
+    int width = getWidth();
+    int height = getHeight();
+    long key = ((long) width << 40) ^ ((long) height << 20) ^ (itemCount << 1) ^ mMode;
+    if (key == mGeometryKey && mGeometry.getSlotCount() == itemCount) {
+      return;
+    }
+    mGeometryKey = key;
+    mGeometry = TileGeometry.compute(mMode, itemCount, width, height);
+  }
+}
@@ -0,0 +1,40 @@
+package org.mediasoup.droid.demo.vm;
+
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+/** Runs an action at most once per frame, on the next vsync after {@link #schedule()}. */
+class FrameCoalescer implements Choreographer.FrameCallback {
+
+  @NonNull private final Runnable mAction;
+  private boolean mScheduled;
+
+  FrameCoalescer(@NonNull Runnable action) {
+    mAction = action;
+  }
+
+  @MainThread
+  void schedule() {
+    if (mScheduled) {
+      return;
+    }
+    mScheduled = true;
+    Choreographer.getInstance().postFrameCallback(this);
+  }
+
+  @MainThread
+  void cancel() {
+    if (mScheduled) {
+      mScheduled = false;
+      Choreographer.getInstance().removeFrameCallback(this);
+    }
+  }
+
+  @Override
+  public void doFrame(long frameTimeNanos) {
+    mScheduled = false;
+    mAction.run();
+  }
+}
@@ -3,27 +3,20 @@ package org.mediasoup.droid.demo.vm;
 import android.app.Application;
 
 import androidx.annotation.NonNull;
-import androidx.databinding.BaseObservable;
-import androidx.databinding.Observable;
 import androidx.databinding.ObservableField;
 import androidx.lifecycle.LifecycleOwner;
 
 import org.mediasoup.droid.Producer;
 import org.mediasoup.droid.lib.RoomClient;
 import org.mediasoup.droid.lib.lv.RoomStore;
+import org.mediasoup.droid.lib.model.DeviceState;
 import org.mediasoup.droid.lib.model.Me;
-import org.mediasoup.droid.lib.model.Producers;
+import org.mediasoup.droid.lib.model.MeState;
 import org.webrtc.AudioTrack;
 import org.webrtc.VideoTrack;
 
 public class MeProps extends PeerViewProps {
 
-  public enum DeviceState {
-    UNSUPPORTED,
-    ON,
-    OFF
-  }
-
   private final ObservableField<Boolean> mConnected;
   private final ObservableField<Me> mMe;
   private final ObservableField<DeviceState> mMicState;
@@ -31,7 +24,12 @@ public class MeProps extends PeerViewProps {
   private final ObservableField<DeviceState> mChangeCamState;
   // TODO: support screen share
   private final ObservableField<DeviceState> mShareState;
-  private final StateComposer mStateComposer;
+  // Latest state from the store, and the one the fields reflect.
+  private MeState mPendingState;
+  private MeState mAppliedState;
+  // Producers the rtpParameters and tracks were taken from.
+  private Producer mAudioProducer;
+  private Producer mVideoProducer;
 
   public MeProps(@NonNull Application application, @NonNull RoomStore roomStore) {
     super(application, roomStore);
@@ -42,78 +40,47 @@ public class MeProps extends PeerViewProps {
     mCamState = new ObservableField<>(DeviceState.UNSUPPORTED);
     mChangeCamState = new ObservableField<>(DeviceState.UNSUPPORTED);
     mShareState = new ObservableField<>(DeviceState.UNSUPPORTED);
-    mStateComposer = new StateComposer();
-    mStateComposer.addOnPropertyChangedCallback(
-        new Observable.OnPropertyChangedCallback() {
-          @Override
-          public void onPropertyChanged(Observable sender, int propertyId) {
-            Me me = mStateComposer.mMe;
-            Producers.ProducersWrapper audioPW = mStateComposer.mAudioPW;
-            Producer audioProducer = audioPW != null ? audioPW.getProducer() : null;
-            Producers.ProducersWrapper videoPW = mStateComposer.mVideoPW;
-            Producer videoProducer = videoPW != null ? videoPW.getProducer() : null;
-
-            mAudioProducerId.set(audioProducer != null ? audioProducer.getId() : null);
-            mVideoProducerId.set(videoProducer != null ? videoProducer.getId() : null);
-            mAudioRtpParameters.set(
-                audioProducer != null ? audioProducer.getRtpParameters() : null);
-            mVideoRtpParameters.set(
-                videoProducer != null ? videoProducer.getRtpParameters() : null);
-            mAudioTrack.set(audioProducer != null ? (AudioTrack) audioProducer.getTrack() : null);
-            mVideoTrack.set(videoProducer != null ? (VideoTrack) videoProducer.getTrack() : null);
-            // TODO(HaiyangWu) : support codec property
-            // mAudioCodec.set(audioProducer != null ? audioProducer.getCodec() : null);
-            // mVideoCodec.set(videoProducer != null ? videoProducer.getCodec() : null);
-            mAudioScore.set(audioPW != null ? audioPW.getScore() : null);
-            mVideoScore.set(videoPW != null ? videoPW.getScore() : null);
-
-            DeviceState micState;
-            if (me == null || !me.isCanSendMic()) {
-              micState = DeviceState.UNSUPPORTED;
-            } else if (audioProducer == null) {
-              micState = DeviceState.UNSUPPORTED;
-            } else if (!audioProducer.isPaused()) {
-              micState = DeviceState.ON;
-            } else {
-              micState = DeviceState.OFF;
-            }
-            mMicState.set(micState);
-
-            DeviceState camState;
-            if (me == null || !me.isCanSendMic()) {
-              camState = DeviceState.UNSUPPORTED;
-            } else if (videoPW != null
-                && !Producers.ProducersWrapper.TYPE_SHARE.equals(videoPW.getType())) {
-              camState = DeviceState.ON;
-            } else {
-              camState = DeviceState.OFF;
-            }
-            mCamState.set(camState);
+  }
 
-            DeviceState changeCamState;
-            if (me == null) {
-              changeCamState = DeviceState.UNSUPPORTED;
-            } else if (videoPW != null
-                && !Producers.ProducersWrapper.TYPE_SHARE.equals(videoPW.getType())
-                && me.isCanChangeCam()) {
-              changeCamState = DeviceState.ON;
-            } else {
-              changeCamState = DeviceState.OFF;
-            }
-            mChangeCamState.set(changeCamState);
+  private void onMeStateChanged(MeState state) {
+    mPendingState = state;
+    scheduleApplyState();
+  }
 
-            DeviceState shareState;
-            if (me == null) {
-              shareState = DeviceState.UNSUPPORTED;
-            } else if (videoPW != null
-                && Producers.ProducersWrapper.TYPE_SHARE.equals(videoPW.getType())) {
-              shareState = DeviceState.ON;
-            } else {
-              shareState = DeviceState.OFF;
-            }
-            mShareState.set(shareState);
-          }
-        });
+  @Override
+  void applyState() {
+    MeState state = mPendingState;
+    if (state == null || state == mAppliedState) {
+      return;
+    }
+    mAppliedState = state;
+    Producer audioProducer = state.getAudioProducer();
+    Producer videoProducer = state.getVideoProducer();
+
+    setIfChanged(mAudioProducerId, audioProducer != null ? audioProducer.getId() : null);
+    setIfChanged(mVideoProducerId, videoProducer != null ? videoProducer.getId() : null);
+    // rtpParameters only change with the producer, avoid building the string again.
+    if (audioProducer != mAudioProducer) {
+      mAudioProducer = audioProducer;
+      setIfChanged(
+          mAudioRtpParameters, audioProducer != null ? audioProducer.getRtpParameters() : null);
+      mAudioTrack.set(audioProducer != null ? (AudioTrack) audioProducer.getTrack() : null);
+    }
+    if (videoProducer != mVideoProducer) {
+      mVideoProducer = videoProducer;
+      setIfChanged(
+          mVideoRtpParameters, videoProducer != null ? videoProducer.getRtpParameters() : null);
+      mVideoTrack.set(videoProducer != null ? (VideoTrack) videoProducer.getTrack() : null);
+    }
+    // TODO(HaiyangWu) : support codec property
+    // mAudioCodec.set(audioProducer != null ? audioProducer.getCodec() : null);
+    // mVideoCodec.set(videoProducer != null ? videoProducer.getCodec() : null);
+    setIfChanged(mAudioScore, state.getAudioScore());
+    setIfChanged(mVideoScore, state.getVideoScore());
+    setIfChanged(mMicState, state.getMicState());
+    setIfChanged(mCamState, state.getCamState());
+    setIfChanged(mChangeCamState, state.getChangeCamState());
+    setIfChanged(mShareState, state.getShareState());
   }
 
   public ObservableField<Boolean> getConnected() {
@@ -155,33 +122,6 @@ public class MeProps extends PeerViewProps {
               mConnected.set(
                   RoomClient.ConnectionState.CONNECTED.equals(roomInfo.getConnectionState()));
             });
-    mStateComposer.connect(owner, getRoomStore());
-  }
-
-  public static class StateComposer extends BaseObservable {
-
-    private Producers.ProducersWrapper mAudioPW;
-    private Producers.ProducersWrapper mVideoPW;
-    private Me mMe;
-
-    void connect(@NonNull LifecycleOwner owner, RoomStore store) {
-      store
-          .getProducers()
-          .observe(
-              owner,
-              (producers) -> {
-                mAudioPW = producers.filter("audio");
-                mVideoPW = producers.filter("video");
-                notifyChange();
-              });
-      store
-          .getMe()
-          .observe(
-              owner,
-              (me) -> {
-                mMe = me;
-                notifyChange();
-              });
-    }
+    getRoomStore().meState().observe(owner, this::onMeStateChanged);
   }
 }
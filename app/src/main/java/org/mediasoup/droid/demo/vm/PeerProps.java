@@ -1,69 +1,95 @@
 package org.mediasoup.droid.demo.vm;
 
 import android.app.Application;
+import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
-import androidx.databinding.BaseObservable;
-import androidx.databinding.Observable;
 import androidx.databinding.ObservableField;
 import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 
 import org.mediasoup.droid.Consumer;
-import org.mediasoup.droid.Logger;
 import org.mediasoup.droid.lib.lv.RoomStore;
-import org.mediasoup.droid.lib.model.Consumers;
-import org.mediasoup.droid.lib.model.Peer;
-import org.mediasoup.droid.lib.model.Peers;
+import org.mediasoup.droid.lib.model.Me;
+import org.mediasoup.droid.lib.model.PeerState;
+import org.mediasoup.droid.lib.model.RoomInfo;
 import org.webrtc.AudioTrack;
 import org.webrtc.VideoTrack;
 
-import java.util.Set;
-
 public class PeerProps extends PeerViewProps {
 
   private static final String TAG = "PeerProps";
 
   private final ObservableField<Boolean> mAudioEnabled;
   private final ObservableField<Boolean> mVideoVisible;
-  private final StateComposer mStateComposer;
+  private LiveData<PeerState> mPeerState;
+  private final Observer<PeerState> mPeerStateObserver = this::onPeerStateChanged;
+  private final Observer<Me> mMeObserver = me -> mAudioMuted.set(me.isAudioMuted());
+  private final Observer<RoomInfo> mRoomInfoObserver =
+      roomInfo -> mFaceDetection.set(roomInfo.isFaceDetection());
+  private String mDisplayName;
+  // Latest state from the store, and the one the fields reflect.
+  private PeerState mPendingState;
+  private PeerState mAppliedState;
+  private Consumer mAudioConsumer;
+  private Consumer mVideoConsumer;
 
   public PeerProps(@NonNull Application application, @NonNull RoomStore roomStore) {
     super(application, roomStore);
     setMe(false);
     mAudioEnabled = new ObservableField<>();
     mVideoVisible = new ObservableField<>();
-    mStateComposer = new StateComposer();
-    mStateComposer.addOnPropertyChangedCallback(
-        new Observable.OnPropertyChangedCallback() {
-          @Override
-          public void onPropertyChanged(Observable sender, int propertyId) {
-            Consumers.ConsumerWrapper audioCW = mStateComposer.getConsumer("audio");
-            Consumers.ConsumerWrapper videoCW = mStateComposer.getConsumer("video");
-            Consumer audioConsumer = audioCW != null ? audioCW.getConsumer() : null;
-            Consumer videoConsumer = videoCW != null ? videoCW.getConsumer() : null;
-
-            mPeer.set(mStateComposer.mPeer);
-            mAudioProducerId.set(audioConsumer != null ? audioConsumer.getId() : null);
-            mVideoProducerId.set(videoConsumer != null ? videoConsumer.getId() : null);
-            mAudioRtpParameters.set(
-                audioConsumer != null ? audioConsumer.getRtpParameters() : null);
-            mVideoRtpParameters.set(
-                videoConsumer != null ? videoConsumer.getRtpParameters() : null);
-            mAudioTrack.set(audioConsumer != null ? (AudioTrack) audioConsumer.getTrack() : null);
-            mVideoTrack.set(videoConsumer != null ? (VideoTrack) videoConsumer.getTrack() : null);
-            // TODO(HaiyangWu) : support codec property
-            // mAudioCodec.set(videoConsumer != null ? videoConsumer.getCodec() : null);
-            // mVideoCodec.set(videoConsumer != null ? videoConsumer.getCodec() : null);
-            mAudioScore.set(audioCW != null ? audioCW.getScore() : null);
-            mVideoScore.set(videoCW != null ? videoCW.getScore() : null);
-
-            mAudioEnabled.set(
-                audioCW != null && !audioCW.isLocallyPaused() && !audioCW.isRemotelyPaused());
-            mVideoVisible.set(
-                videoCW != null && !videoCW.isLocallyPaused() && !videoCW.isRemotelyPaused());
-          }
-        });
+  }
+
+  private void onPeerStateChanged(PeerState state) {
+    mPendingState = state;
+    scheduleApplyState();
+  }
+
+  @Override
+  void applyState() {
+    PeerState state = mPendingState;
+    if (state == null || state == mAppliedState) {
+      return;
+    }
+    mAppliedState = state;
+    PeerState.ConsumerState audioCS = state.getAudio();
+    PeerState.ConsumerState videoCS = state.getVideo();
+    Consumer audioConsumer = audioCS != null ? audioCS.getConsumer() : null;
+    Consumer videoConsumer = videoCS != null ? videoCS.getConsumer() : null;
+
+    mPeer.set(state.getPeer());
+    if (!TextUtils.equals(mDisplayName, state.getDisplayName())) {
+      // same Peer instance, renamed.
+      mDisplayName = state.getDisplayName();
+      mPeer.notifyChange();
+    }
+    setIfChanged(mAudioProducerId, audioCS != null ? audioCS.getConsumerId() : null);
+    setIfChanged(mVideoProducerId, videoCS != null ? videoCS.getConsumerId() : null);
+    // rtpParameters only change with the consumer, avoid building the string again.
+    if (audioConsumer != mAudioConsumer) {
+      mAudioConsumer = audioConsumer;
+      setIfChanged(
+          mAudioRtpParameters, audioConsumer != null ? audioConsumer.getRtpParameters() : null);
+      mAudioTrack.set(audioConsumer != null ? (AudioTrack) audioConsumer.getTrack() : null);
+    }
+    if (videoConsumer != mVideoConsumer) {
+      mVideoConsumer = videoConsumer;
+      setIfChanged(
+          mVideoRtpParameters, videoConsumer != null ? videoConsumer.getRtpParameters() : null);
+      mVideoTrack.set(videoConsumer != null ? (VideoTrack) videoConsumer.getTrack() : null);
+    }
+    // TODO(HaiyangWu) : support codec property
+    // mAudioCodec.set(videoConsumer != null ? videoConsumer.getCodec() : null);
+    // mVideoCodec.set(videoConsumer != null ? videoConsumer.getCodec() : null);
+    setIfChanged(mAudioScore, audioCS != null ? audioCS.getScore() : null);
+    setIfChanged(mVideoScore, videoCS != null ? videoCS.getScore() : null);
+
+    mAudioEnabled.set(
+        audioCS != null && !audioCS.isLocallyPaused() && !audioCS.isRemotelyPaused());
+    mVideoVisible.set(
+        videoCS != null && !videoCS.isLocallyPaused() && !videoCS.isRemotelyPaused());
   }
 
   public ObservableField<Boolean> getAudioEnabled() {
@@ -76,68 +102,36 @@ public class PeerProps extends PeerViewProps {
   }
 
   public void connect(LifecycleOwner owner, @NonNull String peerId) {
-    getRoomStore().getMe().observe(owner, me -> mAudioMuted.set(me.isAudioMuted()));
-    getRoomStore()
-        .getRoomInfo()
-        .observe(owner, roomInfo -> mFaceDetection.set(roomInfo.isFaceDetection()));
-    mStateComposer.connect(owner, getRoomStore(), peerId);
+    // rebinding to another peer.
+    disconnect();
+    getRoomStore().getMe().observe(owner, mMeObserver);
+    getRoomStore().getRoomInfo().observe(owner, mRoomInfoObserver);
+    mPeerState = getRoomStore().peer(peerId);
+    mPeerState.observe(owner, mPeerStateObserver);
+  }
+
+  /** Stop observing the store, so the props can be pooled and connected to another peer. */
+  public void disconnect() {
+    getRoomStore().getMe().removeObserver(mMeObserver);
+    getRoomStore().getRoomInfo().removeObserver(mRoomInfoObserver);
+    if (mPeerState != null) {
+      mPeerState.removeObserver(mPeerStateObserver);
+      mPeerState = null;
+    }
+    cancelApplyState();
+    mDisplayName = null;
+    mPendingState = null;
+    mAppliedState = null;
+    mAudioConsumer = null;
+    mVideoConsumer = null;
+    mAudioRtpParameters.set(null);
+    mVideoRtpParameters.set(null);
+    mAudioTrack.set(null);
+    mVideoTrack.set(null);
   }
 
   @Override
   public void connect(LifecycleOwner lifecycleOwner) {
     throw new IllegalAccessError("use connect with peer Id");
   }
-
-  public static class StateComposer extends BaseObservable {
-
-    private String mPeerId;
-    private Peer mPeer;
-    private Consumers mConsumers;
-    private Observer<Peers> mPeersObservable =
-        peers -> {
-          mPeer = peers.getPeer(mPeerId);
-          Logger.w(
-              TAG,
-              "onChanged() id: "
-                  + mPeerId
-                  + ", name:"
-                  + (mPeer != null ? mPeer.getDisplayName() : ""));
-          // TODO(HaiyangWu): check whether need notify change.
-          notifyChange();
-        };
-
-    private Observer<Consumers> mConsumersObserver =
-        consumers -> {
-          mConsumers = consumers;
-          // TODO(HaiyangWu): check whether need notify change.
-          notifyChange();
-        };
-
-    void connect(@NonNull LifecycleOwner owner, RoomStore store, String peerId) {
-      mPeerId = peerId;
-      store.getPeers().removeObserver(mPeersObservable);
-      store.getPeers().observe(owner, mPeersObservable);
-
-      store.getConsumers().removeObserver(mConsumersObserver);
-      store.getConsumers().observe(owner, mConsumersObserver);
-    }
-
-    Consumers.ConsumerWrapper getConsumer(String kind) {
-      if (mPeer == null || mConsumers == null) {
-        return null;
-      }
-
-      Set<String> consumerIds = mPeer.getConsumers();
-      for (String consumerId : consumerIds) {
-        Consumers.ConsumerWrapper wp = mConsumers.getConsumer(consumerId);
-        if (wp == null || wp.getConsumer() == null) {
-          continue;
-        }
-        if (kind.equals(wp.getConsumer().getKind())) {
-          return wp;
-        }
-      }
-      return null;
-    }
-  }
 }
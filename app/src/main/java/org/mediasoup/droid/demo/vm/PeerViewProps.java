@@ -2,12 +2,15 @@ package org.mediasoup.droid.demo.vm;
 
 import android.app.Application;
 
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
 import androidx.databinding.ObservableField;
 
-import org.json.JSONArray;
 import org.mediasoup.droid.lib.lv.RoomStore;
 import org.mediasoup.droid.lib.model.Info;
+import org.mediasoup.droid.lib.model.Score;
 import org.webrtc.AudioTrack;
 import org.webrtc.VideoTrack;
 
@@ -36,10 +39,14 @@ public abstract class PeerViewProps extends EdiasProps {
   ObservableField<Boolean> mVideoMultiLayer;
   ObservableField<String> mAudioCodec;
   ObservableField<String> mVideoCodec;
-  ObservableField<JSONArray> mAudioScore;
-  ObservableField<JSONArray> mVideoScore;
+  ObservableField<Score> mAudioScore;
+  ObservableField<Score> mVideoScore;
   ObservableField<Boolean> mFaceDetection;
 
+  // Upstream changes are applied at most once per frame.
+  private final FrameCoalescer mStateFrame = new FrameCoalescer(this::applyPendingState);
+  @Nullable private Runnable mOnStateApplied;
+
   public PeerViewProps(@NonNull Application application, @NonNull RoomStore roomStore) {
     super(application, roomStore);
     // Add default value to avoid null check in layout.
@@ -69,6 +76,45 @@ public abstract class PeerViewProps extends EdiasProps {
     mFaceDetection = new ObservableField<>();
   }
 
+  /** Schedule {@link #applyState()} for the next frame. */
+  @MainThread
+  void scheduleApplyState() {
+    mStateFrame.schedule();
+  }
+
+  @MainThread
+  void cancelApplyState() {
+    mStateFrame.cancel();
+  }
+
+  /** Recompute the observable fields from the latest upstream state. */
+  @MainThread
+  void applyState() {}
+
+  private void applyPendingState() {
+    applyState();
+    if (mOnStateApplied != null) {
+      mOnStateApplied.run();
+    }
+  }
+
+  /** Called once the fields changed in a frame are set, e.g. to execute the pending bindings. */
+  public void setOnStateApplied(@Nullable Runnable onStateApplied) {
+    mOnStateApplied = onStateApplied;
+  }
+
+  // ObservableField only compares references, skip equal values too.
+  static <T> void setIfChanged(ObservableField<T> field, T value) {
+    if (!ObjectsCompat.equals(field.get(), value)) {
+      field.set(value);
+    }
+  }
+
+  @Override
+  protected void onCleared() {
+    mStateFrame.cancel();
+  }
+
   public void setMe(boolean me) {
     mIsMe = me;
   }
@@ -161,11 +207,11 @@ public abstract class PeerViewProps extends EdiasProps {
     return mVideoCodec;
   }
 
-  public ObservableField<JSONArray> getAudioScore() {
+  public ObservableField<Score> getAudioScore() {
     return mAudioScore;
   }
 
-  public ObservableField<JSONArray> getVideoScore() {
+  public ObservableField<Score> getVideoScore() {
     return mVideoScore;
   }
 
@@ -0,0 +1,227 @@
+package org.mediasoup.droid.lib;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import org.mediasoup.droid.Consumer;
+import org.mediasoup.droid.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Active-speaker driven media policy.
+ *
+ * <p>Video consumers of the current and recent speakers get high preferred layers, the ones of
+ * peers that stayed silent for longer than the hysteresis window are lowered. In "last-N" mode
+ * only the video consumers of the N most recent speakers are kept resumed. Layers never exceed
+ * what the peer's tile on screen can show, nor what the current network type allows.
+ *
+ * <p>All methods must be called on the RoomClient worker thread.
+ */
+class ActiveSpeakerPolicy {
+
+  private static final String TAG = "ActiveSpeakerPolicy";
+
+  static final int HIGH_SPATIAL_LAYER = 2;
+  static final int HIGH_TEMPORAL_LAYER = 2;
+  static final int LOW_SPATIAL_LAYER = 0;
+  static final int LOW_TEMPORAL_LAYER = 1;
+
+  // Heights of the simulcast spatial layers sent by the mediasoup demo clients.
+  private static final int[] LAYER_HEIGHTS = {180, 360, 720};
+
+  interface Actions {
+    void pauseConsumer(@NonNull Consumer consumer);
+
+    void resumeConsumer(@NonNull Consumer consumer);
+
+    void setConsumerPreferredLayers(
+        @NonNull Consumer consumer, int spatialLayer, int temporalLayer);
+
+    boolean isAudioOnly();
+
+    /** The recent speakers changed, most recent first. */
+    void setRecentSpeakers(@NonNull List<String> peerIds);
+  }
+
+  @NonNull private final Map<String, RoomMessageHandler.ConsumerHolder> mConsumers;
+  @NonNull private final Map<String, Integer> mTileLayers;
+  @NonNull private final Handler mHandler;
+  @NonNull private final Actions mActions;
+  private final int mLastN;
+  private final long mHysteresisMs;
+
+  // peerId -> last time heard, most recent speaker last.
+  private final LinkedHashMap<String, Long> mRecentSpeakers = new LinkedHashMap<>();
+  // consumerId -> packed preferred layers last requested.
+  private final Map<String, Integer> mRequestedLayers = new HashMap<>();
+  // consumers paused by this policy (as opposed to audio-only or the user). Whether a consumer is
+  // outside last-N is decided from this set alone: one already paused for another reason, e.g.
+  // background, must still be handed to pauseConsumer so it is not resumed with the others.
+  private final Set<String> mPolicyPaused = new HashSet<>();
+  @Nullable private String mActiveSpeakerId;
+  private int mNetworkSpatialLayer = HIGH_SPATIAL_LAYER;
+
+  private final Runnable mApplyJob = this::apply;
+
+  ActiveSpeakerPolicy(
+      @NonNull Map<String, RoomMessageHandler.ConsumerHolder> consumers,
+      @NonNull Map<String, Integer> tileLayers,
+      @NonNull Handler handler,
+      @NonNull Actions actions,
+      int lastN,
+      long hysteresisMs) {
+    mConsumers = consumers;
+    mTileLayers = tileLayers;
+    mHandler = handler;
+    mActions = actions;
+    mLastN = lastN;
+    mHysteresisMs = hysteresisMs;
+  }
+
+  @WorkerThread
+  void onActiveSpeaker(@Nullable String peerId) {
+    mActiveSpeakerId = peerId;
+    if (peerId != null) {
+      // re-insert to move it to the most recent position.
+      mRecentSpeakers.remove(peerId);
+      mRecentSpeakers.put(peerId, SystemClock.elapsedRealtime());
+      mActions.setRecentSpeakers(recentSpeakerIds());
+    }
+    apply();
+  }
+
+  @WorkerThread
+  void onPeerClosed(@NonNull String peerId) {
+    if (mRecentSpeakers.remove(peerId) != null) {
+      mActions.setRecentSpeakers(recentSpeakerIds());
+    }
+    if (peerId.equals(mActiveSpeakerId)) {
+      mActiveSpeakerId = null;
+    }
+  }
+
+  @WorkerThread
+  void onConsumerClosed(@NonNull String consumerId) {
+    mRequestedLayers.remove(consumerId);
+    mPolicyPaused.remove(consumerId);
+  }
+
+  @WorkerThread
+  void setNetworkSpatialLayer(int spatialLayer) {
+    mNetworkSpatialLayer = spatialLayer;
+    apply();
+  }
+
+  @WorkerThread
+  void apply() {
+    mHandler.removeCallbacks(mApplyJob);
+    long now = SystemClock.elapsedRealtime();
+    Set<String> lastN = mLastN > 0 ? lastNPeerIds() : null;
+    long nextExpiry = Long.MAX_VALUE;
+
+    for (RoomMessageHandler.ConsumerHolder holder : mConsumers.values()) {
+      Consumer consumer = holder.mConsumer;
+      if (!"video".equals(consumer.getKind())) {
+        continue;
+      }
+
+      // last-N subscription.
+      if (lastN != null && !mActions.isAudioOnly()) {
+        if (lastN.contains(holder.peerId)) {
+          if (mPolicyPaused.remove(consumer.getId())) {
+            mActions.resumeConsumer(consumer);
+          }
+        } else if (mPolicyPaused.add(consumer.getId())) {
+          mActions.pauseConsumer(consumer);
+        }
+      }
+
+      // preferred layers, with hysteresis for peers that stopped speaking.
+      Long lastHeard = mRecentSpeakers.get(holder.peerId);
+      boolean speaking = holder.peerId.equals(mActiveSpeakerId);
+      boolean recent = lastHeard != null && now - lastHeard < mHysteresisMs;
+      if (!speaking && recent) {
+        nextExpiry = Math.min(nextExpiry, lastHeard + mHysteresisMs - now);
+      }
+      Integer tileLayer = mTileLayers.get(holder.peerId);
+      int maxSpatialLayer =
+          Math.min(tileLayer != null ? tileLayer : HIGH_SPATIAL_LAYER, mNetworkSpatialLayer);
+      if (speaking || recent) {
+        requestLayers(
+            consumer, Math.min(HIGH_SPATIAL_LAYER, maxSpatialLayer), HIGH_TEMPORAL_LAYER);
+      } else {
+        requestLayers(consumer, Math.min(LOW_SPATIAL_LAYER, maxSpatialLayer), LOW_TEMPORAL_LAYER);
+      }
+    }
+
+    if (nextExpiry != Long.MAX_VALUE) {
+      mHandler.postDelayed(mApplyJob, nextExpiry);
+    }
+  }
+
+  /** The lowest spatial layer at least as tall as a tile of {@code height} pixels. */
+  static int spatialLayerForTile(int height) {
+    for (int layer = 0; layer < LAYER_HEIGHTS.length; layer++) {
+      if (height <= LAYER_HEIGHTS[layer]) {
+        return layer;
+      }
+    }
+    return HIGH_SPATIAL_LAYER;
+  }
+
+  @WorkerThread
+  void clear() {
+    mHandler.removeCallbacks(mApplyJob);
+    mRecentSpeakers.clear();
+    mRequestedLayers.clear();
+    mPolicyPaused.clear();
+    mActiveSpeakerId = null;
+  }
+
+  private void requestLayers(Consumer consumer, int spatialLayer, int temporalLayer) {
+    int packed = (spatialLayer << 8) | temporalLayer;
+    Integer requested = mRequestedLayers.get(consumer.getId());
+    if (requested != null && requested == packed) {
+      return;
+    }
+    Logger.d(TAG, "requestLayers() " + consumer.getId() + " " + spatialLayer + ":" + temporalLayer);
+    mRequestedLayers.put(consumer.getId(), packed);
+    mActions.setConsumerPreferredLayers(consumer, spatialLayer, temporalLayer);
+  }
+
+  private List<String> recentSpeakerIds() {
+    List<String> ids = new ArrayList<>(mRecentSpeakers.keySet());
+    // most recent speaker first.
+    Collections.reverse(ids);
+    return ids;
+  }
+
+  // The N most recent speakers, filled up with other peers having consumers.
+  private Set<String> lastNPeerIds() {
+    Set<String> ids = new HashSet<>();
+    for (String peerId : recentSpeakerIds()) {
+      if (ids.size() >= mLastN) {
+        return ids;
+      }
+      ids.add(peerId);
+    }
+    Iterator<RoomMessageHandler.ConsumerHolder> it = mConsumers.values().iterator();
+    while (ids.size() < mLastN && it.hasNext()) {
+      ids.add(it.next().peerId);
+    }
+    return ids;
+  }
+}
@@ -0,0 +1,182 @@
+package org.mediasoup.droid.lib;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.content.pm.PackageManager;
+import android.media.AudioManager;
+import android.os.Build;
+import android.preference.PreferenceManager;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.Logger;
+import org.webrtc.MediaConstraints;
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-device audio processing configuration.
+ *
+ * <p>Hardware AEC/NS are used when the platform reports them and the device model is not in the
+ * known-broken table, the software (WebRTC APM) counterpart is enabled otherwise. Gain control is
+ * always the software one: the audio device module never attaches a hardware AGC. The audio
+ * device runs at the native output sample rate so the platform can take the low-latency (FAST)
+ * output path where it is supported.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AudioConfig {
+
+  private static final String TAG = "AudioConfig";
+
+  private static final int DEFAULT_SAMPLE_RATE = 48000;
+
+  // Models whose built-in effects are known to be broken.
+  private static final Set<String> BROKEN_HW_AEC_MODELS =
+      new HashSet<>(Arrays.asList("D6503", "ONE A2005", "MotoG3"));
+  private static final Set<String> BROKEN_HW_NS_MODELS =
+      new HashSet<>(Arrays.asList("Nexus 10", "Nexus 9", "ONE A2005"));
+
+  private static final String PREF_LATENCY_PREFIX = "audioLatencyMs_";
+
+  private static AudioConfig sConfig;
+
+  @NonNull
+  public static synchronized AudioConfig get(@NonNull Context context) {
+    if (sConfig == null) {
+      sConfig = probe(context.getApplicationContext());
+      Logger.d(TAG, "probe() " + sConfig);
+    }
+    return sConfig;
+  }
+
+  @NonNull
+  private static AudioConfig probe(@NonNull Context context) {
+    AudioConfig config = new AudioConfig();
+    config.mHardwareAec =
+        JavaAudioDeviceModule.isBuiltInAcousticEchoCancelerSupported()
+            && !BROKEN_HW_AEC_MODELS.contains(Build.MODEL);
+    config.mHardwareNs =
+        JavaAudioDeviceModule.isBuiltInNoiseSuppressorSupported()
+            && !BROKEN_HW_NS_MODELS.contains(Build.MODEL);
+    config.mLowLatency =
+        context.getPackageManager().hasSystemFeature(PackageManager.FEATURE_AUDIO_LOW_LATENCY);
+
+    AudioManager audioManager = (AudioManager) context.getSystemService(Context.AUDIO_SERVICE);
+    config.mSampleRate =
+        parseInt(audioManager.getProperty(AudioManager.PROPERTY_OUTPUT_SAMPLE_RATE));
+    if (config.mSampleRate <= 0) {
+      config.mSampleRate = DEFAULT_SAMPLE_RATE;
+    }
+    config.mFramesPerBuffer =
+        parseInt(audioManager.getProperty(AudioManager.PROPERTY_OUTPUT_FRAMES_PER_BUFFER));
+
+    SharedPreferences preferences = PreferenceManager.getDefaultSharedPreferences(context);
+    config.mMeasuredLatencyMs = preferences.getInt(PREF_LATENCY_PREFIX + Build.MODEL, -1);
+    return config;
+  }
+
+  /** Remember the loopback latency measured by {@link AudioLatencyProbe} for this model. */
+  public static void saveMeasuredLatency(@NonNull Context context, int latencyMs) {
+    PreferenceManager.getDefaultSharedPreferences(context)
+        .edit()
+        .putInt(PREF_LATENCY_PREFIX + Build.MODEL, latencyMs)
+        .apply();
+    synchronized (AudioConfig.class) {
+      if (sConfig != null) {
+        sConfig.mMeasuredLatencyMs = latencyMs;
+      }
+    }
+  }
+
+  private static int parseInt(String value) {
+    if (TextUtils.isEmpty(value)) {
+      return 0;
+    }
+    try {
+      return Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private boolean mHardwareAec;
+  private boolean mHardwareNs;
+  private boolean mLowLatency;
+  private int mSampleRate;
+  private int mFramesPerBuffer;
+  private int mMeasuredLatencyMs;
+
+  public boolean isHardwareAec() {
+    return mHardwareAec;
+  }
+
+  public boolean isHardwareNs() {
+    return mHardwareNs;
+  }
+
+  public boolean isLowLatency() {
+    return mLowLatency;
+  }
+
+  public int getSampleRate() {
+    return mSampleRate;
+  }
+
+  public int getFramesPerBuffer() {
+    return mFramesPerBuffer;
+  }
+
+  public int getMeasuredLatencyMs() {
+    return mMeasuredLatencyMs;
+  }
+
+  /** Apply the hardware effect and sample rate choice to the audio device builder, mono I/O. */
+  public JavaAudioDeviceModule.Builder apply(@NonNull JavaAudioDeviceModule.Builder builder) {
+    builder
+        .setUseHardwareAcousticEchoCanceler(mHardwareAec)
+        .setUseHardwareNoiseSuppressor(mHardwareNs);
+    if (mLowLatency) {
+      // Matching the native rate avoids resampling and is required for the FAST output track.
+      builder.setSampleRate(mSampleRate);
+    }
+    return builder;
+  }
+
+  /** Software processing constraints, enabled for whatever the hardware does not cover. */
+  @NonNull
+  public MediaConstraints createAudioConstraints() {
+    MediaConstraints constraints = new MediaConstraints();
+    constraints.mandatory.add(
+        new MediaConstraints.KeyValuePair("googEchoCancellation", String.valueOf(!mHardwareAec)));
+    constraints.mandatory.add(
+        new MediaConstraints.KeyValuePair("googNoiseSuppression", String.valueOf(!mHardwareNs)));
+    constraints.mandatory.add(new MediaConstraints.KeyValuePair("googAutoGainControl", "true"));
+    constraints.mandatory.add(new MediaConstraints.KeyValuePair("googHighpassFilter", "true"));
+    return constraints;
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    return "AudioConfig{"
+        + "model="
+        + Build.MODEL
+        + ", hwAec="
+        + mHardwareAec
+        + ", hwNs="
+        + mHardwareNs
+        + ", lowLatency="
+        + mLowLatency
+        + ", sampleRate="
+        + mSampleRate
+        + ", framesPerBuffer="
+        + mFramesPerBuffer
+        + ", measuredLatencyMs="
+        + mMeasuredLatencyMs
+        + '}';
+  }
+}
@@ -0,0 +1,187 @@
+package org.mediasoup.droid.lib;
+
+import android.content.Context;
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioRecord;
+import android.media.AudioTrack;
+import android.media.MediaRecorder;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.mediasoup.droid.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Approximate loopback (speaker to microphone) round trip latency measurement.
+ *
+ * <p>Plays a short pulse through the music stream (the loudspeaker) and looks for its onset in the
+ * raw microphone signal, the UNPROCESSED source where supported and MIC otherwise, at the sample
+ * rate of the conference audio device. The voice communication source and stream are avoided on
+ * purpose: the platform echo canceller would remove the pulse, and the earpiece is often too quiet
+ * for the microphone. The figure is that of a plain AudioTrack/AudioRecord pair, an approximation
+ * of the round trip, not the exact latency of the conference audio device module. The median of a
+ * few runs is stored per device model through {@link AudioConfig#saveMeasuredLatency} so models
+ * can be compared. Requires the RECORD_AUDIO permission and a quiet room.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AudioLatencyProbe {
+
+  private static final String TAG = "AudioLatencyProbe";
+
+  public interface Callback {
+    /** Called on the main thread, {@code latencyMs} is -1 when no pulse was detected. */
+    void onLatencyMeasured(int latencyMs);
+  }
+
+  private static final int RUNS = 3;
+  private static final int PULSE_MS = 10;
+  private static final int LISTEN_MS = 1000;
+  // Onset threshold, relative to the recorded noise peak before the pulse.
+  private static final float ONSET_RATIO = 8f;
+  private static final short PULSE_AMPLITUDE = 16000;
+
+  @NonNull private final Context mContext;
+
+  public AudioLatencyProbe(@NonNull Context context) {
+    mContext = context.getApplicationContext();
+  }
+
+  /** Run the measurement on a background thread and report on the main thread. */
+  public void start(@NonNull Callback callback) {
+    Handler mainHandler = new Handler(Looper.getMainLooper());
+    new Thread(
+            () -> {
+              int latencyMs = measure();
+              if (latencyMs > 0) {
+                AudioConfig.saveMeasuredLatency(mContext, latencyMs);
+              }
+              mainHandler.post(() -> callback.onLatencyMeasured(latencyMs));
+            },
+            TAG)
+        .start();
+  }
+
+  @WorkerThread
+  int measure() {
+    int sampleRate = AudioConfig.get(mContext).getSampleRate();
+    int[] results = new int[RUNS];
+    int count = 0;
+    for (int i = 0; i < RUNS; i++) {
+      int latencyMs = measureOnce(sampleRate);
+      Logger.d(TAG, "measure() run " + i + ": " + latencyMs + "ms");
+      if (latencyMs > 0) {
+        results[count++] = latencyMs;
+      }
+    }
+    if (count == 0) {
+      return -1;
+    }
+    Arrays.sort(results, 0, count);
+    return results[count / 2];
+  }
+
+  private int measureOnce(int sampleRate) {
+    int recordMin =
+        AudioRecord.getMinBufferSize(
+            sampleRate, AudioFormat.CHANNEL_IN_MONO, AudioFormat.ENCODING_PCM_16BIT);
+    int listenSamples = sampleRate * LISTEN_MS / 1000;
+    short[] recorded = new short[listenSamples];
+    short[] pulse = createPulse(sampleRate);
+
+    AudioRecord record = null;
+    AudioTrack track = null;
+    try {
+      record =
+          new AudioRecord(
+              recordSource(),
+              sampleRate,
+              AudioFormat.CHANNEL_IN_MONO,
+              AudioFormat.ENCODING_PCM_16BIT,
+              Math.max(recordMin, listenSamples * 2));
+      track =
+          new AudioTrack(
+              AudioManager.STREAM_MUSIC,
+              sampleRate,
+              AudioFormat.CHANNEL_OUT_MONO,
+              AudioFormat.ENCODING_PCM_16BIT,
+              pulse.length * 2,
+              AudioTrack.MODE_STATIC);
+      if (record.getState() != AudioRecord.STATE_INITIALIZED
+          || track.write(pulse, 0, pulse.length) != pulse.length) {
+        Logger.w(TAG, "measureOnce() | audio init failed");
+        return -1;
+      }
+
+      record.startRecording();
+      // Let the input settle and learn the noise level before playing.
+      int noiseSamples = sampleRate / 10;
+      int read = readFully(record, recorded, 0, noiseSamples);
+      track.play();
+      read += readFully(record, recorded, read, listenSamples - read);
+      return findOnsetMs(recorded, noiseSamples, read, sampleRate);
+    } catch (IllegalStateException | IllegalArgumentException e) {
+      Logger.w(TAG, "measureOnce() | failed: " + e.getMessage());
+      return -1;
+    } finally {
+      if (track != null) {
+        track.release();
+      }
+      if (record != null) {
+        record.release();
+      }
+    }
+  }
+
+  private int recordSource() {
+    AudioManager audioManager = (AudioManager) mContext.getSystemService(Context.AUDIO_SERVICE);
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+        && Boolean.parseBoolean(
+            audioManager.getProperty(AudioManager.PROPERTY_SUPPORT_AUDIO_SOURCE_UNPROCESSED))) {
+      return MediaRecorder.AudioSource.UNPROCESSED;
+    }
+    return MediaRecorder.AudioSource.MIC;
+  }
+
+  private static int readFully(AudioRecord record, short[] buffer, int offset, int size) {
+    int total = 0;
+    while (total < size) {
+      int read = record.read(buffer, offset + total, size - total);
+      if (read <= 0) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  // A windowed 1 kHz tone burst.
+  private static short[] createPulse(int sampleRate) {
+    short[] pulse = new short[sampleRate * PULSE_MS / 1000];
+    for (int i = 0; i < pulse.length; i++) {
+      double window = Math.sin(Math.PI * i / pulse.length);
+      pulse[i] =
+          (short) (PULSE_AMPLITUDE * window * Math.sin(2 * Math.PI * 1000 * i / sampleRate));
+    }
+    return pulse;
+  }
+
+  private static int findOnsetMs(short[] recorded, int noiseSamples, int length, int sampleRate) {
+    int noisePeak = 1;
+    for (int i = 0; i < noiseSamples; i++) {
+      noisePeak = Math.max(noisePeak, Math.abs(recorded[i]));
+    }
+    int threshold = (int) Math.min(Short.MAX_VALUE, noisePeak * ONSET_RATIO);
+    for (int i = noiseSamples; i < length; i++) {
+      if (Math.abs(recorded[i]) >= threshold) {
+        return (i - noiseSamples) * 1000 / sampleRate;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,137 @@
+package org.mediasoup.droid.lib;
+
+import android.media.AudioFormat;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+/**
+ * Local microphone level meter and voice activity detector.
+ *
+ * <p>Fed by the JavaAudioDeviceModule record samples callback (one 10 ms buffer per call). The
+ * RMS level of each buffer is computed in place and kept in a preallocated ring, so the audio
+ * thread never allocates. Speech is detected against a slowly adapting noise floor, with a
+ * hangover so short pauses between words do not toggle the state.
+ *
+ * <p>Listener callbacks run on the audio record thread and are throttled to {@link
+ * #PUBLISH_INTERVAL_MS}, except speaking changes which are reported immediately.
+ */
+@SuppressWarnings("WeakerAccess")
+public class AudioLevelMonitor implements JavaAudioDeviceModule.SamplesReadyCallback {
+
+  public interface Listener {
+    /** Smoothed level in dBov, from -127 (silence) to 0. */
+    void onVolume(int volume);
+
+    void onSpeakingChanged(boolean speaking);
+  }
+
+  public static final int MIN_VOLUME = -127;
+
+  // 500 ms of history with 10 ms buffers.
+  private static final int RING_SIZE = 50;
+  private static final long PUBLISH_INTERVAL_MS = 100;
+  // Level above the noise floor considered as speech.
+  private static final float SPEECH_MARGIN_DB = 9f;
+  // Absolute level below which nothing is considered speech.
+  private static final float SPEECH_MIN_DB = -55f;
+  // Keep speaking state for this long after the last speech buffer.
+  private static final long HANGOVER_MS = 400;
+  // Fast attack, slow release smoothing of the published level.
+  private static final float ATTACK = 0.6f;
+  private static final float RELEASE = 0.1f;
+  // Noise floor follows lower levels quickly and higher levels slowly.
+  private static final float FLOOR_DOWN = 0.2f;
+  private static final float FLOOR_UP = 0.002f;
+
+  @NonNull private final Listener mListener;
+
+  // Audio record thread only.
+  private final float[] mRing = new float[RING_SIZE];
+  private int mRingPos;
+  private float mSmoothedDb = MIN_VOLUME;
+  private float mNoiseFloorDb = -60f;
+  private volatile boolean mSpeaking;
+  private long mLastSpeechMs;
+  private long mLastPublishMs;
+  private int mLastPublishedVolume = MIN_VOLUME;
+
+  public AudioLevelMonitor(@NonNull Listener listener) {
+    mListener = listener;
+    for (int i = 0; i < RING_SIZE; i++) {
+      mRing[i] = MIN_VOLUME;
+    }
+  }
+
+  @Override
+  public void onWebRtcAudioRecordSamplesReady(JavaAudioDeviceModule.AudioSamples samples) {
+    if (samples.getAudioFormat() != AudioFormat.ENCODING_PCM_16BIT) {
+      return;
+    }
+    float db = rmsDb(samples.getData());
+    mRing[mRingPos] = db;
+    mRingPos = (mRingPos + 1) % RING_SIZE;
+
+    // noise floor.
+    mNoiseFloorDb += (db - mNoiseFloorDb) * (db < mNoiseFloorDb ? FLOOR_DOWN : FLOOR_UP);
+
+    // level smoothing.
+    mSmoothedDb += (db - mSmoothedDb) * (db > mSmoothedDb ? ATTACK : RELEASE);
+
+    // voice activity.
+    long now = SystemClock.elapsedRealtime();
+    if (db > SPEECH_MIN_DB && db > mNoiseFloorDb + SPEECH_MARGIN_DB) {
+      mLastSpeechMs = now;
+      if (!mSpeaking) {
+        mSpeaking = true;
+        mListener.onSpeakingChanged(true);
+      }
+    } else if (mSpeaking && now - mLastSpeechMs > HANGOVER_MS) {
+      mSpeaking = false;
+      mListener.onSpeakingChanged(false);
+    }
+
+    // throttled level publication.
+    if (now - mLastPublishMs >= PUBLISH_INTERVAL_MS) {
+      int volume = Math.round(mSmoothedDb);
+      if (volume != mLastPublishedVolume) {
+        mLastPublishedVolume = volume;
+        mListener.onVolume(volume);
+      }
+      mLastPublishMs = now;
+    }
+  }
+
+  /** Peak level over the last 500 ms, in dBov. */
+  public float getPeakDb() {
+    float peak = MIN_VOLUME;
+    for (float db : mRing) {
+      peak = Math.max(peak, db);
+    }
+    return peak;
+  }
+
+  public boolean isSpeaking() {
+    return mSpeaking;
+  }
+
+  // RMS of little-endian 16-bit PCM, in dBov.
+  private static float rmsDb(byte[] data) {
+    int count = data.length / 2;
+    if (count == 0) {
+      return MIN_VOLUME;
+    }
+    double sum = 0;
+    for (int i = 0; i + 1 < data.length; i += 2) {
+      int sample = (short) ((data[i + 1] << 8) | (data[i] & 0xff));
+      sum += sample * sample;
+    }
+    double meanSquare = sum / count / (32768.0 * 32768.0);
+    if (meanSquare <= 0) {
+      return MIN_VOLUME;
+    }
+    return (float) Math.max(MIN_VOLUME, 10 * Math.log10(meanSquare));
+  }
+}
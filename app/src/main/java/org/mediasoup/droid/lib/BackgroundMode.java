@@ -0,0 +1,40 @@
+package org.mediasoup.droid.lib;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleObserver;
+import androidx.lifecycle.OnLifecycleEvent;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+/**
+ * Puts a room in background mode while no activity of the app is visible, following the process
+ * lifecycle so moving between our own activities (e.g. settings) does not count.
+ */
+@MainThread
+public class BackgroundMode implements LifecycleObserver {
+
+  @NonNull private final RoomClient mRoomClient;
+
+  public BackgroundMode(@NonNull RoomClient roomClient) {
+    mRoomClient = roomClient;
+  }
+
+  public void attach() {
+    ProcessLifecycleOwner.get().getLifecycle().addObserver(this);
+  }
+
+  public void detach() {
+    ProcessLifecycleOwner.get().getLifecycle().removeObserver(this);
+  }
+
+  @OnLifecycleEvent(Lifecycle.Event.ON_STOP)
+  void onBackground() {
+    mRoomClient.enterBackground();
+  }
+
+  @OnLifecycleEvent(Lifecycle.Event.ON_START)
+  void onForeground() {
+    mRoomClient.exitBackground();
+  }
+}
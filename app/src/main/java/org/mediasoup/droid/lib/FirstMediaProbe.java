@@ -0,0 +1,241 @@
+package org.mediasoup.droid.lib;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.mediasoup.droid.Consumer;
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.MediasoupException;
+import org.mediasoup.droid.Producer;
+import org.mediasoup.droid.lib.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Times the first media of new producers and consumers into {@link Metrics}.
+ *
+ * <p>Producers and audio consumers are polled through their stats until the first packet or
+ * encoded frame, video consumers are timed by their first rendered frame instead (see {@code
+ * RendererPool}). A consumer is only timed while it is meant to receive media: one paused locally
+ * (outside last-N, background, audio-only) or by its producer starts its clock when resumed, so a
+ * room full of paused consumers costs nothing. Stops polling once nothing is pending.
+ */
+@WorkerThread
+class FirstMediaProbe {
+
+  private static final String TAG = "FirstMediaProbe";
+
+  private static final long POLL_INTERVAL_MS = 250;
+  // Give up on media that does not flow by then.
+  private static final long TIMEOUT_MS = 10_000;
+
+  private static class Pending {
+
+    final String mName;
+    final long mStartMs;
+    final Producer mProducer;
+    final Consumer mConsumer;
+
+    Pending(String name, long startMs, Producer producer, Consumer consumer) {
+      mName = name;
+      mStartMs = startMs;
+      mProducer = producer;
+      mConsumer = consumer;
+    }
+  }
+
+  // A consumer whose first media was not seen yet.
+  private static class Watched {
+
+    final Consumer mConsumer;
+    boolean mLocalPaused;
+    boolean mRemotePaused;
+    // Whether its clock runs: polled if audio, awaiting render if video.
+    boolean mStarted;
+
+    Watched(Consumer consumer, boolean remotePaused) {
+      mConsumer = consumer;
+      mRemotePaused = remotePaused;
+    }
+
+    boolean isFlowing() {
+      return !mLocalPaused && !mRemotePaused;
+    }
+  }
+
+  @NonNull private final Handler mWorkHandler;
+  private final List<Pending> mPending = new ArrayList<>();
+  // Consumer id -> consumers not measured yet.
+  private final Map<String, Watched> mWatched = new HashMap<>();
+  // Kinds whose first sent media was already measured in this session.
+  private final Set<String> mSentKinds = new HashSet<>();
+  private final Runnable mPollJob = this::poll;
+
+  FirstMediaProbe(@NonNull Handler workHandler) {
+    mWorkHandler = workHandler;
+  }
+
+  /** Time the first media {@code producer} sends, once per kind and session. */
+  void watchProducer(@NonNull Producer producer, long joinStartMs) {
+    if (!mSentKinds.add(producer.getKind())) {
+      return;
+    }
+    String name =
+        "video".equals(producer.getKind()) ? Metrics.FIRST_VIDEO_SENT : Metrics.FIRST_AUDIO_SENT;
+    add(new Pending(name, joinStartMs, producer, null));
+  }
+
+  /** Time the first media {@code consumer} receives, from now or from when it is resumed. */
+  void watchConsumer(@NonNull Consumer consumer, boolean producerPaused) {
+    Watched watched = new Watched(consumer, producerPaused);
+    mWatched.put(consumer.getId(), watched);
+    update(watched);
+  }
+
+  void onConsumerPaused(@NonNull String consumerId, boolean remote) {
+    setPaused(consumerId, remote, true);
+  }
+
+  void onConsumerResumed(@NonNull String consumerId, boolean remote) {
+    setPaused(consumerId, remote, false);
+  }
+
+  void onConsumerClosed(@NonNull String consumerId) {
+    Watched watched = mWatched.remove(consumerId);
+    if (watched != null) {
+      stop(watched);
+    }
+  }
+
+  void clear() {
+    for (Watched watched : new ArrayList<>(mWatched.values())) {
+      stop(watched);
+    }
+    mWatched.clear();
+    mPending.clear();
+    mSentKinds.clear();
+    mWorkHandler.removeCallbacks(mPollJob);
+  }
+
+  private void setPaused(String consumerId, boolean remote, boolean paused) {
+    Watched watched = mWatched.get(consumerId);
+    if (watched == null) {
+      return;
+    }
+    if (remote) {
+      watched.mRemotePaused = paused;
+    } else {
+      watched.mLocalPaused = paused;
+    }
+    update(watched);
+  }
+
+  // Start or stop the clock of {@code watched} to match whether media is meant to flow.
+  private void update(Watched watched) {
+    if (watched.isFlowing() && !watched.mStarted) {
+      start(watched);
+    } else if (!watched.isFlowing() && watched.mStarted) {
+      stop(watched);
+    }
+  }
+
+  private void start(Watched watched) {
+    watched.mStarted = true;
+    Consumer consumer = watched.mConsumer;
+    if ("video".equals(consumer.getKind())) {
+      Metrics.get().awaitRender(consumer.getTrack().id());
+    } else {
+      add(new Pending(Metrics.FIRST_AUDIO_RECEIVED, Metrics.now(), null, consumer));
+    }
+  }
+
+  private void stop(Watched watched) {
+    Consumer consumer = watched.mConsumer;
+    if ("video".equals(consumer.getKind())) {
+      String trackId = consumer.getTrack().id();
+      if (!Metrics.get().isAwaitingRender(trackId)) {
+        // already rendered, nothing left to time.
+        mWatched.remove(consumer.getId());
+        return;
+      }
+      Metrics.get().cancelRender(trackId);
+    } else {
+      for (int i = mPending.size() - 1; i >= 0; i--) {
+        if (mPending.get(i).mConsumer == consumer) {
+          mPending.remove(i);
+        }
+      }
+    }
+    watched.mStarted = false;
+  }
+
+  private void add(Pending pending) {
+    mPending.add(pending);
+    if (mPending.size() == 1) {
+      // a poll may still be scheduled from before the last pending one was stopped.
+      mWorkHandler.removeCallbacks(mPollJob);
+      mWorkHandler.postDelayed(mPollJob, POLL_INTERVAL_MS);
+    }
+  }
+
+  private void poll() {
+    long nowMs = Metrics.now();
+    for (int i = mPending.size() - 1; i >= 0; i--) {
+      Pending pending = mPending.get(i);
+      try {
+        if (hasMedia(pending)) {
+          long elapsedMs = nowMs - pending.mStartMs;
+          Metrics.get().record(pending.mName, elapsedMs);
+          Logger.d(TAG, pending.mName + " after " + elapsedMs + " ms");
+          mPending.remove(i);
+          forget(pending);
+        } else if (nowMs - pending.mStartMs > TIMEOUT_MS) {
+          Logger.w(TAG, "no " + pending.mName + " after " + TIMEOUT_MS + " ms");
+          mPending.remove(i);
+          forget(pending);
+        }
+      } catch (MediasoupException | JSONException e) {
+        // closed meanwhile.
+        mPending.remove(i);
+        forget(pending);
+      }
+    }
+    if (!mPending.isEmpty()) {
+      mWorkHandler.postDelayed(mPollJob, POLL_INTERVAL_MS);
+    }
+  }
+
+  private void forget(Pending pending) {
+    if (pending.mConsumer != null) {
+      mWatched.remove(pending.mConsumer.getId());
+    }
+  }
+
+  private static boolean hasMedia(Pending pending) throws MediasoupException, JSONException {
+    boolean sending = pending.mProducer != null;
+    String report = sending ? pending.mProducer.getStats() : pending.mConsumer.getStats();
+    String kind = sending ? pending.mProducer.getKind() : pending.mConsumer.getKind();
+    String type = sending ? "outbound-rtp" : "inbound-rtp";
+    // video counts frames through the encoder, audio packets on the wire.
+    String counter =
+        "video".equals(kind) ? "framesEncoded" : (sending ? "packetsSent" : "packetsReceived");
+    JSONArray stats = new JSONArray(report);
+    for (int i = 0; i < stats.length(); i++) {
+      JSONObject entry = stats.optJSONObject(i);
+      if (entry != null && type.equals(entry.optString("type")) && entry.optLong(counter) > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,129 @@
+package org.mediasoup.droid.lib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.mediasoup.droid.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Logging for hot paths, on top of {@link Logger}.
+ *
+ * <p>Messages take "{}" placeholders and fixed arity arguments (no varargs array, no boxing of
+ * already built objects), and nothing is formatted, nor any argument's {@code toString()} called,
+ * unless the level is enabled. High-frequency events can be {@link #sample sampled}. Debug logging
+ * stays off unless the app {@link #setDebugEnabled enables} it for debug builds. This is a runtime
+ * check: the calls stay in release builds, which are not minified, at the cost of a volatile read.
+ * The proguard rule dropping them only applies to builds that turn minification on.
+ */
+@SuppressWarnings("WeakerAccess")
+public class Logs {
+
+  public static final int DEBUG = 1;
+  public static final int WARN = 2;
+  public static final int ERROR = 3;
+  public static final int NONE = 4;
+
+  private static volatile boolean sDebugEnabled;
+  private static volatile int sLevel = WARN;
+  private static final Map<String, AtomicInteger> sSamples = new ConcurrentHashMap<>();
+
+  /** Whether debug logging may be turned on at all, by {@link #setLevel}; off by default. */
+  public static void setDebugEnabled(boolean debugEnabled) {
+    sDebugEnabled = debugEnabled;
+  }
+
+  /** Set the level of both this facade and the underlying {@link Logger}. */
+  public static void setLevel(int level) {
+    sLevel = level;
+    Logger.setLogLevel(
+        level <= DEBUG
+            ? Logger.LogLevel.LOG_DEBUG
+            : level == WARN
+                ? Logger.LogLevel.LOG_WARN
+                : level == ERROR ? Logger.LogLevel.LOG_ERROR : Logger.LogLevel.LOG_NONE);
+  }
+
+  public static int getLevel() {
+    return sLevel;
+  }
+
+  public static boolean isDebug() {
+    return sDebugEnabled && sLevel <= DEBUG;
+  }
+
+  public static boolean isLoggable(int level) {
+    return level == DEBUG ? isDebug() : sLevel <= level;
+  }
+
+  /** Whether this occurrence of {@code key} is logged: the first one, then one in {@code every}. */
+  public static boolean sample(@NonNull String key, int every) {
+    AtomicInteger count = sSamples.get(key);
+    if (count == null) {
+      sSamples.putIfAbsent(key, new AtomicInteger());
+      count = sSamples.get(key);
+    }
+    return count.getAndIncrement() % every == 0;
+  }
+
+  public static void d(@NonNull String tag, @NonNull String message) {
+    if (isDebug()) {
+      Logger.d(tag, message);
+    }
+  }
+
+  public static void d(@NonNull String tag, @NonNull String format, @Nullable Object arg) {
+    if (isDebug()) {
+      Logger.d(tag, format(format, arg, null, null, 1));
+    }
+  }
+
+  public static void d(
+      @NonNull String tag, @NonNull String format, @Nullable Object arg1, @Nullable Object arg2) {
+    if (isDebug()) {
+      Logger.d(tag, format(format, arg1, arg2, null, 2));
+    }
+  }
+
+  public static void d(
+      @NonNull String tag,
+      @NonNull String format,
+      @Nullable Object arg1,
+      @Nullable Object arg2,
+      @Nullable Object arg3) {
+    if (isDebug()) {
+      Logger.d(tag, format(format, arg1, arg2, arg3, 3));
+    }
+  }
+
+  public static void w(@NonNull String tag, @NonNull String format, @Nullable Object arg) {
+    if (sLevel <= WARN) {
+      Logger.w(tag, format(format, arg, null, null, 1));
+    }
+  }
+
+  public static void e(@NonNull String tag, @NonNull String message, @NonNull Throwable t) {
+    if (sLevel <= ERROR) {
+      Logger.e(tag, message, t);
+    }
+  }
+
+  // Replaces the first {@code count} "{}" with the arguments.
+  static String format(String format, Object arg1, Object arg2, Object arg3, int count) {
+    StringBuilder builder = new StringBuilder(format.length() + 32 * count);
+    int start = 0;
+    for (int i = 0; i < count; i++) {
+      int index = format.indexOf("{}", start);
+      if (index < 0) {
+        break;
+      }
+      builder.append(format, start, index);
+      builder.append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+      start = index + 2;
+    }
+    return builder.append(format, start, format.length()).toString();
+  }
+}
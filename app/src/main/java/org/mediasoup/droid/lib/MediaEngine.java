@@ -0,0 +1,417 @@
+package org.mediasoup.droid.lib;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.Logger;
+import org.webrtc.AudioSource;
+import org.webrtc.Camera1Enumerator;
+import org.webrtc.Camera2Enumerator;
+import org.webrtc.CameraEnumerator;
+import org.webrtc.CameraVideoCapturer;
+import org.webrtc.DefaultVideoDecoderFactory;
+import org.webrtc.DefaultVideoEncoderFactory;
+import org.webrtc.EglBase;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.SurfaceTextureHelper;
+import org.webrtc.VideoDecoderFactory;
+import org.webrtc.VideoEncoderFactory;
+import org.webrtc.VideoSource;
+import org.webrtc.audio.AudioDeviceModule;
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The process wide WebRTC media engine: the PeerConnectionFactory with its audio device module,
+ * the camera capturer, the capture sources and the EGL context.
+ *
+ * <p>Rooms acquire it through {@link PeerConnectionUtils} and release it when closed, so a lobby
+ * and the main room share one set of native resources, and a room switch or settings change
+ * reuses the factory instead of rebuilding it and reinitializing the audio device. The factory is
+ * disposed a while after the last room released it; the camera and mic sources are stopped as soon
+ * as no room uses them.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MediaEngine {
+
+  private static final String TAG = "MediaEngine";
+
+  // Keeps the factory across a room being closed and the next one created.
+  private static final long DISPOSE_DELAY_MS = 10_000;
+  private static final int CAPTURE_WIDTH = 640;
+  private static final int CAPTURE_HEIGHT = 480;
+  private static final int CAPTURE_FPS = 30;
+
+  private static final MediaEngine sInstance = new MediaEngine();
+  private static final EglBase sEglBase = EglBase.create();
+  private static volatile String sPreferCameraFace;
+
+  public static MediaEngine get() {
+    return sInstance;
+  }
+
+  public static EglBase.Context getEglContext() {
+    return sEglBase.getEglBaseContext();
+  }
+
+  public static void setPreferCameraFace(String preferCameraFace) {
+    sPreferCameraFace = preferCameraFace;
+  }
+
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  private final Runnable mDisposeJob = this::disposeIfUnused;
+  // The audio device module takes one samples callback, fan it out to every room.
+  private final List<JavaAudioDeviceModule.SamplesReadyCallback> mSamplesCallbacks =
+      new CopyOnWriteArrayList<>();
+  private final JavaAudioDeviceModule.SamplesReadyCallback mSamplesFanOut =
+      samples -> {
+        for (JavaAudioDeviceModule.SamplesReadyCallback callback : mSamplesCallbacks) {
+          callback.onWebRtcAudioRecordSamplesReady(samples);
+        }
+      };
+
+  // Creating the factory may wait for warm start, under its own lock rather than the engine one.
+  private final Object mFactoryLock = new Object();
+  // Written under mFactoryLock, read without a lock by getFactory() and WarmStart.
+  private volatile PeerConnectionFactory mFactory;
+
+  // Guarded by this.
+  private int mRefCount;
+  private AudioSource mAudioSource;
+  private int mAudioSourceRefs;
+  private VideoSource mVideoSource;
+  private int mVideoSourceRefs;
+  private CameraVideoCapturer mCamCapture;
+  private SurfaceTextureHelper mSurfaceTextureHelper;
+  private int mCaptureSuspends;
+  // What the camera source output is scaled down and throttled to, 0 for the capture format.
+  private int mOutputHeight;
+  private int mOutputFps;
+
+  private MediaEngine() {}
+
+  public synchronized void acquire() {
+    mRefCount++;
+    mMainHandler.removeCallbacks(mDisposeJob);
+    Logger.d(TAG, "acquire() refs: " + mRefCount);
+  }
+
+  public synchronized void release() {
+    if (mRefCount == 0) {
+      Logger.w(TAG, "release() | not acquired");
+      return;
+    }
+    mRefCount--;
+    Logger.d(TAG, "release() refs: " + mRefCount);
+    if (mRefCount == 0) {
+      mMainHandler.postDelayed(mDisposeJob, DISPOSE_DELAY_MS);
+    }
+  }
+
+  /** Whether a factory is alive, so a warm start one would not be used. */
+  public boolean hasFactory() {
+    return mFactory != null;
+  }
+
+  public void addSamplesReadyCallback(
+      @NonNull JavaAudioDeviceModule.SamplesReadyCallback callback) {
+    mSamplesCallbacks.add(callback);
+  }
+
+  public void removeSamplesReadyCallback(
+      @NonNull JavaAudioDeviceModule.SamplesReadyCallback callback) {
+    mSamplesCallbacks.remove(callback);
+  }
+
+  /** The shared factory, taking the one built during warm start if it is not created yet. */
+  @NonNull
+  public PeerConnectionFactory getFactory(@NonNull Context context) {
+    PeerConnectionFactory factory = mFactory;
+    if (factory != null) {
+      return factory;
+    }
+    synchronized (mFactoryLock) {
+      if (mFactory == null) {
+        Logger.d(TAG, "createFactory()");
+        WarmStart.PreparedFactory prepared = WarmStart.get().takeFactory();
+        if (prepared != null) {
+          prepared.setSamplesReadyCallback(mSamplesFanOut);
+          mFactory = prepared.getFactory();
+        } else {
+          mFactory = buildPeerConnectionFactory(context, mSamplesFanOut);
+        }
+      }
+      return mFactory;
+    }
+  }
+
+  @NonNull
+  public AudioSource acquireAudioSource(@NonNull Context context) {
+    // before taking the engine lock, it may wait for the warm start factory.
+    PeerConnectionFactory factory = getFactory(context);
+    synchronized (this) {
+      if (mAudioSource == null) {
+        Logger.d(TAG, "createAudioSource()");
+        // Software processing only where the hardware one is not used.
+        mAudioSource = factory.createAudioSource(AudioConfig.get(context).createAudioConstraints());
+      }
+      mAudioSourceRefs++;
+      return mAudioSource;
+    }
+  }
+
+  public synchronized void releaseAudioSource() {
+    if (mAudioSourceRefs == 0 || --mAudioSourceRefs > 0) {
+      return;
+    }
+    Logger.d(TAG, "disposeAudioSource()");
+    mAudioSource.dispose();
+    mAudioSource = null;
+  }
+
+  /** The camera source, capturing from the first acquire until the last release. */
+  @NonNull
+  public VideoSource acquireVideoSource(@NonNull Context context) {
+    PeerConnectionFactory factory = getFactory(context);
+    synchronized (this) {
+      if (mVideoSource == null) {
+        Logger.d(TAG, "createVideoSource()");
+        mCamCapture = createCamCapture(context);
+        mVideoSource = factory.createVideoSource(false);
+        mSurfaceTextureHelper = SurfaceTextureHelper.create("CaptureThread", getEglContext());
+        mCamCapture.initialize(mSurfaceTextureHelper, context, mVideoSource.getCapturerObserver());
+        mCamCapture.startCapture(CAPTURE_WIDTH, CAPTURE_HEIGHT, CAPTURE_FPS);
+        applyOutputFormat();
+      }
+      mVideoSourceRefs++;
+      return mVideoSource;
+    }
+  }
+
+  public synchronized void releaseVideoSource() {
+    if (mVideoSourceRefs == 0 || --mVideoSourceRefs > 0) {
+      return;
+    }
+    Logger.d(TAG, "disposeVideoSource()");
+    if (mCaptureSuspends == 0) {
+      stopCapture();
+    }
+    mCaptureSuspends = 0;
+    mCamCapture.dispose();
+    mCamCapture = null;
+    mVideoSource.dispose();
+    mVideoSource = null;
+    mSurfaceTextureHelper.dispose();
+    mSurfaceTextureHelper = null;
+  }
+
+  /**
+   * Stop the camera, e.g. while in background, keeping the source and its tracks. Producers of
+   * those tracks are expected to be paused meanwhile. Balanced by {@link #resumeCapture()}.
+   */
+  public synchronized void suspendCapture() {
+    if (mVideoSource == null || mCaptureSuspends++ > 0) {
+      return;
+    }
+    Logger.d(TAG, "suspendCapture()");
+    stopCapture();
+  }
+
+  public synchronized void resumeCapture() {
+    if (mVideoSource == null || mCaptureSuspends == 0 || --mCaptureSuspends > 0) {
+      return;
+    }
+    Logger.d(TAG, "resumeCapture()");
+    mCamCapture.startCapture(CAPTURE_WIDTH, CAPTURE_HEIGHT, CAPTURE_FPS);
+  }
+
+  /**
+   * Scale down and throttle what the camera source outputs, without restarting the capture nor
+   * touching the tracks or producers fed by it. A zero height lifts the limit.
+   */
+  public synchronized void adaptOutputFormat(int height, int fps) {
+    mOutputHeight = height;
+    mOutputFps = fps;
+    if (mVideoSource != null) {
+      applyOutputFormat();
+    }
+  }
+
+  private void applyOutputFormat() {
+    int height = mOutputHeight > 0 ? Math.min(mOutputHeight, CAPTURE_HEIGHT) : CAPTURE_HEIGHT;
+    int fps = mOutputFps > 0 ? Math.min(mOutputFps, CAPTURE_FPS) : CAPTURE_FPS;
+    int width = height * CAPTURE_WIDTH / CAPTURE_HEIGHT;
+    Logger.d(TAG, "applyOutputFormat() " + width + "x" + height + "@" + fps);
+    mVideoSource.adaptOutputFormat(width, height, fps);
+  }
+
+  private void stopCapture() {
+    try {
+      mCamCapture.stopCapture();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public synchronized void switchCam(CameraVideoCapturer.CameraSwitchHandler switchHandler) {
+    Logger.d(TAG, "switchCam()");
+    if (mCamCapture != null) {
+      mCamCapture.switchCamera(switchHandler);
+    }
+  }
+
+  // Factory lock first, as getFactory() never takes the engine lock while holding it.
+  private void disposeIfUnused() {
+    synchronized (mFactoryLock) {
+      synchronized (this) {
+        if (mRefCount > 0 || mFactory == null) {
+          return;
+        }
+        Logger.w(TAG, "dispose()");
+        mFactory.dispose();
+        mFactory = null;
+      }
+    }
+  }
+
+  // Any thread, the factory and its audio device module do not depend on the caller's thread.
+  static PeerConnectionFactory buildPeerConnectionFactory(
+      Context context, JavaAudioDeviceModule.SamplesReadyCallback samplesReadyCallback) {
+    PeerConnectionFactory.Builder builder = PeerConnectionFactory.builder();
+    builder.setOptions(null);
+
+    AudioDeviceModule adm = createJavaAudioDevice(context, samplesReadyCallback);
+    VideoEncoderFactory encoderFactory =
+        new DefaultVideoEncoderFactory(getEglContext(), true /* enableIntelVp8Encoder */, true);
+    VideoDecoderFactory decoderFactory = new DefaultVideoDecoderFactory(getEglContext());
+
+    return builder
+        .setAudioDeviceModule(adm)
+        .setVideoEncoderFactory(encoderFactory)
+        .setVideoDecoderFactory(decoderFactory)
+        .createPeerConnectionFactory();
+  }
+
+  private static AudioDeviceModule createJavaAudioDevice(
+      Context appContext, JavaAudioDeviceModule.SamplesReadyCallback samplesReadyCallback) {
+    Logger.d(TAG, "createJavaAudioDevice()");
+    // Enable/disable OpenSL ES playback.
+    // Set audio record error callbacks.
+    JavaAudioDeviceModule.AudioRecordErrorCallback audioRecordErrorCallback =
+        new JavaAudioDeviceModule.AudioRecordErrorCallback() {
+          @Override
+          public void onWebRtcAudioRecordInitError(String errorMessage) {
+            Logger.e(TAG, "onWebRtcAudioRecordInitError: " + errorMessage);
+          }
+
+          @Override
+          public void onWebRtcAudioRecordStartError(
+              JavaAudioDeviceModule.AudioRecordStartErrorCode errorCode, String errorMessage) {
+            Logger.e(TAG, "onWebRtcAudioRecordStartError: " + errorCode + ". " + errorMessage);
+          }
+
+          @Override
+          public void onWebRtcAudioRecordError(String errorMessage) {
+            Logger.e(TAG, "onWebRtcAudioRecordError: " + errorMessage);
+          }
+        };
+
+    JavaAudioDeviceModule.AudioTrackErrorCallback audioTrackErrorCallback =
+        new JavaAudioDeviceModule.AudioTrackErrorCallback() {
+          @Override
+          public void onWebRtcAudioTrackInitError(String errorMessage) {
+            Log.e(TAG, "onWebRtcAudioTrackInitError: " + errorMessage);
+          }
+
+          @Override
+          public void onWebRtcAudioTrackStartError(
+              JavaAudioDeviceModule.AudioTrackStartErrorCode errorCode, String errorMessage) {
+            Log.e(TAG, "onWebRtcAudioTrackStartError: " + errorCode + ". " + errorMessage);
+          }
+
+          @Override
+          public void onWebRtcAudioTrackError(String errorMessage) {
+            Log.e(TAG, "onWebRtcAudioTrackError: " + errorMessage);
+          }
+        };
+
+    // Hardware effects and native sample rate, per device.
+    JavaAudioDeviceModule.Builder builder =
+        JavaAudioDeviceModule.builder(appContext)
+            .setAudioRecordErrorCallback(audioRecordErrorCallback)
+            .setAudioTrackErrorCallback(audioTrackErrorCallback)
+            .setSamplesReadyCallback(samplesReadyCallback);
+    return AudioConfig.get(appContext).apply(builder).createAudioDeviceModule();
+  }
+
+  private static CameraVideoCapturer createCamCapture(Context context) {
+    Logger.d(TAG, "createCamCapture()");
+    boolean isCamera2Supported = Camera2Enumerator.isSupported(context);
+    CameraEnumerator cameraEnumerator;
+
+    if (isCamera2Supported) {
+      cameraEnumerator = new Camera2Enumerator(context);
+    } else {
+      cameraEnumerator = new Camera1Enumerator();
+    }
+    final String[] deviceNames = cameraEnumerator.getDeviceNames();
+    for (String deviceName : deviceNames) {
+      boolean needFrontFacing = "front".endsWith(sPreferCameraFace);
+      String selectedDeviceName = null;
+      if (needFrontFacing) {
+        if (cameraEnumerator.isFrontFacing(deviceName)) {
+          selectedDeviceName = deviceName;
+        }
+      } else {
+        if (!cameraEnumerator.isFrontFacing(deviceName)) {
+          selectedDeviceName = deviceName;
+        }
+      }
+
+      if (!TextUtils.isEmpty(selectedDeviceName)) {
+        return cameraEnumerator.createCapturer(
+            selectedDeviceName,
+            new CameraVideoCapturer.CameraEventsHandler() {
+              @Override
+              public void onCameraError(String s) {
+                Logger.e(TAG, "onCameraError, " + s);
+              }
+
+              @Override
+              public void onCameraDisconnected() {
+                Logger.w(TAG, "onCameraDisconnected");
+              }
+
+              @Override
+              public void onCameraFreezed(String s) {
+                Logger.w(TAG, "onCameraFreezed, " + s);
+              }
+
+              @Override
+              public void onCameraOpening(String s) {
+                Logger.d(TAG, "onCameraOpening, " + s);
+              }
+
+              @Override
+              public void onFirstFrameAvailable() {
+                Logger.d(TAG, "onFirstFrameAvailable");
+              }
+
+              @Override
+              public void onCameraClosed() {
+                Logger.d(TAG, "onCameraClosed");
+              }
+            });
+      }
+    }
+
+    throw new IllegalStateException("Failed to create Camera Capture");
+  }
+}
@@ -0,0 +1,215 @@
+package org.mediasoup.droid.lib;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.os.Build;
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+
+import org.mediasoup.droid.Logger;
+
+/**
+ * Follows the device's default network and reports when it comes, goes or is replaced by another
+ * one, through a default NetworkCallback on API 24+ and the CONNECTIVITY_ACTION broadcast before.
+ * Also holds what each network type is allowed to send and receive.
+ *
+ * <p>The listener is called on the given handler's thread.
+ */
+class NetworkMonitor {
+
+  private static final String TAG = "NetworkMonitor";
+
+  static final String WIFI = "wifi";
+  static final String CELLULAR = "cellular";
+  static final String ETHERNET = "ethernet";
+  static final String OTHER = "other";
+
+  interface Listener {
+
+    /**
+     * The default network is now one of {@code type}. {@code handover} when it replaced another
+     * network, {@code previousUp} when that one is still connected, e.g. cellular lingering after
+     * Wi-Fi came up.
+     */
+    void onNetworkAvailable(@NonNull String type, boolean handover, boolean previousUp);
+
+    /** No network any more. */
+    void onNetworkLost();
+  }
+
+  @NonNull private final Context mContext;
+  @NonNull private final ConnectivityManager mConnectivityManager;
+  @NonNull private final Handler mHandler;
+  @NonNull private final Listener mListener;
+  private ConnectivityManager.NetworkCallback mNetworkCallback;
+  private BroadcastReceiver mReceiver;
+  // The current default network (API 24+, callback thread) or its type (before, handler thread).
+  private Network mNetwork;
+  private String mType;
+
+  NetworkMonitor(@NonNull Context context, @NonNull Handler handler, @NonNull Listener listener) {
+    mContext = context.getApplicationContext();
+    mConnectivityManager =
+        (ConnectivityManager) mContext.getSystemService(Context.CONNECTIVITY_SERVICE);
+    mHandler = handler;
+    mListener = listener;
+  }
+
+  /** Ceiling for the camera's send bitrate on a network of {@code type}, in bps, 0 for none. */
+  static int maxVideoBitrate(@Nullable String type) {
+    if (WIFI.equals(type)) {
+      return 1_500_000;
+    } else if (CELLULAR.equals(type)) {
+      return 500_000;
+    } else if (OTHER.equals(type)) {
+      return 800_000;
+    }
+    return 0;
+  }
+
+  /** Height the camera output is scaled down to on a network of {@code type}, 0 for none. */
+  static int maxVideoHeight(@Nullable String type) {
+    if (CELLULAR.equals(type)) {
+      return 240;
+    } else if (OTHER.equals(type)) {
+      return 360;
+    }
+    return 0;
+  }
+
+  /** Frame rate the camera output is throttled to on a network of {@code type}, 0 for none. */
+  static int maxVideoFps(@Nullable String type) {
+    if (CELLULAR.equals(type)) {
+      return 15;
+    } else if (OTHER.equals(type)) {
+      return 24;
+    }
+    return 0;
+  }
+
+  /** Highest spatial layer to receive on a network of {@code type}. */
+  static int maxSpatialLayer(@Nullable String type) {
+    if (CELLULAR.equals(type) || OTHER.equals(type)) {
+      return ActiveSpeakerPolicy.HIGH_SPATIAL_LAYER - 1;
+    }
+    return ActiveSpeakerPolicy.HIGH_SPATIAL_LAYER;
+  }
+
+  void start() {
+    Logger.d(TAG, "start()");
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+      mNetworkCallback = newNetworkCallback();
+      mConnectivityManager.registerDefaultNetworkCallback(mNetworkCallback);
+    } else {
+      mReceiver =
+          new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+              onConnectivityChanged();
+            }
+          };
+      mContext.registerReceiver(
+          mReceiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION), null, mHandler);
+    }
+  }
+
+  void stop() {
+    Logger.d(TAG, "stop()");
+    if (mNetworkCallback != null) {
+      mConnectivityManager.unregisterNetworkCallback(mNetworkCallback);
+      mNetworkCallback = null;
+    }
+    if (mReceiver != null) {
+      mContext.unregisterReceiver(mReceiver);
+      mReceiver = null;
+    }
+  }
+
+  @RequiresApi(Build.VERSION_CODES.N)
+  private ConnectivityManager.NetworkCallback newNetworkCallback() {
+    return new ConnectivityManager.NetworkCallback() {
+      @Override
+      public void onAvailable(@NonNull Network network) {
+        if (network.equals(mNetwork)) {
+          return;
+        }
+        Network previous = mNetwork;
+        mNetwork = network;
+        String type = typeOf(mConnectivityManager.getNetworkCapabilities(network));
+        boolean previousUp =
+            previous != null && mConnectivityManager.getNetworkCapabilities(previous) != null;
+        Logger.d(TAG, "onAvailable() " + type + ", handover: " + (previous != null));
+        mHandler.post(() -> mListener.onNetworkAvailable(type, previous != null, previousUp));
+      }
+
+      @Override
+      public void onLost(@NonNull Network network) {
+        if (!network.equals(mNetwork)) {
+          return;
+        }
+        Logger.d(TAG, "onLost()");
+        mNetwork = null;
+        mHandler.post(mListener::onNetworkLost);
+      }
+    };
+  }
+
+  @SuppressWarnings("deprecation")
+  private void onConnectivityChanged() {
+    NetworkInfo info = mConnectivityManager.getActiveNetworkInfo();
+    if (info == null || !info.isConnected()) {
+      if (mType != null) {
+        Logger.d(TAG, "onConnectivityChanged() lost");
+        mType = null;
+        mListener.onNetworkLost();
+      }
+      return;
+    }
+    String type = typeOf(info.getType());
+    if (type.equals(mType)) {
+      return;
+    }
+    boolean handover = mType != null;
+    mType = type;
+    Logger.d(TAG, "onConnectivityChanged() " + type + ", handover: " + handover);
+    // whether the previous network is still up cannot be told here.
+    mListener.onNetworkAvailable(type, handover, false);
+  }
+
+  @RequiresApi(Build.VERSION_CODES.LOLLIPOP)
+  private static String typeOf(@Nullable NetworkCapabilities capabilities) {
+    if (capabilities == null) {
+      return OTHER;
+    } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+      return WIFI;
+    } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+      return CELLULAR;
+    } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+      return ETHERNET;
+    }
+    return OTHER;
+  }
+
+  @SuppressWarnings("deprecation")
+  private static String typeOf(int legacyType) {
+    switch (legacyType) {
+      case ConnectivityManager.TYPE_WIFI:
+        return WIFI;
+      case ConnectivityManager.TYPE_MOBILE:
+        return CELLULAR;
+      case ConnectivityManager.TYPE_ETHERNET:
+        return ETHERNET;
+      default:
+        return OTHER;
+    }
+  }
+}
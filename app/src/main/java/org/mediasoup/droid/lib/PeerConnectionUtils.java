@@ -1,236 +1,98 @@
 package org.mediasoup.droid.lib;
 
 import android.content.Context;
-import android.text.TextUtils;
-import android.util.Log;
-
-import androidx.annotation.MainThread;
 
 import org.mediasoup.droid.Logger;
 import org.webrtc.AudioSource;
 import org.webrtc.AudioTrack;
-import org.webrtc.Camera1Enumerator;
-import org.webrtc.Camera2Enumerator;
-import org.webrtc.CameraEnumerator;
 import org.webrtc.CameraVideoCapturer;
-import org.webrtc.DefaultVideoDecoderFactory;
-import org.webrtc.DefaultVideoEncoderFactory;
 import org.webrtc.EglBase;
-import org.webrtc.MediaConstraints;
 import org.webrtc.PeerConnectionFactory;
-import org.webrtc.SurfaceTextureHelper;
 import org.webrtc.ThreadUtils;
-import org.webrtc.VideoDecoderFactory;
-import org.webrtc.VideoEncoderFactory;
 import org.webrtc.VideoSource;
 import org.webrtc.VideoTrack;
-import org.webrtc.audio.AudioDeviceModule;
 import org.webrtc.audio.JavaAudioDeviceModule;
 
+/**
+ * A room's handle on the shared {@link MediaEngine}: creates the room's tracks from the shared
+ * sources and gives back what it acquired on {@link #dispose()}.
+ */
 @SuppressWarnings("WeakerAccess")
 public class PeerConnectionUtils {
 
   private static final String TAG = "PeerConnectionUtils";
 
-  private static String mPreferCameraFace;
-  private static EglBase mEglBase = EglBase.create();
-
   public static EglBase.Context getEglContext() {
-    return mEglBase.getEglBaseContext();
+    return MediaEngine.getEglContext();
   }
 
   public static void setPreferCameraFace(String preferCameraFace) {
-    mPreferCameraFace = preferCameraFace;
+    MediaEngine.setPreferCameraFace(preferCameraFace);
   }
 
   private final ThreadUtils.ThreadChecker mThreadChecker;
-  private PeerConnectionFactory mPeerConnectionFactory;
+  private final MediaEngine mEngine = MediaEngine.get();
 
+  private JavaAudioDeviceModule.SamplesReadyCallback mSamplesReadyCallback;
+  // Shared sources this room acquired.
   private AudioSource mAudioSource;
   private VideoSource mVideoSource;
-  private CameraVideoCapturer mCamCapture;
+  private boolean mCaptureSuspended;
+  private boolean mOutputAdapted;
+  private boolean mDisposed;
 
   public PeerConnectionUtils() {
     mThreadChecker = new ThreadUtils.ThreadChecker();
+    mEngine.acquire();
   }
 
-  // PeerConnection factory creation.
-  private void createPeerConnectionFactory(Context context) {
-    Logger.d(TAG, "createPeerConnectionFactory()");
+  // Tap of the recorded microphone samples.
+  public void setSamplesReadyCallback(JavaAudioDeviceModule.SamplesReadyCallback callback) {
     mThreadChecker.checkIsOnValidThread();
-    PeerConnectionFactory.Builder builder = PeerConnectionFactory.builder();
-    builder.setOptions(null);
-
-    AudioDeviceModule adm = createJavaAudioDevice(context);
-    VideoEncoderFactory encoderFactory =
-        new DefaultVideoEncoderFactory(
-            mEglBase.getEglBaseContext(), true /* enableIntelVp8Encoder */, true);
-    VideoDecoderFactory decoderFactory =
-        new DefaultVideoDecoderFactory(mEglBase.getEglBaseContext());
-
-    mPeerConnectionFactory =
-        builder
-            .setAudioDeviceModule(adm)
-            .setVideoEncoderFactory(encoderFactory)
-            .setVideoDecoderFactory(decoderFactory)
-            .createPeerConnectionFactory();
+    if (mSamplesReadyCallback != null) {
+      mEngine.removeSamplesReadyCallback(mSamplesReadyCallback);
+    }
+    mSamplesReadyCallback = callback;
+    if (callback != null) {
+      mEngine.addSamplesReadyCallback(callback);
+    }
   }
 
-  private AudioDeviceModule createJavaAudioDevice(Context appContext) {
-    Logger.d(TAG, "createJavaAudioDevice()");
+  // The shared factory, for the room's transports.
+  public PeerConnectionFactory getFactory(Context context) {
     mThreadChecker.checkIsOnValidThread();
-    // Enable/disable OpenSL ES playback.
-    // Set audio record error callbacks.
-    JavaAudioDeviceModule.AudioRecordErrorCallback audioRecordErrorCallback =
-        new JavaAudioDeviceModule.AudioRecordErrorCallback() {
-          @Override
-          public void onWebRtcAudioRecordInitError(String errorMessage) {
-            Logger.e(TAG, "onWebRtcAudioRecordInitError: " + errorMessage);
-          }
-
-          @Override
-          public void onWebRtcAudioRecordStartError(
-              JavaAudioDeviceModule.AudioRecordStartErrorCode errorCode, String errorMessage) {
-            Logger.e(TAG, "onWebRtcAudioRecordStartError: " + errorCode + ". " + errorMessage);
-          }
-
-          @Override
-          public void onWebRtcAudioRecordError(String errorMessage) {
-            Logger.e(TAG, "onWebRtcAudioRecordError: " + errorMessage);
-          }
-        };
-
-    JavaAudioDeviceModule.AudioTrackErrorCallback audioTrackErrorCallback =
-        new JavaAudioDeviceModule.AudioTrackErrorCallback() {
-          @Override
-          public void onWebRtcAudioTrackInitError(String errorMessage) {
-            Log.e(TAG, "onWebRtcAudioTrackInitError: " + errorMessage);
-          }
-
-          @Override
-          public void onWebRtcAudioTrackStartError(
-              JavaAudioDeviceModule.AudioTrackStartErrorCode errorCode, String errorMessage) {
-            Log.e(TAG, "onWebRtcAudioTrackStartError: " + errorCode + ". " + errorMessage);
-          }
-
-          @Override
-          public void onWebRtcAudioTrackError(String errorMessage) {
-            Log.e(TAG, "onWebRtcAudioTrackError: " + errorMessage);
-          }
-        };
-
-    return JavaAudioDeviceModule.builder(appContext)
-        .setAudioRecordErrorCallback(audioRecordErrorCallback)
-        .setAudioTrackErrorCallback(audioTrackErrorCallback)
-        .createAudioDeviceModule();
+    return mEngine.getFactory(context);
   }
 
-  // Audio source creation.
-  private void createAudioSource(Context context) {
-    Logger.d(TAG, "createAudioSource()");
+  public void switchCam(CameraVideoCapturer.CameraSwitchHandler switchHandler) {
     mThreadChecker.checkIsOnValidThread();
-    if (mPeerConnectionFactory == null) {
-      createPeerConnectionFactory(context);
-    }
-
-    mAudioSource = mPeerConnectionFactory.createAudioSource(new MediaConstraints());
+    mEngine.switchCam(switchHandler);
   }
 
-  private void createCamCapture(Context context) {
-    Logger.d(TAG, "createCamCapture()");
+  // Stop the camera while in background, with the cam producer paused.
+  public void suspendCapture() {
     mThreadChecker.checkIsOnValidThread();
-    boolean isCamera2Supported = Camera2Enumerator.isSupported(context);
-    CameraEnumerator cameraEnumerator;
-
-    if (isCamera2Supported) {
-      cameraEnumerator = new Camera2Enumerator(context);
-    } else {
-      cameraEnumerator = new Camera1Enumerator();
-    }
-    final String[] deviceNames = cameraEnumerator.getDeviceNames();
-    for (String deviceName : deviceNames) {
-      boolean needFrontFacing = "front".endsWith(mPreferCameraFace);
-      String selectedDeviceName = null;
-      if (needFrontFacing) {
-        if (cameraEnumerator.isFrontFacing(deviceName)) {
-          selectedDeviceName = deviceName;
-        }
-      } else {
-        if (!cameraEnumerator.isFrontFacing(deviceName)) {
-          selectedDeviceName = deviceName;
-        }
-      }
-
-      if (!TextUtils.isEmpty(selectedDeviceName)) {
-        mCamCapture =
-            cameraEnumerator.createCapturer(
-                selectedDeviceName,
-                new CameraVideoCapturer.CameraEventsHandler() {
-                  @Override
-                  public void onCameraError(String s) {
-                    Logger.e(TAG, "onCameraError, " + s);
-                  }
-
-                  @Override
-                  public void onCameraDisconnected() {
-                    Logger.w(TAG, "onCameraDisconnected");
-                  }
-
-                  @Override
-                  public void onCameraFreezed(String s) {
-                    Logger.w(TAG, "onCameraFreezed, " + s);
-                  }
-
-                  @Override
-                  public void onCameraOpening(String s) {
-                    Logger.d(TAG, "onCameraOpening, " + s);
-                  }
-
-                  @Override
-                  public void onFirstFrameAvailable() {
-                    Logger.d(TAG, "onFirstFrameAvailable");
-                  }
-
-                  @Override
-                  public void onCameraClosed() {
-                    Logger.d(TAG, "onCameraClosed");
-                  }
-                });
-        break;
-      }
-    }
-
-    if (mCamCapture == null) {
-      throw new IllegalStateException("Failed to create Camera Capture");
+    if (mVideoSource == null || mCaptureSuspended) {
+      return;
     }
+    mCaptureSuspended = true;
+    mEngine.suspendCapture();
   }
 
-  public void switchCam(CameraVideoCapturer.CameraSwitchHandler switchHandler) {
-    Logger.d(TAG, "switchCam()");
+  public void resumeCapture() {
     mThreadChecker.checkIsOnValidThread();
-    if (mCamCapture != null) {
-      mCamCapture.switchCamera(switchHandler);
+    if (!mCaptureSuspended) {
+      return;
     }
+    mCaptureSuspended = false;
+    mEngine.resumeCapture();
   }
 
-  // Video source creation.
-  @MainThread
-  private void createVideoSource(Context context) {
-    Logger.d(TAG, "createVideoSource()");
+  // Cap the camera output, e.g. to the network's limits; a zero height lifts the cap.
+  public void adaptVideoOutput(int height, int fps) {
     mThreadChecker.checkIsOnValidThread();
-    if (mPeerConnectionFactory == null) {
-      createPeerConnectionFactory(context);
-    }
-    if (mCamCapture == null) {
-      createCamCapture(context);
-    }
-
-    mVideoSource = mPeerConnectionFactory.createVideoSource(false);
-    SurfaceTextureHelper surfaceTextureHelper =
-        SurfaceTextureHelper.create("CaptureThread", mEglBase.getEglBaseContext());
-
-    mCamCapture.initialize(surfaceTextureHelper, context, mVideoSource.getCapturerObserver());
-    mCamCapture.startCapture(640, 480, 30);
+    mOutputAdapted = height > 0;
+    mEngine.adaptOutputFormat(height, fps);
   }
 
   // Audio track creation.
@@ -238,9 +100,9 @@ public class PeerConnectionUtils {
     Logger.d(TAG, "createAudioTrack()");
     mThreadChecker.checkIsOnValidThread();
     if (mAudioSource == null) {
-      createAudioSource(context);
+      mAudioSource = mEngine.acquireAudioSource(context);
     }
-    return mPeerConnectionFactory.createAudioTrack(id, mAudioSource);
+    return mEngine.getFactory(context).createAudioTrack(id, mAudioSource);
   }
 
   // Video track creation.
@@ -248,33 +110,32 @@ public class PeerConnectionUtils {
     Logger.d(TAG, "createVideoTrack()");
     mThreadChecker.checkIsOnValidThread();
     if (mVideoSource == null) {
-      createVideoSource(context);
+      mVideoSource = mEngine.acquireVideoSource(context);
     }
-
-    return mPeerConnectionFactory.createVideoTrack(id, mVideoSource);
+    return mEngine.getFactory(context).createVideoTrack(id, mVideoSource);
   }
 
   public void dispose() {
     Logger.w(TAG, "dispose()");
     mThreadChecker.checkIsOnValidThread();
-    if (mCamCapture != null) {
-      mCamCapture.dispose();
-      mCamCapture = null;
+    if (mDisposed) {
+      return;
     }
-
+    mDisposed = true;
     if (mVideoSource != null) {
-      mVideoSource.dispose();
+      mEngine.releaseVideoSource();
       mVideoSource = null;
     }
-
+    // after the release, so the camera is not restarted when it was the last user.
+    resumeCapture();
+    if (mOutputAdapted) {
+      adaptVideoOutput(0, 0);
+    }
     if (mAudioSource != null) {
-      mAudioSource.dispose();
+      mEngine.releaseAudioSource();
       mAudioSource = null;
     }
-
-    if (mPeerConnectionFactory != null) {
-      mPeerConnectionFactory.dispose();
-      mPeerConnectionFactory = null;
-    }
+    setSamplesReadyCallback(null);
+    mEngine.release();
   }
 }
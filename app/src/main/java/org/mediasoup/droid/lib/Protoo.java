@@ -4,7 +4,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.WorkerThread;
 
 import org.json.JSONObject;
-import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.lib.metrics.Tracer;
 import org.mediasoup.droid.lib.socket.WebSocketTransport;
 import org.protoojs.droid.ProtooException;
 
@@ -19,8 +19,16 @@ public class Protoo extends org.protoojs.droid.Peer {
     void request(JSONObject req);
   }
 
+  @NonNull private final WebSocketTransport mTransport;
+
   public Protoo(@NonNull WebSocketTransport transport, @NonNull Listener listener) {
     super(transport, listener);
+    mTransport = transport;
+  }
+
+  /** Reopen the WebSocket, which the listener sees as a disconnection followed by an open. */
+  public void reconnect() {
+    mTransport.reconnect();
   }
 
   public Observable<String> request(String method) {
@@ -34,7 +42,10 @@ public class Protoo extends org.protoojs.droid.Peer {
   }
 
   private Observable<String> request(String method, @NonNull JSONObject data) {
-    Logger.d(TAG, "request(), method: " + method);
+    Logs.d(TAG, "request(), method: {}", method);
+    // request to response, whichever thread it comes back on.
+    long startNs = Tracer.now();
+    String traceName = startNs != 0 ? "trace.protoo." + method : null;
     return Observable.create(
         emitter ->
             request(
@@ -43,6 +54,7 @@ public class Protoo extends org.protoojs.droid.Peer {
                 new ClientRequestHandler() {
                   @Override
                   public void resolve(String data) {
+                    Tracer.record(traceName, startNs);
                     if (!emitter.isDisposed()) {
                       emitter.onNext(data);
                     }
@@ -50,6 +62,7 @@ public class Protoo extends org.protoojs.droid.Peer {
 
                   @Override
                   public void reject(long error, String errorReason) {
+                    Tracer.record(traceName, startNs);
                     if (!emitter.isDisposed()) {
                       emitter.onError(new ProtooException(error, errorReason));
                     }
@@ -72,12 +85,17 @@ public class Protoo extends org.protoojs.droid.Peer {
 
   @WorkerThread
   private String syncRequest(String method, @NonNull JSONObject data) throws ProtooException {
-    Logger.d(TAG, "syncRequest(), method: " + method);
+    Logs.d(TAG, "syncRequest(), method: {}", method);
 
+    // how long the calling thread is blocked.
+    String section = Tracer.isEnabled() ? "trace.protoo.sync." + method : null;
+    long startNs = Tracer.begin(section);
     try {
       return request(method, data).blockingFirst();
     } catch (Throwable throwable) {
       throw new ProtooException(-1, throwable.getMessage());
+    } finally {
+      Tracer.end(section, startNs);
     }
   }
 }
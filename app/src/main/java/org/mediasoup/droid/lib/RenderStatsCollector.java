@@ -0,0 +1,93 @@
+package org.mediasoup.droid.lib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.mediasoup.droid.Consumer;
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.MediasoupException;
+import org.mediasoup.droid.lib.lv.RoomStore;
+import org.mediasoup.droid.lib.model.RenderStats;
+import org.webrtc.MediaStreamTrack;
+import org.webrtc.VideoTrack;
+
+import java.util.Collection;
+
+/**
+ * Periodically merges {@link VideoRenderPipeline} counters with the decoder side inbound-rtp stats
+ * of each video consumer and publishes the result through {@link RoomStore#setRenderStats}.
+ */
+class RenderStatsCollector {
+
+  private static final String TAG = "RenderStatsCollector";
+
+  @NonNull private final RoomStore mStore;
+
+  RenderStatsCollector(@NonNull RoomStore store) {
+    mStore = store;
+  }
+
+  @WorkerThread
+  void collect(@NonNull Collection<RoomMessageHandler.ConsumerHolder> holders) {
+    for (RoomMessageHandler.ConsumerHolder holder : holders) {
+      Consumer consumer = holder.mConsumer;
+      if (!"video".equals(consumer.getKind())) {
+        continue;
+      }
+      MediaStreamTrack track = consumer.getTrack();
+      VideoRenderPipeline pipeline =
+          track instanceof VideoTrack ? VideoRenderPipeline.find((VideoTrack) track) : null;
+
+      long framesDecoded = 0;
+      long framesDropped = 0;
+      float avgDecodeMs = 0;
+      JSONObject inbound = findInboundRtp(consumer);
+      if (inbound != null) {
+        framesDecoded = inbound.optLong("framesDecoded");
+        framesDropped = inbound.optLong("framesDropped");
+        double totalDecodeTime = inbound.optDouble("totalDecodeTime", 0);
+        avgDecodeMs = framesDecoded > 0 ? (float) (totalDecodeTime * 1000 / framesDecoded) : 0;
+      }
+
+      RenderStats.TrackStats stats;
+      if (pipeline != null) {
+        stats =
+            new RenderStats.TrackStats(
+                pipeline.getRendererCount(),
+                pipeline.getFramesReceived(),
+                pipeline.getFramesRendered(),
+                pipeline.getFramesSkipped(),
+                pipeline.getFramesLate(),
+                pipeline.getSinkDeliveries(),
+                pipeline.getAvgRenderDelayMs(),
+                pipeline.sampleRenderFps(),
+                framesDecoded,
+                framesDropped,
+                avgDecodeMs);
+      } else {
+        stats =
+            new RenderStats.TrackStats(
+                0, 0, 0, 0, 0, 0, 0, 0, framesDecoded, framesDropped, avgDecodeMs);
+      }
+      mStore.setRenderStats(consumer.getId(), stats);
+    }
+  }
+
+  private JSONObject findInboundRtp(Consumer consumer) {
+    try {
+      JSONArray report = new JSONArray(consumer.getStats());
+      for (int i = 0; i < report.length(); i++) {
+        JSONObject stats = report.optJSONObject(i);
+        if (stats != null && "inbound-rtp".equals(stats.optString("type"))) {
+          return stats;
+        }
+      }
+    } catch (MediasoupException | JSONException e) {
+      Logger.w(TAG, "findInboundRtp() | failed: " + e.getMessage());
+    }
+    return null;
+  }
+}
@@ -12,6 +12,7 @@ import android.preference.PreferenceManager;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
 import org.json.JSONArray;
@@ -23,11 +24,14 @@ import org.mediasoup.droid.DataProducer;
 import org.mediasoup.droid.Device;
 import org.mediasoup.droid.Logger;
 import org.mediasoup.droid.MediasoupException;
+import org.mediasoup.droid.PeerConnection;
 import org.mediasoup.droid.Producer;
 import org.mediasoup.droid.RecvTransport;
 import org.mediasoup.droid.SendTransport;
 import org.mediasoup.droid.Transport;
 import org.mediasoup.droid.lib.lv.RoomStore;
+import org.mediasoup.droid.lib.metrics.Metrics;
+import org.mediasoup.droid.lib.metrics.TracingHandler;
 import org.mediasoup.droid.lib.model.Peer;
 import org.mediasoup.droid.lib.socket.WebSocketTransport;
 import org.protoojs.droid.Message;
@@ -35,15 +39,31 @@ import org.protoojs.droid.ProtooException;
 import org.webrtc.AudioTrack;
 import org.webrtc.CameraVideoCapturer;
 import org.webrtc.DataChannel;
+import org.webrtc.RtpParameters;
 import org.webrtc.VideoTrack;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
+import io.reactivex.Observable;
 import io.reactivex.disposables.CompositeDisposable;
 
 public class RoomClient extends RoomMessageHandler {
 
+  // Interval of render stats collection.
+  private static final long RENDER_STATS_INTERVAL_MS = 2000;
+  // Notifications sent several times a second per peer, only one in N is logged.
+  static final Set<String> SAMPLED_NOTIFICATIONS =
+      new HashSet<>(
+          Arrays.asList(
+              "activeSpeaker", "consumerScore", "producerScore", "downlinkBwe"));
+  static final int NOTIFICATION_SAMPLE_EVERY = 50;
+
   public enum ConnectionState {
     // initial state.
     NEW,
@@ -97,6 +117,30 @@ public class RoomClient extends RoomMessageHandler {
   private CompositeDisposable mCompositeDisposable = new CompositeDisposable();
   // Share preferences
   private SharedPreferences mPreferences;
+  // Render stats of video consumers.
+  private final RenderStatsCollector mRenderStatsCollector;
+  // Local mic level and voice activity.
+  private final AudioLevelMonitor mAudioLevelMonitor;
+  // When join() was called, per Metrics.now(), the start of the join phase metrics.
+  private volatile long mJoinStartMs;
+  // Worker thread only: whether in background mode, and the video consumers and the cam producer
+  // it paused.
+  private boolean mInBackground;
+  private final Set<String> mBackgroundPaused = new HashSet<>();
+  private boolean mCamBackgroundPaused;
+  // Restarts ICE or rejoins when a transport disconnects or fails.
+  private final TransportHealthMonitor mTransportHealth;
+  private final TransportHistory mTransportHistory;
+  // Follows network switches, when network adaptation is on.
+  private NetworkMonitor mNetworkMonitor;
+  // Worker thread only: the current network type, whether the network was lost since, and the
+  // limits that type puts on what is sent and received.
+  private String mNetworkType;
+  private boolean mNetworkLost;
+  private int mCamMaxBitrate;
+  private int mNetworkSpatialLayer = ActiveSpeakerPolicy.HIGH_SPATIAL_LAYER;
+  // Whether the current transports were created over TCP.
+  private boolean mTransportTcp;
 
   public RoomClient(
       Context context, RoomStore roomStore, String roomId, String peerId, String displayName) {
@@ -132,23 +176,55 @@ public class RoomClient extends RoomMessageHandler {
     this.mStore.setMe(peerId, displayName, this.mOptions.getDevice());
     this.mStore.setRoomUrl(roomId, UrlFactory.getInvitationLink(roomId, forceH264, forceVP9));
     this.mPreferences = PreferenceManager.getDefaultSharedPreferences(this.mContext);
+    this.mTransportHistory = new TransportHistory(this.mPreferences);
+    this.mRenderStatsCollector = new RenderStatsCollector(this.mStore);
+    this.mAudioLevelMonitor = new AudioLevelMonitor(audioLevelListener);
 
     // init worker handler.
     HandlerThread handlerThread = new HandlerThread("worker");
     handlerThread.start();
-    mWorkHandler = new Handler(handlerThread.getLooper());
+    mWorkHandler = new TracingHandler(handlerThread.getLooper(), "worker");
     mMainHandler = new Handler(Looper.getMainLooper());
-    mWorkHandler.post(() -> mPeerConnectionUtils = new PeerConnectionUtils());
+    mFirstMedia = new FirstMediaProbe(mWorkHandler);
+    mTransportHealth = new TransportHealthMonitor(mWorkHandler, transportHealthActions);
+    if (mOptions.isNetworkAdaptation()) {
+      mNetworkMonitor = new NetworkMonitor(mContext, mWorkHandler, networkListener);
+    }
+    mWorkHandler.post(
+        () -> {
+          mPeerConnectionUtils = new PeerConnectionUtils();
+          mPeerConnectionUtils.setSamplesReadyCallback(mAudioLevelMonitor);
+        });
+
+    if (mOptions.isSpeakerPolicy()) {
+      mSpeakerPolicy =
+          new ActiveSpeakerPolicy(
+              mConsumers,
+              mTileLayers,
+              mWorkHandler,
+              speakerPolicyActions,
+              mOptions.getLastN(),
+              mOptions.getSpeakerHysteresisMs());
+    }
   }
 
   @Async
   public void join() {
     Logger.d(TAG, "join() " + this.mProtooUrl);
     mStore.setRoomState(ConnectionState.CONNECTING);
+    mJoinStartMs = Metrics.now();
+    if (mNetworkMonitor != null) {
+      mNetworkMonitor.start();
+    }
     mWorkHandler.post(
         () -> {
-          WebSocketTransport transport = new WebSocketTransport(mProtooUrl);
+          // opened during the splash screen if the url did not change since.
+          WebSocketTransport transport = WarmStart.get().takeTransport(mProtooUrl);
+          transport.setNetworkEmulator(mOptions.getNetworkEmulator());
           mProtoo = new Protoo(transport, peerListener);
+          if (mOptions.isProduce() && mOptions.isPrewarmMedia()) {
+            prewarmMediaImpl();
+          }
         });
   }
 
@@ -239,7 +315,8 @@ public class RoomClient extends RoomMessageHandler {
             if (!"video".equals(holder.mConsumer.getKind())) {
               continue;
             }
-            pauseConsumer(holder.mConsumer);
+            // also dropped from the ones to resume when back in foreground.
+            speakerPolicyActions.pauseConsumer(holder.mConsumer);
           }
           mStore.setAudioOnlyState(true);
           mStore.setAudioOnlyInProgress(false);
@@ -260,13 +337,30 @@ public class RoomClient extends RoomMessageHandler {
             if (!"video".equals(holder.mConsumer.getKind())) {
               continue;
             }
-            resumeConsumer(holder.mConsumer);
+            // left paused until back in foreground, if in background.
+            speakerPolicyActions.resumeConsumer(holder.mConsumer);
           }
           mStore.setAudioOnlyState(false);
           mStore.setAudioOnlyInProgress(false);
+          // re-apply last-N pauses lifted above.
+          if (mSpeakerPolicy != null) {
+            mSpeakerPolicy.apply();
+          }
         });
   }
 
+  @Async
+  public void enterBackground() {
+    Logger.d(TAG, "enterBackground()");
+    mWorkHandler.post(this::enterBackgroundImpl);
+  }
+
+  @Async
+  public void exitBackground() {
+    Logger.d(TAG, "exitBackground()");
+    mWorkHandler.post(this::exitBackgroundImpl);
+  }
+
   @Async
   public void muteAudio() {
     Logger.d(TAG, "muteAudio()");
@@ -304,18 +398,7 @@ public class RoomClient extends RoomMessageHandler {
     mWorkHandler.post(
         () -> {
           try {
-            if (mSendTransport != null) {
-              String iceParameters =
-                  mProtoo.syncRequest(
-                      "restartIce", req -> jsonPut(req, "transportId", mSendTransport.getId()));
-              mSendTransport.restartIce(iceParameters);
-            }
-            if (mRecvTransport != null) {
-              String iceParameters =
-                  mProtoo.syncRequest(
-                      "restartIce", req -> jsonPut(req, "transportId", mRecvTransport.getId()));
-              mRecvTransport.restartIce(iceParameters);
-            }
+            restartIceImpl();
           } catch (Exception e) {
             e.printStackTrace();
             logError("restartIce() | failed:", e);
@@ -341,7 +424,45 @@ public class RoomClient extends RoomMessageHandler {
   public void setConsumerPreferredLayers(
       String consumerId, String spatialLayer, String temporalLayer) {
     Logger.d(TAG, "setConsumerPreferredLayers()");
-    // TODO: layer
+    mWorkHandler.post(
+        () -> {
+          ConsumerHolder holder = mConsumers.get(consumerId);
+          if (holder == null) {
+            return;
+          }
+          try {
+            setConsumerPreferredLayersImpl(
+                holder.mConsumer, Integer.parseInt(spatialLayer), Integer.parseInt(temporalLayer));
+          } catch (NumberFormatException e) {
+            logError("setConsumerPreferredLayers() | invalid layers:", e);
+          }
+        });
+  }
+
+  /** Cap the layers received from a peer to what its tile of {@code height} pixels can show. */
+  @Async
+  public void setPeerTileSize(String peerId, int width, int height) {
+    mWorkHandler.post(
+        () -> {
+          int spatialLayer = ActiveSpeakerPolicy.spatialLayerForTile(height);
+          Integer previous = mTileLayers.put(peerId, spatialLayer);
+          if (previous != null && previous == spatialLayer) {
+            return;
+          }
+          Logger.d(TAG, "setPeerTileSize() " + peerId + " " + width + "x" + height);
+          if (mSpeakerPolicy != null) {
+            mSpeakerPolicy.apply();
+            return;
+          }
+          for (ConsumerHolder holder : mConsumers.values()) {
+            if (peerId.equals(holder.peerId) && "video".equals(holder.mConsumer.getKind())) {
+              setConsumerPreferredLayersImpl(
+                  holder.mConsumer,
+                  maxSpatialLayer(peerId),
+                  ActiveSpeakerPolicy.HIGH_TEMPORAL_LAYER);
+            }
+          }
+        });
   }
 
   @Async
@@ -351,12 +472,12 @@ public class RoomClient extends RoomMessageHandler {
         () -> {
           try {
             mProtoo.syncRequest(
-                "requestConsumerKeyFrame", req -> jsonPut(req, "consumerId", "consumerId"));
+                "requestConsumerKeyFrame", req -> jsonPut(req, "consumerId", consumerId));
             mStore.addNotify("Keyframe requested for video consumer");
           } catch (ProtooException e) {
             e.printStackTrace();
-            logError("restartIce() | failed:", e);
-            mStore.addNotify("error", "ICE restart failed: " + e.getMessage());
+            logError("requestConsumerKeyFrame() | failed:", e);
+            mStore.addNotify("error", "Keyframe request failed: " + e.getMessage());
           }
         });
   }
@@ -604,16 +725,57 @@ public class RoomClient extends RoomMessageHandler {
     // TODO(feature): stats
   }
 
+  /**
+   * Have the server throttle our media, for servers started with a network throttle secret. Empty
+   * values leave the server's defaults.
+   */
   @Async
   public void applyNetworkThrottle(String uplink, String downlink, String rtt, String secret) {
     Logger.d(TAG, "applyNetworkThrottle()");
-    // TODO(feature): stats
+    mWorkHandler.post(
+        () -> {
+          try {
+            mProtoo.syncRequest(
+                "applyNetworkThrottle",
+                req -> {
+                  jsonPut(req, "secret", secret);
+                  putThrottleValue(req, "uplink", uplink);
+                  putThrottleValue(req, "downlink", downlink);
+                  putThrottleValue(req, "rtt", rtt);
+                });
+          } catch (NumberFormatException e) {
+            logError("applyNetworkThrottle() | invalid values:", e);
+            mStore.addNotify("error", "Invalid network throttle values: " + e.getMessage());
+          } catch (ProtooException e) {
+            e.printStackTrace();
+            logError("applyNetworkThrottle() | failed:", e);
+            mStore.addNotify("error", "Error applying network throttle: " + e.getMessage());
+          }
+        });
+  }
+
+  // Throws NumberFormatException for what is not a number.
+  private static void putThrottleValue(JSONObject req, String key, String value) {
+    if (!TextUtils.isEmpty(value)) {
+      jsonPut(req, key, Integer.parseInt(value.trim()));
+    }
   }
 
   @Async
   public void resetNetworkThrottle(boolean silent, String secret) {
-    Logger.d(TAG, "applyNetworkThrottle()");
-    // TODO(feature): stats
+    Logger.d(TAG, "resetNetworkThrottle()");
+    mWorkHandler.post(
+        () -> {
+          try {
+            mProtoo.syncRequest("resetNetworkThrottle", req -> jsonPut(req, "secret", secret));
+          } catch (ProtooException e) {
+            e.printStackTrace();
+            logError("resetNetworkThrottle() | failed:", e);
+            if (!silent) {
+              mStore.addNotify("error", "Error resetting network throttle: " + e.getMessage());
+            }
+          }
+        });
   }
 
   @Async
@@ -623,6 +785,9 @@ public class RoomClient extends RoomMessageHandler {
     }
     this.mClosed = true;
     Logger.d(TAG, "close()");
+    if (mNetworkMonitor != null) {
+      mNetworkMonitor.stop();
+    }
 
     mWorkHandler.post(
         () -> {
@@ -632,6 +797,16 @@ public class RoomClient extends RoomMessageHandler {
             mProtoo = null;
           }
 
+          // stop active speaker policy timers.
+          if (mSpeakerPolicy != null) {
+            mSpeakerPolicy.clear();
+          }
+
+          // hand this session's timings to the sinks.
+          mFirstMedia.clear();
+          mTransportHealth.clear();
+          Metrics.get().export();
+
           // dispose all transport and device.
           disposeTransportDevice();
 
@@ -666,6 +841,7 @@ public class RoomClient extends RoomMessageHandler {
   @WorkerThread
   private void disposeTransportDevice() {
     Logger.d(TAG, "disposeTransportDevice()");
+    mTransportHealth.clearTransports();
     // Close mediasoup Transports.
     if (mSendTransport != null) {
       mSendTransport.close();
@@ -690,6 +866,8 @@ public class RoomClient extends RoomMessageHandler {
       new Protoo.Listener() {
         @Override
         public void onOpen() {
+          StartupTrace.mark(StartupTrace.SIGNALING_OPEN);
+          Metrics.get().recordSince(Metrics.WS_OPEN, mJoinStartMs);
           mWorkHandler.post(() -> joinImpl());
         }
 
@@ -705,7 +883,7 @@ public class RoomClient extends RoomMessageHandler {
         @Override
         public void onRequest(
             @NonNull Message.Request request, @NonNull Protoo.ServerRequestHandler handler) {
-          Logger.d(TAG, "onRequest() " + request.getData().toString());
+          Logs.d(TAG, "onRequest() {}", request.getData());
           mWorkHandler.post(
               () -> {
                 try {
@@ -734,12 +912,7 @@ public class RoomClient extends RoomMessageHandler {
 
         @Override
         public void onNotification(@NonNull Message.Notification notification) {
-          Logger.d(
-              TAG,
-              "onNotification() "
-                  + notification.getMethod()
-                  + ", "
-                  + notification.getData().toString());
+          logNotification(notification.getMethod(), notification.getData());
           mWorkHandler.post(
               () -> {
                 try {
@@ -778,30 +951,55 @@ public class RoomClient extends RoomMessageHandler {
         }
       };
 
+  // No formatting (nor JSON serialization) unless debug logging is on, high-frequency ones sampled.
+  static void logNotification(String method, JSONObject data) {
+    if (Logs.isDebug()
+        && (!SAMPLED_NOTIFICATIONS.contains(method)
+            || Logs.sample(method, NOTIFICATION_SAMPLE_EVERY))) {
+      Logs.d(TAG, "onNotification() {}, {}", method, data);
+    }
+  }
+
   @WorkerThread
   private void joinImpl() {
     Logger.d(TAG, "joinImpl()");
 
     try {
+      Metrics metrics = Metrics.get();
+      long phaseStartMs = Metrics.now();
       mMediasoupDevice = new Device();
       String routerRtpCapabilities = mProtoo.syncRequest("getRouterRtpCapabilities");
+      metrics.recordSince(Metrics.CAPS_FETCH, phaseStartMs);
+
+      phaseStartMs = Metrics.now();
       mMediasoupDevice.load(routerRtpCapabilities, null);
       String rtpCapabilities = mMediasoupDevice.getRtpCapabilities();
+      metrics.recordSince(Metrics.DEVICE_LOAD, phaseStartMs);
+
+      mTransportTcp = mOptions.isForceTcp() || mTransportHistory.preferTcp(mNetworkType);
+      if (mTransportTcp && !mOptions.isForceTcp()) {
+        Logger.w(TAG, "joinImpl() UDP failed before on " + mNetworkType + ", using TCP");
+      }
 
       // Create mediasoup Transport for sending (unless we don't want to produce).
       if (mOptions.isProduce()) {
+        phaseStartMs = Metrics.now();
         createSendTransport();
+        metrics.recordSince(Metrics.SEND_TRANSPORT, phaseStartMs);
       }
 
       // Create mediasoup Transport for sending (unless we don't want to consume).
       if (mOptions.isConsume()) {
+        phaseStartMs = Metrics.now();
         createRecvTransport();
+        metrics.recordSince(Metrics.RECV_TRANSPORT, phaseStartMs);
       }
 
       final String sctpCapabilities =
           mOptions.isUseDataChannel() ? mMediasoupDevice.getSctpCapabilities() : "";
 
       // Join now into the room.
+      phaseStartMs = Metrics.now();
       String joinResponse =
           mProtoo.syncRequest(
               "join",
@@ -812,23 +1010,40 @@ public class RoomClient extends RoomMessageHandler {
                 jsonPut(req, "sctpCapabilities", sctpCapabilities);
               });
 
+      metrics.recordSince(Metrics.JOIN_RESPONSE, phaseStartMs);
+      metrics.recordSince(Metrics.JOIN_TOTAL, mJoinStartMs);
+
       mStore.setRoomState(ConnectionState.CONNECTED);
       mStore.addNotify("You are in the room!", 3000);
-
-      JSONObject resObj = JsonUtils.toJsonObject(joinResponse);
-      JSONArray peers = resObj.optJSONArray("peers");
-      for (int i = 0; peers != null && i < peers.length(); i++) {
-        JSONObject peer = peers.getJSONObject(i);
-        mStore.addPeer(peer.optString("id"), peer);
-      }
+      StartupTrace.mark(StartupTrace.JOINED);
 
       // Enable mic/webcam.
       if (mOptions.isProduce()) {
         boolean canSendMic = mMediasoupDevice.canProduce("audio");
         boolean canSendCam = mMediasoupDevice.canProduce("video");
         mStore.setMediaCapabilities(canSendMic, canSendCam);
-        mMainHandler.post(this::enableMic);
-        mMainHandler.post(this::enableCam);
+        if (mOptions.isPrewarmMedia()) {
+          // the tracks are already capturing, produce right away without leaving this thread.
+          enableMicImpl();
+          mStore.setCamInProgress(true);
+          enableCamImpl();
+          mStore.setCamInProgress(false);
+        } else {
+          mMainHandler.post(this::enableMic);
+          mMainHandler.post(this::enableCam);
+        }
+      }
+
+      if (mOptions.isRenderStats()) {
+        mWorkHandler.removeCallbacks(mRenderStatsJob);
+        mWorkHandler.postDelayed(mRenderStatsJob, RENDER_STATS_INTERVAL_MS);
+      }
+
+      JSONObject resObj = JsonUtils.toJsonObject(joinResponse);
+      JSONArray peers = resObj.optJSONArray("peers");
+      for (int i = 0; peers != null && i < peers.length(); i++) {
+        JSONObject peer = peers.getJSONObject(i);
+        mStore.addPeer(peer.optString("id"), peer);
       }
     } catch (Exception e) {
       e.printStackTrace();
@@ -842,6 +1057,33 @@ public class RoomClient extends RoomMessageHandler {
     }
   }
 
+  private final Runnable mRenderStatsJob =
+      new Runnable() {
+        @Override
+        public void run() {
+          if (mClosed) {
+            return;
+          }
+          mRenderStatsCollector.collect(mConsumers.values());
+          mWorkHandler.postDelayed(this, RENDER_STATS_INTERVAL_MS);
+        }
+      };
+
+  // Start the camera and mic while join signaling is in flight. The tracks have no sender yet so
+  // nothing is encoded, enableMicImpl()/enableCamImpl() then produce them as soon as we joined.
+  @WorkerThread
+  private void prewarmMediaImpl() {
+    Logger.d(TAG, "prewarmMediaImpl()");
+    if (mLocalAudioTrack == null) {
+      mLocalAudioTrack = mPeerConnectionUtils.createAudioTrack(mContext, "mic");
+      mLocalAudioTrack.setEnabled(true);
+    }
+    if (mLocalVideoTrack == null) {
+      mLocalVideoTrack = mPeerConnectionUtils.createVideoTrack(mContext, "cam");
+      mLocalVideoTrack.setEnabled(true);
+    }
+  }
+
   @WorkerThread
   private void enableMicImpl() {
     Logger.d(TAG, "enableMicImpl()");
@@ -876,9 +1118,10 @@ public class RoomClient extends RoomMessageHandler {
               },
               mLocalAudioTrack,
               null,
-              null,
+              mOptions.isMicSilenceSuppression() ? "{\"opusDtx\":true}" : null,
               null);
       mStore.addProducer(mMicProducer);
+      mFirstMedia.watchProducer(mMicProducer, mJoinStartMs);
     } catch (MediasoupException e) {
       e.printStackTrace();
       logError("enableMic() | failed:", e);
@@ -889,6 +1132,32 @@ public class RoomClient extends RoomMessageHandler {
     }
   }
 
+  private final AudioLevelMonitor.Listener audioLevelListener =
+      new AudioLevelMonitor.Listener() {
+        @Override
+        public void onVolume(int volume) {
+          mStore.setMeVolume(volume);
+        }
+
+        @Override
+        public void onSpeakingChanged(boolean speaking) {
+          mStore.setMeSpeaking(speaking);
+          if (mOptions.isMicSilenceSuppression() && !mClosed) {
+            mWorkHandler.post(() -> suppressMicImpl(!speaking));
+          }
+        }
+      };
+
+  // Silence the mic track between utterances so Opus DTX stops sending audio frames.
+  @WorkerThread
+  private void suppressMicImpl(boolean suppress) {
+    if (mLocalAudioTrack == null || mMicProducer == null || mMicProducer.isPaused()) {
+      return;
+    }
+    Logger.d(TAG, "suppressMicImpl() " + suppress);
+    mLocalAudioTrack.setEnabled(!suppress);
+  }
+
   @WorkerThread
   private void disableMicImpl() {
     Logger.d(TAG, "disableMicImpl()");
@@ -973,10 +1242,11 @@ public class RoomClient extends RoomMessageHandler {
                 }
               },
               mLocalVideoTrack,
-              null,
+              camEncodings(),
               null,
               null);
       mStore.addProducer(mCamProducer);
+      mFirstMedia.watchProducer(mCamProducer, mJoinStartMs);
     } catch (MediasoupException e) {
       e.printStackTrace();
       logError("enableWebcam() | failed:", e);
@@ -995,6 +1265,7 @@ public class RoomClient extends RoomMessageHandler {
     }
     mCamProducer.close();
     mStore.removeProducer(mCamProducer.getId());
+    mCamBackgroundPaused = false;
 
     try {
       mProtoo.syncRequest("closeProducer", req -> jsonPut(req, "producerId", mCamProducer.getId()));
@@ -1014,7 +1285,7 @@ public class RoomClient extends RoomMessageHandler {
         mProtoo.syncRequest(
             "createWebRtcTransport",
             (req -> {
-              jsonPut(req, "forceTcp", mOptions.isForceTcp());
+              jsonPut(req, "forceTcp", mTransportTcp);
               jsonPut(req, "producing", true);
               jsonPut(req, "consuming", false);
               jsonPut(req, "sctpCapabilities", sctpCapabilities);
@@ -1035,7 +1306,17 @@ public class RoomClient extends RoomMessageHandler {
             iceParameters,
             iceCandidates,
             dtlsParameters,
-            sctpParameters);
+            sctpParameters,
+            peerConnectionOptions(),
+            null);
+  }
+
+  // Transports use the shared media engine factory instead of building one each.
+  @WorkerThread
+  private PeerConnection.Options peerConnectionOptions() {
+    PeerConnection.Options options = new PeerConnection.Options();
+    options.setFactory(mPeerConnectionUtils.getFactory(mContext));
+    return options;
   }
 
   @WorkerThread
@@ -1048,7 +1329,7 @@ public class RoomClient extends RoomMessageHandler {
         mProtoo.syncRequest(
             "createWebRtcTransport",
             req -> {
-              jsonPut(req, "forceTcp", mOptions.isForceTcp());
+              jsonPut(req, "forceTcp", mTransportTcp);
               jsonPut(req, "producing", false);
               jsonPut(req, "consuming", true);
               jsonPut(req, "sctpCapabilities", sctpCapabilities);
@@ -1068,7 +1349,9 @@ public class RoomClient extends RoomMessageHandler {
             iceParameters,
             iceCandidates,
             dtlsParameters,
-            sctpParameters);
+            sctpParameters,
+            peerConnectionOptions(),
+            null);
   }
 
   private SendTransport.Listener sendTransportListener =
@@ -1137,6 +1420,7 @@ public class RoomClient extends RoomMessageHandler {
         @Override
         public void onConnectionStateChange(Transport transport, String connectionState) {
           Logger.d(listenerTAG, "onConnectionStateChange: " + connectionState);
+          onTransportStateChange(transport, connectionState);
           if ("connected".equals(connectionState)) {
               mMainHandler.post(()-> {
                  enableChatDataProducer();
@@ -1173,9 +1457,167 @@ public class RoomClient extends RoomMessageHandler {
         @Override
         public void onConnectionStateChange(Transport transport, String connectionState) {
           Logger.d(listenerTAG, "onConnectionStateChange: " + connectionState);
+          onTransportStateChange(transport, connectionState);
+        }
+      };
+
+  private void onTransportStateChange(Transport transport, String connectionState) {
+    if (mClosed) {
+      return;
+    }
+    String transportId = transport.getId();
+    mWorkHandler.post(
+        () -> {
+          mTransportHealth.onConnectionStateChange(transportId, connectionState);
+          if ("connected".equals(connectionState)) {
+            mTransportHistory.onConnected(mNetworkType, mTransportTcp);
+          }
+        });
+  }
+
+  // Ask for new ICE parameters for all transports at once, instead of one round trip each.
+  @WorkerThread
+  private void restartIceImpl() throws MediasoupException {
+    List<Transport> transports = new ArrayList<>();
+    if (mSendTransport != null) {
+      transports.add(mSendTransport);
+    }
+    if (mRecvTransport != null) {
+      transports.add(mRecvTransport);
+    }
+    if (transports.isEmpty() || mProtoo == null) {
+      return;
+    }
+    List<Observable<String>> requests = new ArrayList<>();
+    for (Transport transport : transports) {
+      requests.add(
+          mProtoo
+              .request("restartIce", req -> jsonPut(req, "transportId", transport.getId()))
+              .take(1));
+    }
+    // in request order.
+    List<String> iceParameters = Observable.concatEager(requests).toList().blockingGet();
+    for (int i = 0; i < transports.size(); i++) {
+      transports.get(i).restartIce(iceParameters.get(i));
+    }
+  }
+
+  private final TransportHealthMonitor.Actions transportHealthActions =
+      new TransportHealthMonitor.Actions() {
+        @Override
+        public void restartIce() throws Exception {
+          restartIceImpl();
+        }
+
+        @Override
+        public void recreateTransports() {
+          if (mClosed || mProtoo == null) {
+            return;
+          }
+          mTransportHistory.onFailed(mNetworkType, mTransportTcp);
+          mStore.addNotify("error", "Media connection lost, rejoining");
+          rejoinImpl();
         }
       };
 
+  // Rejoin over a new WebSocket, the join creating new transports once it is open again.
+  @WorkerThread
+  private void rejoinImpl() {
+    disposeTransportDevice();
+    mStore.setRoomState(ConnectionState.CONNECTING);
+    mProtoo.reconnect();
+  }
+
+  private final NetworkMonitor.Listener networkListener =
+      new NetworkMonitor.Listener() {
+        @Override
+        public void onNetworkAvailable(
+            @NonNull String type, boolean handover, boolean previousUp) {
+          onNetworkAvailableImpl(type, handover, previousUp);
+        }
+
+        @Override
+        public void onNetworkLost() {
+          Logger.w(TAG, "onNetworkLost()");
+          mNetworkLost = true;
+        }
+      };
+
+  // Move signaling and media to the new network right away rather than waiting for them to time
+  // out on the old one, and apply the new network's limits.
+  @WorkerThread
+  private void onNetworkAvailableImpl(String type, boolean handover, boolean previousUp) {
+    if (mClosed) {
+      return;
+    }
+    Logger.d(TAG, "onNetworkAvailableImpl() " + type + ", handover: " + handover);
+    boolean cameBack = mNetworkLost;
+    mNetworkLost = false;
+    mNetworkType = type;
+    boolean rejoin = mProtoo != null && (cameBack || (handover && !previousUp));
+    if (rejoin) {
+      // the WebSocket was on a network that is gone.
+      mStore.addNotify("Network changed, reconnecting", 3000);
+      rejoinImpl();
+    } else if (handover) {
+      // the WebSocket still works over the previous network, only the media has to move.
+      try {
+        restartIceImpl();
+      } catch (Exception e) {
+        logError("onNetworkAvailableImpl() | ICE restart failed:", e);
+      }
+    }
+    applyNetworkLimits();
+  }
+
+  // Cap what is sent and received to what the current network type allows.
+  @WorkerThread
+  private void applyNetworkLimits() {
+    // The bitrate ceiling goes with the producer's encodings and is taken by the next produce:
+    // changing it on a live producer would close every remote consumer of the camera. Meanwhile
+    // the camera output is scaled down to the network's format, the producer left as it is.
+    mCamMaxBitrate = NetworkMonitor.maxVideoBitrate(mNetworkType);
+    mPeerConnectionUtils.adaptVideoOutput(
+        NetworkMonitor.maxVideoHeight(mNetworkType), NetworkMonitor.maxVideoFps(mNetworkType));
+
+    int spatialLayer = NetworkMonitor.maxSpatialLayer(mNetworkType);
+    if (spatialLayer == mNetworkSpatialLayer) {
+      return;
+    }
+    mNetworkSpatialLayer = spatialLayer;
+    if (mSpeakerPolicy != null) {
+      mSpeakerPolicy.setNetworkSpatialLayer(spatialLayer);
+      return;
+    }
+    for (ConsumerHolder holder : mConsumers.values()) {
+      if ("video".equals(holder.mConsumer.getKind())) {
+        setConsumerPreferredLayersImpl(
+            holder.mConsumer,
+            maxSpatialLayer(holder.peerId),
+            ActiveSpeakerPolicy.HIGH_TEMPORAL_LAYER);
+      }
+    }
+  }
+
+  // Without the speaker policy, the layer a peer's video is capped to by its tile and the network.
+  @WorkerThread
+  private int maxSpatialLayer(String peerId) {
+    Integer tileLayer = mTileLayers.get(peerId);
+    int spatialLayer = tileLayer != null ? tileLayer : ActiveSpeakerPolicy.HIGH_SPATIAL_LAYER;
+    return Math.min(spatialLayer, mNetworkSpatialLayer);
+  }
+
+  // A single encoding under the network's bitrate ceiling, or the defaults when there is none.
+  @Nullable
+  private List<RtpParameters.Encoding> camEncodings() {
+    if (mCamMaxBitrate <= 0) {
+      return null;
+    }
+    RtpParameters.Encoding encoding = new RtpParameters.Encoding(null, true, null);
+    encoding.maxBitrateBps = mCamMaxBitrate;
+    return Collections.singletonList(encoding);
+  }
+
   private String fetchProduceId(Protoo.RequestGenerator generator) {
     Logger.d(TAG, "fetchProduceId:()");
     try {
@@ -1224,6 +1666,7 @@ public class RoomClient extends RoomMessageHandler {
           mRecvTransport.consume(
               c -> {
                 mConsumers.remove(c.getId());
+                mFirstMedia.onConsumerClosed(c.getId());
                 Logger.w(TAG, "onTransportClose for consume");
               },
               id,
@@ -1234,6 +1677,7 @@ public class RoomClient extends RoomMessageHandler {
 
       mConsumers.put(consumer.getId(), new ConsumerHolder(peerId, consumer));
       mStore.addConsumer(peerId, type, consumer, producerPaused);
+      mFirstMedia.watchConsumer(consumer, producerPaused);
 
       // We are ready. Answer the protoo request so the server will
       // resume this Consumer (which was paused for now if video).
@@ -1242,6 +1686,20 @@ public class RoomClient extends RoomMessageHandler {
       // If audio-only mode is enabled, pause it.
       if ("video".equals(consumer.getKind()) && mStore.getMe().getValue().isAudioOnly()) {
         pauseConsumer(consumer);
+      } else if ("video".equals(consumer.getKind()) && mInBackground) {
+        pauseConsumer(consumer);
+        mBackgroundPaused.add(consumer.getId());
+      }
+
+      // Let the active speaker policy pick its layers, or pause it when outside last-N.
+      if ("video".equals(consumer.getKind()) && mSpeakerPolicy != null) {
+        mSpeakerPolicy.apply();
+      } else if ("video".equals(consumer.getKind())
+          && (mTileLayers.containsKey(peerId)
+              || mNetworkSpatialLayer < ActiveSpeakerPolicy.HIGH_SPATIAL_LAYER)) {
+        // its tile is already on screen, or the network is capped.
+        setConsumerPreferredLayersImpl(
+            consumer, maxSpatialLayer(peerId), ActiveSpeakerPolicy.HIGH_TEMPORAL_LAYER);
       }
     } catch (Exception e) {
       e.printStackTrace();
@@ -1301,14 +1759,8 @@ public class RoomClient extends RoomMessageHandler {
                 buffer.data.get(data);
                 String message = new String(data, "UTF-8");
                 if ("chat".equals(dataConsumer.getLabel())) {
-                  List<Peer> peerList = mStore.getPeers().getValue().getAllPeers();
-                  Peer sendingPeer = null;
-                  for (Peer item : peerList) {
-                    if (item.getDataConsumers().contains(dataConsumer.getId())) {
-                      sendingPeer = item;
-                      break;
-                    }
-                  }
+                  Peer sendingPeer =
+                      mStore.getPeers().getValue().getPeerOfDataConsumer(dataConsumer.getId());
                   if (sendingPeer == null) {
                     Logger.w(TAG, "DataConsumer \"message\" from unknown peer");
                     return;
@@ -1343,6 +1795,129 @@ public class RoomClient extends RoomMessageHandler {
     }
   }
 
+  // Pause every flowing video consumer and stop the camera; audio and DataChannels go on.
+  @WorkerThread
+  private void enterBackgroundImpl() {
+    if (mClosed || mInBackground) {
+      return;
+    }
+    mInBackground = true;
+    List<Consumer> consumers = new ArrayList<>();
+    for (ConsumerHolder holder : mConsumers.values()) {
+      if ("video".equals(holder.mConsumer.getKind()) && !holder.mConsumer.isPaused()) {
+        consumers.add(holder.mConsumer);
+      }
+    }
+    for (Consumer consumer : batchConsumerRequest("pauseConsumer", consumers)) {
+      consumer.pause();
+      mStore.setConsumerPaused(consumer.getId(), "local");
+      mFirstMedia.onConsumerPaused(consumer.getId(), false);
+      mBackgroundPaused.add(consumer.getId());
+    }
+    // nothing to send while the camera is stopped, the cam producer is paused on both sides.
+    pauseCamProducerImpl();
+    mPeerConnectionUtils.suspendCapture();
+    Logger.d(TAG, "enterBackgroundImpl() paused consumers: " + mBackgroundPaused.size());
+  }
+
+  // Resume what background mode paused in one batch, with key frames requested right away.
+  @WorkerThread
+  private void exitBackgroundImpl() {
+    if (mClosed || !mInBackground) {
+      return;
+    }
+    mInBackground = false;
+    mPeerConnectionUtils.resumeCapture();
+    if (mCamBackgroundPaused) {
+      mCamBackgroundPaused = false;
+      resumeCamProducerImpl();
+    }
+    List<Consumer> consumers = new ArrayList<>();
+    for (String consumerId : mBackgroundPaused) {
+      ConsumerHolder holder = mConsumers.get(consumerId);
+      if (holder != null && holder.mConsumer.isPaused()) {
+        consumers.add(holder.mConsumer);
+      }
+    }
+    mBackgroundPaused.clear();
+    for (Consumer consumer : batchConsumerRequest("resumeConsumer", consumers)) {
+      consumer.resume();
+      mStore.setConsumerResumed(consumer.getId(), "local");
+      mFirstMedia.onConsumerResumed(consumer.getId(), false);
+      requestConsumerKeyFrameImpl(consumer.getId());
+    }
+  }
+
+  @WorkerThread
+  private void pauseCamProducerImpl() {
+    if (mCamProducer == null || mCamProducer.isPaused()) {
+      return;
+    }
+    Logger.d(TAG, "pauseCamProducerImpl()");
+    mCamProducer.pause();
+    mCamBackgroundPaused = true;
+
+    try {
+      mProtoo.syncRequest("pauseProducer", req -> jsonPut(req, "producerId", mCamProducer.getId()));
+      mStore.setProducerPaused(mCamProducer.getId());
+    } catch (ProtooException e) {
+      e.printStackTrace();
+      logError("pauseCamProducer() | failed:", e);
+    }
+  }
+
+  @WorkerThread
+  private void resumeCamProducerImpl() {
+    if (mCamProducer == null || !mCamProducer.isPaused()) {
+      return;
+    }
+    Logger.d(TAG, "resumeCamProducerImpl()");
+    mCamProducer.resume();
+
+    try {
+      mProtoo.syncRequest(
+          "resumeProducer", req -> jsonPut(req, "producerId", mCamProducer.getId()));
+      mStore.setProducerResumed(mCamProducer.getId());
+    } catch (ProtooException e) {
+      e.printStackTrace();
+      logError("resumeCamProducer() | failed:", e);
+    }
+  }
+
+  // Send {@code method} for all consumers at once instead of a round trip each, and wait for all
+  // the answers. Returns the consumers it succeeded for.
+  @WorkerThread
+  private List<Consumer> batchConsumerRequest(String method, List<Consumer> consumers) {
+    if (consumers.isEmpty() || mProtoo == null) {
+      return Collections.emptyList();
+    }
+    List<Observable<Consumer>> requests = new ArrayList<>();
+    for (Consumer consumer : consumers) {
+      requests.add(
+          mProtoo
+              .request(method, req -> jsonPut(req, "consumerId", consumer.getId()))
+              .take(1)
+              .map(res -> consumer)
+              .onErrorResumeNext(
+                  (Throwable e) -> {
+                    logError(method + "() | failed:", e);
+                    return Observable.empty();
+                  }));
+    }
+    return Observable.merge(requests).toList().blockingGet();
+  }
+
+  @WorkerThread
+  private void requestConsumerKeyFrameImpl(String consumerId) {
+    mCompositeDisposable.add(
+        mProtoo
+            .request("requestConsumerKeyFrame", req -> jsonPut(req, "consumerId", consumerId))
+            .take(1)
+            .subscribe(
+                res -> Logger.d(TAG, "requestConsumerKeyFrame() " + consumerId),
+                t -> logError("requestConsumerKeyFrame() | failed:", t)));
+  }
+
   @WorkerThread
   private void pauseConsumer(Consumer consumer) {
     Logger.d(TAG, "pauseConsumer() " + consumer.getId());
@@ -1354,6 +1929,7 @@ public class RoomClient extends RoomMessageHandler {
       mProtoo.syncRequest("pauseConsumer", req -> jsonPut(req, "consumerId", consumer.getId()));
       consumer.pause();
       mStore.setConsumerPaused(consumer.getId(), "local");
+      mFirstMedia.onConsumerPaused(consumer.getId(), false);
     } catch (ProtooException e) {
       e.printStackTrace();
       logError("pauseConsumer() | failed:", e);
@@ -1361,6 +1937,61 @@ public class RoomClient extends RoomMessageHandler {
     }
   }
 
+  @WorkerThread
+  private void setConsumerPreferredLayersImpl(
+      Consumer consumer, int spatialLayer, int temporalLayer) {
+    Logger.d(TAG, "setConsumerPreferredLayersImpl() " + consumer.getId());
+    try {
+      mProtoo.syncRequest(
+          "setConsumerPreferredLayers",
+          req -> {
+            jsonPut(req, "consumerId", consumer.getId());
+            jsonPut(req, "spatialLayer", spatialLayer);
+            jsonPut(req, "temporalLayer", temporalLayer);
+          });
+      mStore.setConsumerPreferredLayers(consumer.getId(), spatialLayer, temporalLayer);
+    } catch (ProtooException e) {
+      e.printStackTrace();
+      logError("setConsumerPreferredLayers() | failed:", e);
+      mStore.addNotify("error", "Error setting Consumer preferred layers: " + e.getMessage());
+    }
+  }
+
+  private final ActiveSpeakerPolicy.Actions speakerPolicyActions =
+      new ActiveSpeakerPolicy.Actions() {
+        @Override
+        public void pauseConsumer(@NonNull Consumer consumer) {
+          // paused for the policy now, not to be resumed when back in foreground.
+          mBackgroundPaused.remove(consumer.getId());
+          RoomClient.this.pauseConsumer(consumer);
+        }
+
+        @Override
+        public void resumeConsumer(@NonNull Consumer consumer) {
+          if (mInBackground) {
+            mBackgroundPaused.add(consumer.getId());
+            return;
+          }
+          RoomClient.this.resumeConsumer(consumer);
+        }
+
+        @Override
+        public void setConsumerPreferredLayers(
+            @NonNull Consumer consumer, int spatialLayer, int temporalLayer) {
+          setConsumerPreferredLayersImpl(consumer, spatialLayer, temporalLayer);
+        }
+
+        @Override
+        public boolean isAudioOnly() {
+          return mStore.getMe().getValue().isAudioOnly();
+        }
+
+        @Override
+        public void setRecentSpeakers(@NonNull List<String> peerIds) {
+          mStore.setRoomRecentSpeakers(peerIds);
+        }
+      };
+
   @WorkerThread
   private void resumeConsumer(Consumer consumer) {
     Logger.d(TAG, "resumeConsumer() " + consumer.getId());
@@ -1372,6 +2003,7 @@ public class RoomClient extends RoomMessageHandler {
       mProtoo.syncRequest("resumeConsumer", req -> jsonPut(req, "consumerId", consumer.getId()));
       consumer.resume();
       mStore.setConsumerResumed(consumer.getId(), "local");
+      mFirstMedia.onConsumerResumed(consumer.getId(), false);
     } catch (Exception e) {
       e.printStackTrace();
       logError("resumeConsumer() | failed:", e);
@@ -1,17 +1,20 @@
 package org.mediasoup.droid.lib;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.WorkerThread;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.mediasoup.droid.Consumer;
 import org.mediasoup.droid.DataConsumer;
 import org.mediasoup.droid.Logger;
 import org.mediasoup.droid.lib.lv.RoomStore;
+import org.mediasoup.droid.lib.metrics.Tracer;
+import org.mediasoup.droid.lib.model.Score;
 import org.protoojs.droid.Message;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -24,6 +27,12 @@ class RoomMessageHandler {
   // mediasoup Consumers.
   @NonNull final Map<String, ConsumerHolder> mConsumers;
   @NonNull final Map<String, DataConsumerHolder> mDataConsumers;
+  // peerId -> highest spatial layer matching the size of its tile, worker thread only.
+  @NonNull final Map<String, Integer> mTileLayers = new HashMap<>();
+  // Active-speaker media policy, if enabled.
+  @Nullable ActiveSpeakerPolicy mSpeakerPolicy;
+  // Times the first media of producers and consumers, set by RoomClient.
+  FirstMediaProbe mFirstMedia;
 
   static class ConsumerHolder {
     @NonNull final String peerId;
@@ -53,13 +62,24 @@ class RoomMessageHandler {
 
   @WorkerThread
   void handleNotification(Message.Notification notification) throws JSONException {
+    String section = Tracer.isEnabled() ? "trace.notification." + notification.getMethod() : null;
+    long startNs = Tracer.begin(section);
+    try {
+      dispatchNotification(notification);
+    } finally {
+      Tracer.end(section, startNs);
+    }
+  }
+
+  @WorkerThread
+  private void dispatchNotification(Message.Notification notification) throws JSONException {
     JSONObject data = notification.getData();
     switch (notification.getMethod()) {
       case "producerScore":
         {
           // {"producerId":"bdc2e83e-5294-451e-a986-a29c7d591d73","score":[{"score":10,"ssrc":196184265}]}
           String producerId = data.getString("producerId");
-          JSONArray score = data.getJSONArray("score");
+          Score score = Score.parseProducerScore(data.getJSONArray("score"));
           mStore.setProducerScore(producerId, score);
           break;
         }
@@ -68,13 +88,17 @@ class RoomMessageHandler {
           String id = data.getString("id");
           String displayName = data.optString("displayName");
           mStore.addPeer(id, data);
-          mStore.addNotify(displayName + " has joined the room");
+          mStore.addNotifyPeerJoined(displayName);
           break;
         }
       case "peerClosed":
         {
           String peerId = data.getString("peerId");
           mStore.removePeer(peerId);
+          mTileLayers.remove(peerId);
+          if (mSpeakerPolicy != null) {
+            mSpeakerPolicy.onPeerClosed(peerId);
+          }
           break;
         }
       case "peerDisplayNameChanged":
@@ -93,9 +117,13 @@ class RoomMessageHandler {
           if (holder == null) {
             break;
           }
+          mFirstMedia.onConsumerClosed(consumerId);
           holder.mConsumer.close();
           mConsumers.remove(consumerId);
           mStore.removeConsumer(holder.peerId, holder.mConsumer.getId());
+          if (mSpeakerPolicy != null) {
+            mSpeakerPolicy.onConsumerClosed(consumerId);
+          }
           break;
         }
       case "consumerPaused":
@@ -106,6 +134,7 @@ class RoomMessageHandler {
             break;
           }
           mStore.setConsumerPaused(holder.mConsumer.getId(), "remote");
+          mFirstMedia.onConsumerPaused(consumerId, true);
           break;
         }
       case "consumerResumed":
@@ -116,6 +145,7 @@ class RoomMessageHandler {
             break;
           }
           mStore.setConsumerResumed(holder.mConsumer.getId(), "remote");
+          mFirstMedia.onConsumerResumed(consumerId, true);
           break;
         }
       case "consumerLayersChanged":
@@ -133,7 +163,8 @@ class RoomMessageHandler {
       case "consumerScore":
         {
           String consumerId = data.getString("consumerId");
-          JSONArray score = data.optJSONArray("score");
+          // {"score":10,"producerScore":10,"producerScores":[10]}
+          Score score = Score.parseConsumerScore(data.optJSONObject("score"));
           ConsumerHolder holder = mConsumers.get(consumerId);
           if (holder == null) {
             break;
@@ -155,8 +186,15 @@ class RoomMessageHandler {
         }
       case "activeSpeaker":
         {
-          String peerId = data.getString("peerId");
+          // peerId is null when the room turns silent.
+          String peerId = data.isNull("peerId") ? null : data.getString("peerId");
           mStore.setRoomActiveSpeaker(peerId);
+          if (peerId != null && data.has("volume")) {
+            mStore.setPeerVolume(peerId, data.optInt("volume"));
+          }
+          if (mSpeakerPolicy != null) {
+            mSpeakerPolicy.onActiveSpeaker(peerId);
+          }
           break;
         }
       default:
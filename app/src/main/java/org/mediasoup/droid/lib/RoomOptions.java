@@ -1,8 +1,10 @@
 package org.mediasoup.droid.lib;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import org.mediasoup.droid.lib.model.DeviceInfo;
+import org.mediasoup.droid.lib.socket.NetworkEmulator;
 
 public class RoomOptions {
 
@@ -16,6 +18,26 @@ public class RoomOptions {
   private boolean mConsume = true;
   // Whether we want DataChannels.
   private boolean mUseDataChannel;
+  // Whether we collect render stats of video consumers.
+  private boolean mRenderStats;
+  // Whether video layers follow the active speaker.
+  private boolean mSpeakerPolicy;
+  // Number of most recent speakers whose video is consumed, 0 to consume all.
+  private int mLastN = 0;
+  // How long a peer keeps high layers after it stopped speaking.
+  private long mSpeakerHysteresisMs = 5000;
+  // Whether the mic track is silenced (and Opus DTX used) while we are not speaking.
+  private boolean mMicSilenceSuppression;
+  // Whether peer/consumer store actions are recorded for export and replay.
+  private boolean mJournal;
+  // Whether the camera and mic start capturing while the join signaling is in flight.
+  private boolean mPrewarmMedia;
+  // Whether video consumers and the camera are suspended while the app is not visible.
+  private boolean mBackgroundMode = true;
+  // Whether network switches are followed, with per network type limits and TCP fallback.
+  private boolean mNetworkAdaptation = true;
+  // Emulated signaling link conditions, for tests.
+  @Nullable private NetworkEmulator mNetworkEmulator;
 
   public RoomOptions setDevice(@NonNull DeviceInfo device) {
     this.mDevice = device;
@@ -42,6 +64,56 @@ public class RoomOptions {
     return this;
   }
 
+  public RoomOptions setRenderStats(boolean renderStats) {
+    this.mRenderStats = renderStats;
+    return this;
+  }
+
+  public RoomOptions setSpeakerPolicy(boolean speakerPolicy) {
+    this.mSpeakerPolicy = speakerPolicy;
+    return this;
+  }
+
+  public RoomOptions setLastN(int lastN) {
+    this.mLastN = lastN;
+    return this;
+  }
+
+  public RoomOptions setSpeakerHysteresisMs(long speakerHysteresisMs) {
+    this.mSpeakerHysteresisMs = speakerHysteresisMs;
+    return this;
+  }
+
+  public RoomOptions setMicSilenceSuppression(boolean micSilenceSuppression) {
+    this.mMicSilenceSuppression = micSilenceSuppression;
+    return this;
+  }
+
+  public RoomOptions setJournal(boolean journal) {
+    this.mJournal = journal;
+    return this;
+  }
+
+  public RoomOptions setPrewarmMedia(boolean prewarmMedia) {
+    this.mPrewarmMedia = prewarmMedia;
+    return this;
+  }
+
+  public RoomOptions setBackgroundMode(boolean backgroundMode) {
+    this.mBackgroundMode = backgroundMode;
+    return this;
+  }
+
+  public RoomOptions setNetworkAdaptation(boolean networkAdaptation) {
+    this.mNetworkAdaptation = networkAdaptation;
+    return this;
+  }
+
+  public RoomOptions setNetworkEmulator(@Nullable NetworkEmulator networkEmulator) {
+    this.mNetworkEmulator = networkEmulator;
+    return this;
+  }
+
   @NonNull
   public DeviceInfo getDevice() {
     return mDevice;
@@ -62,4 +134,45 @@ public class RoomOptions {
   public boolean isUseDataChannel() {
     return mUseDataChannel;
   }
+
+  public boolean isRenderStats() {
+    return mRenderStats;
+  }
+
+  public boolean isSpeakerPolicy() {
+    return mSpeakerPolicy;
+  }
+
+  public int getLastN() {
+    return mLastN;
+  }
+
+  public long getSpeakerHysteresisMs() {
+    return mSpeakerHysteresisMs;
+  }
+
+  public boolean isMicSilenceSuppression() {
+    return mMicSilenceSuppression;
+  }
+
+  public boolean isJournal() {
+    return mJournal;
+  }
+
+  public boolean isPrewarmMedia() {
+    return mPrewarmMedia;
+  }
+
+  public boolean isBackgroundMode() {
+    return mBackgroundMode;
+  }
+
+  public boolean isNetworkAdaptation() {
+    return mNetworkAdaptation;
+  }
+
+  @Nullable
+  public NetworkEmulator getNetworkEmulator() {
+    return mNetworkEmulator;
+  }
 }
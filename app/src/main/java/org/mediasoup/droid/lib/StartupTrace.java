@@ -0,0 +1,73 @@
+package org.mediasoup.droid.lib;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timestamps of the startup phases, from process start to being in the room.
+ *
+ * <p>Each phase is recorded once, the first time it is reached. When the last phase is marked the
+ * whole timeline is logged on one line (easy to grep and compare across builds), with a warning
+ * when it is over budget.
+ */
+public class StartupTrace {
+
+  private static final String TAG = "StartupTrace";
+
+  public static final String APP_CREATE = "app_create";
+  public static final String NATIVE_READY = "native_ready";
+  public static final String FACTORY_READY = "factory_ready";
+  public static final String SPLASH_VISIBLE = "splash_visible";
+  public static final String ROOM_ACTIVITY = "room_activity";
+  public static final String SIGNALING_OPEN = "signaling_open";
+  public static final String JOINED = "joined";
+
+  // Cold start to in room budget, logged as a regression when exceeded.
+  private static final long BUDGET_MS = 3000;
+
+  private static final long sStartMs =
+      Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+          ? Process.getStartElapsedRealtime()
+          : SystemClock.elapsedRealtime();
+  private static final Map<String, Long> sPhases = new LinkedHashMap<>();
+  private static boolean sReported;
+
+  public static synchronized void mark(@NonNull String phase) {
+    if (sReported || sPhases.containsKey(phase)) {
+      return;
+    }
+    long elapsedMs = SystemClock.elapsedRealtime() - sStartMs;
+    sPhases.put(phase, elapsedMs);
+    Logger.d(TAG, phase + " at " + elapsedMs + " ms");
+    if (JOINED.equals(phase)) {
+      report(elapsedMs);
+    }
+  }
+
+  public static synchronized long get(@NonNull String phase) {
+    Long elapsedMs = sPhases.get(phase);
+    return elapsedMs != null ? elapsedMs : -1;
+  }
+
+  private static void report(long totalMs) {
+    sReported = true;
+    StringBuilder builder = new StringBuilder("startup:");
+    for (Map.Entry<String, Long> phase : sPhases.entrySet()) {
+      builder.append(' ').append(phase.getKey()).append('=').append(phase.getValue());
+    }
+    builder.append(" total=").append(totalMs).append("ms");
+    if (totalMs > BUDGET_MS) {
+      Logger.w(TAG, builder + " over budget of " + BUDGET_MS + "ms");
+    } else {
+      Logger.d(TAG, builder.toString());
+    }
+  }
+}
@@ -0,0 +1,169 @@
+package org.mediasoup.droid.lib;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.lib.metrics.Metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Follows the connection state of the room's transports and recovers them without the user: when
+ * one goes disconnected or failed, ICE is restarted on all of them at once, retried with backoff,
+ * and if that does not help the transports are recreated. Recovery times go to {@link Metrics}.
+ */
+@WorkerThread
+class TransportHealthMonitor {
+
+  private static final String TAG = "TransportHealth";
+
+  interface Actions {
+
+    /** Restart ICE on all transports concurrently, returning once all got new parameters. */
+    void restartIce() throws Exception;
+
+    /** Throw the transports away and have new ones created. */
+    void recreateTransports();
+  }
+
+  // "disconnected" often heals by itself within seconds, "failed" does not.
+  private static final long DISCONNECTED_GRACE_MS = 2_000;
+  // Time given to ICE after each restart before the next one: 2, 4, then 8 s.
+  private static final long BACKOFF_MIN_MS = 2_000;
+  private static final long BACKOFF_MAX_MS = 8_000;
+  private static final int MAX_RESTARTS = 3;
+  // Time given to recreated transports before restarting ICE on them.
+  private static final long RECREATE_TIMEOUT_MS = 15_000;
+
+  @NonNull private final Handler mWorkHandler;
+  @NonNull private final Actions mActions;
+  // Transport id -> its latest connection state.
+  private final Map<String, String> mStates = new HashMap<>();
+  // Whether a transport went unhealthy and is not recovered yet, and since when.
+  private boolean mUnhealthy;
+  private long mUnhealthySinceMs;
+  private int mRestarts;
+  private int mTotalRestarts;
+  private boolean mRecoverScheduled;
+  private final Runnable mRecoverJob = this::recover;
+
+  TransportHealthMonitor(@NonNull Handler workHandler, @NonNull Actions actions) {
+    mWorkHandler = workHandler;
+    mActions = actions;
+  }
+
+  void onConnectionStateChange(@NonNull String transportId, @NonNull String state) {
+    Logger.d(TAG, "onConnectionStateChange() " + transportId + " " + state);
+    if ("closed".equals(state)) {
+      mStates.remove(transportId);
+      return;
+    }
+    mStates.put(transportId, state);
+
+    boolean failed = "failed".equals(state);
+    if (failed || "disconnected".equals(state)) {
+      if (!mUnhealthy) {
+        mUnhealthy = true;
+        mUnhealthySinceMs = Metrics.now();
+      }
+      if (!mRecoverScheduled) {
+        schedule(failed ? 0 : DISCONNECTED_GRACE_MS);
+      } else if (failed && mRestarts == 0) {
+        // no point waiting for a failed transport to heal.
+        schedule(0);
+      }
+    } else if (mUnhealthy && isHealthy()) {
+      long elapsedMs = Metrics.now() - mUnhealthySinceMs;
+      Metrics.get().record(Metrics.TRANSPORT_RECOVERY, elapsedMs);
+      Metrics.get().record(Metrics.TRANSPORT_RECOVERY_RESTARTS, mTotalRestarts);
+      Logger.w(TAG, "recovered after " + elapsedMs + " ms, ICE restarts: " + mTotalRestarts);
+      reset();
+    }
+  }
+
+  /**
+   * The transports were disposed, e.g. for a rejoin. An ongoing recovery is then timed until the
+   * new ones connect.
+   */
+  void clearTransports() {
+    mStates.clear();
+    mRestarts = 0;
+    cancel();
+  }
+
+  void clear() {
+    mStates.clear();
+    reset();
+  }
+
+  private boolean isHealthy() {
+    if (mStates.isEmpty()) {
+      return false;
+    }
+    for (String state : mStates.values()) {
+      if (!"connected".equals(state) && !"completed".equals(state)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void reset() {
+    mUnhealthy = false;
+    mUnhealthySinceMs = 0;
+    mRestarts = 0;
+    mTotalRestarts = 0;
+    cancel();
+  }
+
+  private void schedule(long delayMs) {
+    mWorkHandler.removeCallbacks(mRecoverJob);
+    mWorkHandler.postDelayed(mRecoverJob, delayMs);
+    mRecoverScheduled = true;
+  }
+
+  private void cancel() {
+    mWorkHandler.removeCallbacks(mRecoverJob);
+    mRecoverScheduled = false;
+  }
+
+  /** Time given to ICE after the {@code restarts}-th restart before checking again. */
+  static long backoffMs(int restarts) {
+    int shift = Math.max(0, Math.min(restarts - 1, 16));
+    return Math.min(BACKOFF_MIN_MS << shift, BACKOFF_MAX_MS);
+  }
+
+  @VisibleForTesting
+  void recover() {
+    mRecoverScheduled = false;
+    if (!mUnhealthy || isHealthy()) {
+      return;
+    }
+    if (mRestarts >= MAX_RESTARTS) {
+      Logger.w(TAG, "ICE restarts did not help, recreating transports");
+      mStates.clear();
+      mRestarts = 0;
+      mActions.recreateTransports();
+      schedule(RECREATE_TIMEOUT_MS);
+      return;
+    }
+
+    mRestarts++;
+    mTotalRestarts++;
+    Logger.w(TAG, "restarting ICE, attempt " + mRestarts);
+    long startMs = Metrics.now();
+    try {
+      mActions.restartIce();
+      Metrics.get().recordSince(Metrics.ICE_RESTART, startMs);
+    } catch (Exception e) {
+      Logger.w(TAG, "ICE restart failed: " + e.getMessage());
+    }
+    // check again, unless all transports connect meanwhile.
+    schedule(backoffMs(mRestarts));
+  }
+}
@@ -0,0 +1,64 @@
+package org.mediasoup.droid.lib;
+
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.mediasoup.droid.Logger;
+
+/**
+ * Remembers, per network type, whether UDP transports could be recovered there, so that on a
+ * network where UDP keeps failing (e.g. a Wi-Fi blocking it) transports are created over TCP from
+ * the start. UDP gets another chance a day after its last failure.
+ */
+class TransportHistory {
+
+  private static final String TAG = "TransportHistory";
+
+  private static final String FAILURES_KEY = "udpFailures.";
+  private static final String FAILED_AT_KEY = "udpFailedAt.";
+  // Failed recoveries over UDP, with no UDP connection in between, before preferring TCP.
+  private static final int FAILURES_FOR_TCP = 2;
+  private static final long FAILURE_TTL_MS = 24 * 60 * 60 * 1000L;
+
+  @NonNull private final SharedPreferences mPreferences;
+
+  TransportHistory(@NonNull SharedPreferences preferences) {
+    mPreferences = preferences;
+  }
+
+  boolean preferTcp(@Nullable String networkType) {
+    if (networkType == null) {
+      return false;
+    }
+    long failedAtMs = mPreferences.getLong(FAILED_AT_KEY + networkType, 0);
+    return mPreferences.getInt(FAILURES_KEY + networkType, 0) >= FAILURES_FOR_TCP
+        && System.currentTimeMillis() - failedAtMs < FAILURE_TTL_MS;
+  }
+
+  void onConnected(@Nullable String networkType, boolean tcp) {
+    if (networkType == null || tcp || !mPreferences.contains(FAILURES_KEY + networkType)) {
+      return;
+    }
+    mPreferences
+        .edit()
+        .remove(FAILURES_KEY + networkType)
+        .remove(FAILED_AT_KEY + networkType)
+        .apply();
+  }
+
+  /** Transports over {@code networkType} could not be recovered by ICE restarts. */
+  void onFailed(@Nullable String networkType, boolean tcp) {
+    if (networkType == null || tcp) {
+      return;
+    }
+    int failures = mPreferences.getInt(FAILURES_KEY + networkType, 0) + 1;
+    Logger.w(TAG, "UDP failures on " + networkType + ": " + failures);
+    mPreferences
+        .edit()
+        .putInt(FAILURES_KEY + networkType, failures)
+        .putLong(FAILED_AT_KEY + networkType, System.currentTimeMillis())
+        .apply();
+  }
+}
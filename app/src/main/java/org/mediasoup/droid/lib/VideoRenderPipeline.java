@@ -0,0 +1,192 @@
+package org.mediasoup.droid.lib;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.mediasoup.droid.Logger;
+import org.webrtc.VideoFrame;
+import org.webrtc.VideoSink;
+import org.webrtc.VideoTrack;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Per-track rendering pipeline.
+ *
+ * <p>A single {@link VideoSink} is added to the {@link VideoTrack} and each frame is fanned out to
+ * the renderers attached to the pipeline. Renderers whose tile is occluded are skipped. Frame
+ * counters are kept so that {@link RenderStatsCollector} can publish them through RoomStore.
+ */
+@SuppressWarnings("WeakerAccess")
+public class VideoRenderPipeline implements VideoSink {
+
+  private static final String TAG = "VideoRenderPipeline";
+
+  // Frames delivered later than this after their render time are counted as late.
+  private static final long LATE_FRAME_MS = 50;
+
+  private static final Map<VideoTrack, VideoRenderPipeline> sPipelines = new HashMap<>();
+
+  @NonNull
+  public static synchronized VideoRenderPipeline obtain(@NonNull VideoTrack track) {
+    VideoRenderPipeline pipeline = sPipelines.get(track);
+    if (pipeline == null) {
+      pipeline = new VideoRenderPipeline(track);
+      sPipelines.put(track, pipeline);
+    }
+    return pipeline;
+  }
+
+  @Nullable
+  public static synchronized VideoRenderPipeline find(@Nullable VideoTrack track) {
+    return track != null ? sPipelines.get(track) : null;
+  }
+
+  private static synchronized void unregister(VideoRenderPipeline pipeline) {
+    sPipelines.remove(pipeline.mTrack);
+  }
+
+  private static class Target {
+    @NonNull final VideoSink mSink;
+    volatile boolean mOccluded;
+
+    Target(@NonNull VideoSink sink) {
+      mSink = sink;
+    }
+  }
+
+  @NonNull private final VideoTrack mTrack;
+  @NonNull private final CopyOnWriteArrayList<Target> mTargets = new CopyOnWriteArrayList<>();
+
+  // Written on the decoder thread only.
+  private volatile long mFramesReceived;
+  private volatile long mFramesRendered;
+  private volatile long mFramesSkipped;
+  private volatile long mFramesLate;
+  private volatile long mSinkDeliveries;
+  private volatile long mRenderDelaySumMs;
+
+  // Written on the stats collector thread only.
+  private long mLastSnapshotNs;
+  private long mLastSnapshotFrames;
+
+  private VideoRenderPipeline(@NonNull VideoTrack track) {
+    mTrack = track;
+  }
+
+  public synchronized void addRenderer(@NonNull VideoSink renderer) {
+    if (findTarget(renderer) != null) {
+      return;
+    }
+    boolean wasEmpty = mTargets.isEmpty();
+    mTargets.add(new Target(renderer));
+    if (wasEmpty) {
+      mTrack.addSink(this);
+    }
+  }
+
+  public synchronized void removeRenderer(@NonNull VideoSink renderer) {
+    Target target = findTarget(renderer);
+    if (target == null) {
+      return;
+    }
+    mTargets.remove(target);
+    if (mTargets.isEmpty()) {
+      try {
+        mTrack.removeSink(this);
+      } catch (IllegalStateException e) {
+        // track already disposed together with its consumer.
+        Logger.w(TAG, "removeRenderer() " + e.getMessage());
+      }
+      unregister(this);
+    }
+  }
+
+  public void setOccluded(@NonNull VideoSink renderer, boolean occluded) {
+    Target target = findTarget(renderer);
+    if (target != null) {
+      target.mOccluded = occluded;
+    }
+  }
+
+  public int getRendererCount() {
+    return mTargets.size();
+  }
+
+  @Nullable
+  private Target findTarget(@NonNull VideoSink renderer) {
+    for (Target target : mTargets) {
+      if (target.mSink == renderer) {
+        return target;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public void onFrame(VideoFrame frame) {
+    // Decoded frames carry their target render time in the System.nanoTime() clock.
+    long renderDelayMs = (System.nanoTime() - frame.getTimestampNs()) / 1_000_000;
+    mFramesReceived++;
+
+    int delivered = 0;
+    for (Target target : mTargets) {
+      if (target.mOccluded) {
+        continue;
+      }
+      target.mSink.onFrame(frame);
+      delivered++;
+    }
+
+    if (delivered == 0) {
+      mFramesSkipped++;
+      return;
+    }
+    mFramesRendered++;
+    mSinkDeliveries += delivered;
+    mRenderDelaySumMs += renderDelayMs;
+    if (renderDelayMs > LATE_FRAME_MS) {
+      mFramesLate++;
+    }
+  }
+
+  long getFramesReceived() {
+    return mFramesReceived;
+  }
+
+  long getFramesRendered() {
+    return mFramesRendered;
+  }
+
+  long getFramesSkipped() {
+    return mFramesSkipped;
+  }
+
+  long getFramesLate() {
+    return mFramesLate;
+  }
+
+  long getSinkDeliveries() {
+    return mSinkDeliveries;
+  }
+
+  long getAvgRenderDelayMs() {
+    long rendered = mFramesRendered;
+    return rendered > 0 ? mRenderDelaySumMs / rendered : 0;
+  }
+
+  /** Rendered frames per second since the previous call. */
+  float sampleRenderFps() {
+    long now = System.nanoTime();
+    long frames = mFramesRendered;
+    float fps = 0;
+    if (mLastSnapshotNs != 0 && now > mLastSnapshotNs) {
+      fps = (frames - mLastSnapshotFrames) * 1e9f / (now - mLastSnapshotNs);
+    }
+    mLastSnapshotNs = now;
+    mLastSnapshotFrames = frames;
+    return fps;
+  }
+}
@@ -0,0 +1,228 @@
+package org.mediasoup.droid.lib;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.MediasoupClient;
+import org.mediasoup.droid.lib.socket.WebSocketTransport;
+import org.webrtc.PeerConnectionFactory;
+import org.webrtc.audio.JavaAudioDeviceModule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Overlaps the expensive startup steps instead of running them one after the other.
+ *
+ * <p>The native library is initialized and a PeerConnectionFactory (with its audio device module)
+ * is built on a background "warm-start" thread while the splash screen shows, and the protoo
+ * WebSocket can be opened at the same time. {@link MediaEngine} and {@link RoomClient} then take the
+ * prepared factory and transport instead of creating them after the join.
+ */
+@SuppressWarnings("WeakerAccess")
+public class WarmStart {
+
+  private static final String TAG = "WarmStart";
+
+  // A preconnected WebSocket nobody took is closed after this long.
+  private static final long UNUSED_TRANSPORT_TIMEOUT_MS = 30_000;
+
+  private static final WarmStart sInstance = new WarmStart();
+
+  public static WarmStart get() {
+    return sInstance;
+  }
+
+  /** A factory built ahead of time, the audio samples callback is plugged in when taken. */
+  public static class PreparedFactory {
+
+    @NonNull private final PeerConnectionFactory mFactory;
+    @NonNull private final SamplesTap mTap;
+
+    PreparedFactory(@NonNull PeerConnectionFactory factory, @NonNull SamplesTap tap) {
+      mFactory = factory;
+      mTap = tap;
+    }
+
+    @NonNull
+    public PeerConnectionFactory getFactory() {
+      return mFactory;
+    }
+
+    public void setSamplesReadyCallback(
+        @Nullable JavaAudioDeviceModule.SamplesReadyCallback callback) {
+      mTap.mDelegate = callback;
+    }
+  }
+
+  // The audio device module takes its samples callback at build time, forward to a late one.
+  private static class SamplesTap implements JavaAudioDeviceModule.SamplesReadyCallback {
+
+    @Nullable volatile JavaAudioDeviceModule.SamplesReadyCallback mDelegate;
+
+    @Override
+    public void onWebRtcAudioRecordSamplesReady(JavaAudioDeviceModule.AudioSamples samples) {
+      JavaAudioDeviceModule.SamplesReadyCallback delegate = mDelegate;
+      if (delegate != null) {
+        delegate.onWebRtcAudioRecordSamplesReady(samples);
+      }
+    }
+  }
+
+  private final ExecutorService mExecutor =
+      Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "warm-start"));
+  private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+  private final CountDownLatch mNativeReady = new CountDownLatch(1);
+  // Main thread only.
+  private final List<Runnable> mOnNativeReady = new ArrayList<>();
+
+  // Guarded by this.
+  @Nullable private Context mContext;
+  @Nullable private Future<PreparedFactory> mFactory;
+  @Nullable private WebSocketTransport mTransport;
+  @Nullable private String mTransportUrl;
+
+  private final Runnable mCloseUnusedTransport = this::closeUnusedTransport;
+
+  private WarmStart() {}
+
+  /** Initialize the native library, then build a factory, off the main thread. */
+  @MainThread
+  public synchronized void start(@NonNull Context context) {
+    if (mContext != null) {
+      return;
+    }
+    mContext = context.getApplicationContext();
+    Context appContext = mContext;
+    mExecutor.execute(
+        () -> {
+          MediasoupClient.initialize(appContext);
+          StartupTrace.mark(StartupTrace.NATIVE_READY);
+          mNativeReady.countDown();
+          mMainHandler.post(this::dispatchNativeReady);
+        });
+    prewarmFactory();
+  }
+
+  public boolean isNativeReady() {
+    return mNativeReady.getCount() == 0;
+  }
+
+  /** Run {@code action} on the main thread once the native library is initialized. */
+  @MainThread
+  public void whenNativeReady(@NonNull Runnable action) {
+    if (isNativeReady()) {
+      action.run();
+    } else {
+      mOnNativeReady.add(action);
+    }
+  }
+
+  /** Build a factory for the next room, if none is ready, being built or already shared. */
+  public synchronized void prewarmFactory() {
+    if (mContext == null || mFactory != null || MediaEngine.get().hasFactory()) {
+      return;
+    }
+    Context appContext = mContext;
+    mFactory =
+        mExecutor.submit(
+            () -> {
+              SamplesTap tap = new SamplesTap();
+              PeerConnectionFactory factory =
+                  MediaEngine.buildPeerConnectionFactory(appContext, tap);
+              StartupTrace.mark(StartupTrace.FACTORY_READY);
+              Logger.d(TAG, "prewarmFactory() done");
+              return new PreparedFactory(factory, tap);
+            });
+  }
+
+  /** The prepared factory, waiting for it if still being built; null if there is none. */
+  @WorkerThread
+  @Nullable
+  public PreparedFactory takeFactory() {
+    Future<PreparedFactory> factory;
+    synchronized (this) {
+      factory = mFactory;
+      mFactory = null;
+    }
+    if (factory == null) {
+      return null;
+    }
+    try {
+      return factory.get();
+    } catch (ExecutionException e) {
+      Logger.e(TAG, "takeFactory() | prewarm failed:", e);
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /** Start opening the protoo WebSocket for {@code url}. */
+  public synchronized void preconnect(@NonNull String url) {
+    if (url.equals(mTransportUrl)) {
+      return;
+    }
+    discardTransport();
+    Logger.d(TAG, "preconnect() " + url);
+    mTransport = new WebSocketTransport(url);
+    mTransportUrl = url;
+    mTransport.preconnect();
+    mMainHandler.postDelayed(mCloseUnusedTransport, UNUSED_TRANSPORT_TIMEOUT_MS);
+  }
+
+  /** The preconnected transport if it is for {@code url}, a new one otherwise. */
+  @NonNull
+  public synchronized WebSocketTransport takeTransport(@NonNull String url) {
+    if (mTransport != null && url.equals(mTransportUrl) && !mTransport.isClosed()) {
+      WebSocketTransport transport = mTransport;
+      mTransport = null;
+      mTransportUrl = null;
+      mMainHandler.removeCallbacks(mCloseUnusedTransport);
+      Logger.d(TAG, "takeTransport() preconnected");
+      return transport;
+    }
+    discardTransport();
+    return new WebSocketTransport(url);
+  }
+
+  private synchronized void closeUnusedTransport() {
+    if (mTransport != null) {
+      Logger.w(TAG, "closeUnusedTransport()");
+    }
+    discardTransport();
+  }
+
+  private void discardTransport() {
+    mMainHandler.removeCallbacks(mCloseUnusedTransport);
+    WebSocketTransport transport = mTransport;
+    mTransport = null;
+    mTransportUrl = null;
+    if (transport != null) {
+      // close() waits for the socket thread, keep it off the caller's thread.
+      mExecutor.execute(transport::close);
+    }
+  }
+
+  @MainThread
+  private void dispatchNativeReady() {
+    List<Runnable> actions = new ArrayList<>(mOnNativeReady);
+    mOnNativeReady.clear();
+    for (Runnable action : actions) {
+      action.run();
+    }
+  }
+}
@@ -0,0 +1,249 @@
+package org.mediasoup.droid.lib.lv;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ring buffer of the peer/consumer actions applied to a {@link RoomStore}.
+ *
+ * <p>Records are kept in preallocated primitive arrays (one slot per field), ids and names are
+ * interned once in a string table, so recording does not allocate in steady state. When full the
+ * oldest records are overwritten, and the string table is rebuilt from the remaining records once
+ * it outgrows them. {@link #write} exports the journal in a compact binary format
+ * that {@link JournalReplayer} reads back and applies to a fresh RoomStore.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ActionJournal {
+
+  static final int MAGIC = 0x4d534a31; // "MSJ1"
+
+  // Action types, stable across versions of the file format.
+  public static final byte ADD_PEER = 1;
+  public static final byte REMOVE_PEER = 2;
+  public static final byte PEER_DISPLAY_NAME = 3;
+  public static final byte PEER_VOLUME = 4;
+  public static final byte ADD_CONSUMER = 5;
+  public static final byte REMOVE_CONSUMER = 6;
+  public static final byte CONSUMER_PAUSED = 7;
+  public static final byte CONSUMER_RESUMED = 8;
+  public static final byte CONSUMER_LAYERS = 9;
+  public static final byte CONSUMER_PREFERRED_LAYERS = 10;
+  public static final byte CONSUMER_SCORE = 11;
+  public static final byte ACTIVE_SPEAKER = 12;
+
+  static final int NO_STRING = -1;
+
+  private static final String[] KINDS = {"audio", "video"};
+  private static final String[] CONSUMER_TYPES = {"simple", "simulcast", "svc", "pipe"};
+
+  public static final int DEFAULT_CAPACITY = 50_000;
+
+  // Smallest string table size that triggers a rebuild.
+  private static final int MIN_COMPACT_STRINGS = 1024;
+
+  private final int mCapacity;
+  private final long mStartMs;
+  private final long[] mTimes;
+  private final byte[] mTypes;
+  private final int[] mKeys1;
+  private final int[] mKeys2;
+  private final int[] mArgs1;
+  private final int[] mArgs2;
+  // Index of the next record to write, and number of valid records.
+  private int mHead;
+  private int mSize;
+
+  private Map<String, Integer> mStringIds = new HashMap<>();
+  private List<String> mStrings = new ArrayList<>();
+  // String table size at which it is rebuilt from the live records.
+  private int mCompactAt = MIN_COMPACT_STRINGS;
+
+  public ActionJournal(int capacity) {
+    mCapacity = capacity;
+    mStartMs = SystemClock.elapsedRealtime();
+    mTimes = new long[capacity];
+    mTypes = new byte[capacity];
+    mKeys1 = new int[capacity];
+    mKeys2 = new int[capacity];
+    mArgs1 = new int[capacity];
+    mArgs2 = new int[capacity];
+  }
+
+  public synchronized void record(byte type, String key1, String key2, int arg1, int arg2) {
+    mTimes[mHead] = SystemClock.elapsedRealtime() - mStartMs;
+    mTypes[mHead] = type;
+    mKeys1[mHead] = intern(key1);
+    mKeys2[mHead] = intern(key2);
+    mArgs1[mHead] = arg1;
+    mArgs2[mHead] = arg2;
+    mHead = (mHead + 1) % mCapacity;
+    if (mSize < mCapacity) {
+      mSize++;
+    }
+    if (mStrings.size() >= mCompactAt) {
+      compactStrings();
+    }
+  }
+
+  public synchronized int size() {
+    return mSize;
+  }
+
+  synchronized int stringCount() {
+    return mStrings.size();
+  }
+
+  /**
+   * Binary layout, big endian: magic, string count, strings (modified UTF-8), record count, then
+   * per record: time ms (long), type (byte), key1, key2, arg1, arg2 (int each, keys index the
+   * string table or are -1).
+   */
+  public synchronized void write(@NonNull OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(mStrings.size());
+    for (String string : mStrings) {
+      data.writeUTF(string);
+    }
+    data.writeInt(mSize);
+    int index = (mHead - mSize + mCapacity) % mCapacity;
+    for (int i = 0; i < mSize; i++) {
+      data.writeLong(mTimes[index]);
+      data.writeByte(mTypes[index]);
+      data.writeInt(mKeys1[index]);
+      data.writeInt(mKeys2[index]);
+      data.writeInt(mArgs1[index]);
+      data.writeInt(mArgs2[index]);
+      index = (index + 1) % mCapacity;
+    }
+    data.flush();
+  }
+
+  static int encodeKind(String kind) {
+    return indexOf(KINDS, kind);
+  }
+
+  static String decodeKind(int kind) {
+    return kind >= 0 && kind < KINDS.length ? KINDS[kind] : null;
+  }
+
+  // consumer type index, shifted left by one, with the remotely paused flag.
+  static int encodeConsumerType(String type, boolean remotelyPaused) {
+    return (indexOf(CONSUMER_TYPES, type) << 1) | (remotelyPaused ? 1 : 0);
+  }
+
+  static String decodeConsumerType(int encoded) {
+    int type = encoded >> 1;
+    return type >= 0 && type < CONSUMER_TYPES.length ? CONSUMER_TYPES[type] : null;
+  }
+
+  static boolean decodeRemotelyPaused(int encoded) {
+    return (encoded & 1) != 0;
+  }
+
+  private static int indexOf(String[] values, String value) {
+    for (int i = 0; i < values.length; i++) {
+      if (values[i].equals(value)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int intern(String string) {
+    if (string == null) {
+      return NO_STRING;
+    }
+    Integer id = mStringIds.get(string);
+    if (id == null) {
+      id = mStrings.size();
+      mStrings.add(string);
+      mStringIds.put(string, id);
+    }
+    return id;
+  }
+
+  // Drop the strings of overwritten records. The next rebuild waits for the table to double, so
+  // the cost stays constant per record.
+  private void compactStrings() {
+    List<String> oldStrings = mStrings;
+    mStringIds = new HashMap<>();
+    mStrings = new ArrayList<>();
+    int index = (mHead - mSize + mCapacity) % mCapacity;
+    for (int i = 0; i < mSize; i++) {
+      mKeys1[index] = reintern(oldStrings, mKeys1[index]);
+      mKeys2[index] = reintern(oldStrings, mKeys2[index]);
+      index = (index + 1) % mCapacity;
+    }
+    mCompactAt = Math.max(MIN_COMPACT_STRINGS, 2 * mStrings.size());
+  }
+
+  private int reintern(List<String> oldStrings, int id) {
+    return id == NO_STRING ? NO_STRING : intern(oldStrings.get(id));
+  }
+
+  /** A journal read back from its binary export. */
+  public static class Recording {
+
+    final String[] mStrings;
+    final long[] mTimes;
+    final byte[] mTypes;
+    final int[] mKeys1;
+    final int[] mKeys2;
+    final int[] mArgs1;
+    final int[] mArgs2;
+
+    private Recording(String[] strings, int size) {
+      mStrings = strings;
+      mTimes = new long[size];
+      mTypes = new byte[size];
+      mKeys1 = new int[size];
+      mKeys2 = new int[size];
+      mArgs1 = new int[size];
+      mArgs2 = new int[size];
+    }
+
+    public int size() {
+      return mTimes.length;
+    }
+
+    String string(int id) {
+      return id == NO_STRING ? null : mStrings[id];
+    }
+
+    @NonNull
+    public static Recording read(@NonNull InputStream in) throws IOException {
+      DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+      if (data.readInt() != MAGIC) {
+        throw new IOException("not an action journal");
+      }
+      String[] strings = new String[data.readInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = data.readUTF();
+      }
+      Recording recording = new Recording(strings, data.readInt());
+      for (int i = 0; i < recording.size(); i++) {
+        recording.mTimes[i] = data.readLong();
+        recording.mTypes[i] = data.readByte();
+        recording.mKeys1[i] = data.readInt();
+        recording.mKeys2[i] = data.readInt();
+        recording.mArgs1[i] = data.readInt();
+        recording.mArgs2[i] = data.readInt();
+      }
+      return recording;
+    }
+  }
+}
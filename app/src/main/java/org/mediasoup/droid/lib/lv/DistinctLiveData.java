@@ -0,0 +1,30 @@
+package org.mediasoup.droid.lib.lv;
+
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
+import androidx.lifecycle.MutableLiveData;
+
+/**
+ * LiveData only emitting values not {@link Object#equals} to the last posted one, so observers
+ * are not woken up by mutations that do not change what they render.
+ */
+@SuppressWarnings("WeakerAccess")
+public class DistinctLiveData<T> extends MutableLiveData<T> {
+
+  private final Object mLock = new Object();
+  private boolean mHasValue;
+  @Nullable private T mLast;
+
+  /** Post {@code value} unless equal to the last one, returns whether it was posted. */
+  public boolean postIfChanged(@Nullable T value) {
+    synchronized (mLock) {
+      if (mHasValue && ObjectsCompat.equals(mLast, value)) {
+        return false;
+      }
+      mHasValue = true;
+      mLast = value;
+      postValue(value);
+    }
+    return true;
+  }
+}
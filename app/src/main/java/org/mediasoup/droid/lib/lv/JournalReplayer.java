@@ -0,0 +1,187 @@
+package org.mediasoup.droid.lib.lv;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.lib.model.Score;
+
+/**
+ * Applies an exported {@link ActionJournal.Recording} to a {@link Target}, usually a RoomStore's
+ * {@link RoomStore#replayTarget()}, either as fast as possible (to profile the store against a
+ * real session) or with the recorded timing (to watch the room evolve again). Consumers are
+ * replayed without their native Consumer.
+ */
+@SuppressWarnings("WeakerAccess")
+public class JournalReplayer {
+
+  private static final String TAG = "JournalReplayer";
+
+  /** What the recorded actions are applied to, one method per action type. */
+  public interface Target {
+
+    void addPeer(String peerId, String displayName);
+
+    void removePeer(String peerId);
+
+    void setPeerDisplayName(String peerId, String displayName);
+
+    void setPeerVolume(String peerId, int volume);
+
+    void addConsumer(
+        String peerId, String type, String consumerId, String kind, boolean remotelyPaused);
+
+    void removeConsumer(String peerId, String consumerId);
+
+    void setConsumerPaused(String consumerId, String originator);
+
+    void setConsumerResumed(String consumerId, String originator);
+
+    void setConsumerCurrentLayers(String consumerId, int spatialLayer, int temporalLayer);
+
+    void setConsumerPreferredLayers(
+        String consumerId, int preferredSpatialLayer, int preferredTemporalLayer);
+
+    void setConsumerScore(String consumerId, Score score);
+
+    void setRoomActiveSpeaker(String peerId);
+  }
+
+  /** Per action type cost of a replay. */
+  public static class Result {
+
+    private final int[] mCounts = new int[ActionJournal.ACTIVE_SPEAKER + 1];
+    private final long[] mNanos = new long[ActionJournal.ACTIVE_SPEAKER + 1];
+    private int mActions;
+    private long mTotalNanos;
+    private long mMaxNanos;
+
+    void add(byte type, long nanos) {
+      mActions++;
+      mTotalNanos += nanos;
+      mMaxNanos = Math.max(mMaxNanos, nanos);
+      if (type > 0 && type < mCounts.length) {
+        mCounts[type]++;
+        mNanos[type] += nanos;
+      }
+    }
+
+    public int getActions() {
+      return mActions;
+    }
+
+    public long getTotalNanos() {
+      return mTotalNanos;
+    }
+
+    public long getMaxNanos() {
+      return mMaxNanos;
+    }
+
+    public int getCount(byte type) {
+      return mCounts[type];
+    }
+
+    public long getNanos(byte type) {
+      return mNanos[type];
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      builder.append("actions: ").append(mActions);
+      builder.append(", total: ").append(mTotalNanos / 1000).append("us");
+      builder.append(", max: ").append(mMaxNanos / 1000).append("us");
+      for (int type = 1; type < mCounts.length; type++) {
+        if (mCounts[type] > 0) {
+          builder.append(", [").append(type).append("] ").append(mCounts[type]);
+          builder.append(" / ").append(mNanos[type] / 1000).append("us");
+        }
+      }
+      return builder.toString();
+    }
+  }
+
+  /**
+   * Replay {@code recording} into {@code target}. With {@code realtime} the recorded gaps between
+   * actions are slept, otherwise actions are applied back to back.
+   */
+  @WorkerThread
+  @NonNull
+  public static Result replay(
+      @NonNull ActionJournal.Recording recording, @NonNull Target target, boolean realtime) {
+    Result result = new Result();
+    long startMs = SystemClock.elapsedRealtime();
+    long firstMs = recording.size() > 0 ? recording.mTimes[0] : 0;
+    for (int i = 0; i < recording.size(); i++) {
+      if (realtime) {
+        long waitMs = (recording.mTimes[i] - firstMs) - (SystemClock.elapsedRealtime() - startMs);
+        if (waitMs > 0) {
+          SystemClock.sleep(waitMs);
+        }
+      }
+      byte type = recording.mTypes[i];
+      long begin = System.nanoTime();
+      apply(recording, i, target);
+      result.add(type, System.nanoTime() - begin);
+    }
+    Logger.d(TAG, "replay() " + result);
+    return result;
+  }
+
+  private static void apply(ActionJournal.Recording recording, int i, Target target) {
+    String key1 = recording.string(recording.mKeys1[i]);
+    String key2 = recording.string(recording.mKeys2[i]);
+    int arg1 = recording.mArgs1[i];
+    int arg2 = recording.mArgs2[i];
+    switch (recording.mTypes[i]) {
+      case ActionJournal.ADD_PEER:
+        target.addPeer(key1, key2);
+        break;
+      case ActionJournal.REMOVE_PEER:
+        target.removePeer(key1);
+        break;
+      case ActionJournal.PEER_DISPLAY_NAME:
+        target.setPeerDisplayName(key1, key2);
+        break;
+      case ActionJournal.PEER_VOLUME:
+        target.setPeerVolume(key1, arg1);
+        break;
+      case ActionJournal.ADD_CONSUMER:
+        target.addConsumer(
+            key1,
+            ActionJournal.decodeConsumerType(arg2),
+            key2,
+            ActionJournal.decodeKind(arg1),
+            ActionJournal.decodeRemotelyPaused(arg2));
+        break;
+      case ActionJournal.REMOVE_CONSUMER:
+        target.removeConsumer(key1, key2);
+        break;
+      case ActionJournal.CONSUMER_PAUSED:
+        target.setConsumerPaused(key1, key2);
+        break;
+      case ActionJournal.CONSUMER_RESUMED:
+        target.setConsumerResumed(key1, key2);
+        break;
+      case ActionJournal.CONSUMER_LAYERS:
+        target.setConsumerCurrentLayers(key1, arg1, arg2);
+        break;
+      case ActionJournal.CONSUMER_PREFERRED_LAYERS:
+        target.setConsumerPreferredLayers(key1, arg1, arg2);
+        break;
+      case ActionJournal.CONSUMER_SCORE:
+        target.setConsumerScore(key1, Score.consumerScore(arg1, arg2));
+        break;
+      case ActionJournal.ACTIVE_SPEAKER:
+        target.setRoomActiveSpeaker(key1);
+        break;
+      default:
+        Logger.w(TAG, "unknown action type: " + recording.mTypes[i]);
+        break;
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package org.mediasoup.droid.lib.lv;
+
+import android.os.SystemClock;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.lib.model.Notify;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Bounded, rate limited notification channel between the room and the UI.
+ *
+ * <p>Producers {@link #offer} from any thread; pending notifications sharing a coalesce key are
+ * merged ("5 people have joined the room"). The UI is woken up through {@link #getPending()} and
+ * takes notifications with {@link #poll()}, each one is delivered exactly once. Deliveries are
+ * spaced by a global gap and a per-type interval so bursts do not flood the screen. When full,
+ * the oldest "info" is dropped first and messages last; chat messages are coalesced so they only
+ * go when the queue holds nothing else (the full text stays in the chat history).
+ */
+@SuppressWarnings("WeakerAccess")
+public class NotifyQueue {
+
+  private static final String TAG = "NotifyQueue";
+
+  private static final int CAPACITY = 16;
+  // Minimum gap between any two notifications.
+  private static final long MIN_GAP_MS = 800;
+  private static final long DEFAULT_TYPE_INTERVAL_MS = 2000;
+  private static final Map<String, Long> TYPE_INTERVAL_MS = new HashMap<>();
+
+  static {
+    TYPE_INTERVAL_MS.put("error", 1000L);
+    TYPE_INTERVAL_MS.put("message", 1500L);
+    TYPE_INTERVAL_MS.put("info", 2000L);
+  }
+
+  private final ArrayDeque<Notify> mQueue = new ArrayDeque<>();
+  private final Map<String, Long> mLastDelivered = new HashMap<>();
+  private long mLastDeliveredAny;
+  // Number of pending notifications, posted on every offer.
+  private final MutableLiveData<Integer> mPending = new MutableLiveData<>();
+
+  public void offer(@NonNull Notify notify) {
+    int size;
+    synchronized (this) {
+      if (!coalesce(notify)) {
+        if (mQueue.size() >= CAPACITY) {
+          dropOne();
+        }
+        mQueue.addLast(notify);
+      }
+      size = mQueue.size();
+    }
+    mPending.postValue(size);
+  }
+
+  /** The next notification allowed to be shown now, or null. */
+  @MainThread
+  @Nullable
+  public Notify poll() {
+    return poll(SystemClock.elapsedRealtime());
+  }
+
+  @VisibleForTesting
+  @Nullable
+  synchronized Notify poll(long now) {
+    if (mQueue.isEmpty() || now - mLastDeliveredAny < MIN_GAP_MS) {
+      return null;
+    }
+    Iterator<Notify> it = mQueue.iterator();
+    while (it.hasNext()) {
+      Notify notify = it.next();
+      if (waitFor(notify, now) <= 0) {
+        it.remove();
+        mLastDelivered.put(notify.getType(), now);
+        mLastDeliveredAny = now;
+        return notify;
+      }
+    }
+    return null;
+  }
+
+  /** Delay until {@link #poll()} may return something, -1 if nothing is pending. */
+  @MainThread
+  public long nextDelayMs() {
+    return nextDelayMs(SystemClock.elapsedRealtime());
+  }
+
+  @VisibleForTesting
+  synchronized long nextDelayMs(long now) {
+    if (mQueue.isEmpty()) {
+      return -1;
+    }
+    long delay = Long.MAX_VALUE;
+    for (Notify notify : mQueue) {
+      delay = Math.min(delay, waitFor(notify, now));
+    }
+    return Math.max(0, Math.max(delay, mLastDeliveredAny + MIN_GAP_MS - now));
+  }
+
+  public LiveData<Integer> getPending() {
+    return mPending;
+  }
+
+  public synchronized void clear() {
+    mQueue.clear();
+    mLastDelivered.clear();
+  }
+
+  private long waitFor(Notify notify, long now) {
+    Long last = mLastDelivered.get(notify.getType());
+    if (last == null) {
+      return 0;
+    }
+    Long interval = TYPE_INTERVAL_MS.get(notify.getType());
+    return last + (interval != null ? interval : DEFAULT_TYPE_INTERVAL_MS) - now;
+  }
+
+  private boolean coalesce(Notify notify) {
+    String key = notify.getCoalesceKey();
+    if (key == null) {
+      return false;
+    }
+    // replace in place to keep the queue order.
+    ArrayDeque<Notify> merged = new ArrayDeque<>(mQueue.size());
+    boolean found = false;
+    for (Notify pending : mQueue) {
+      if (!found && key.equals(pending.getCoalesceKey())) {
+        merged.addLast(pending.coalesce(notify));
+        found = true;
+      } else {
+        merged.addLast(pending);
+      }
+    }
+    if (found) {
+      mQueue.clear();
+      mQueue.addAll(merged);
+    }
+    return found;
+  }
+
+  private void dropOne() {
+    Notify victim = null;
+    for (Notify pending : mQueue) {
+      if ("info".equals(pending.getType())) {
+        victim = pending;
+        break;
+      }
+    }
+    if (victim == null) {
+      for (Notify pending : mQueue) {
+        if (!"message".equals(pending.getType())) {
+          victim = pending;
+          break;
+        }
+      }
+    }
+    if (victim == null) {
+      // only messages that did not coalesce, keep the queue bounded anyway.
+      victim = mQueue.peekFirst();
+    }
+    Logger.w(TAG, "dropOne() queue full, dropping: " + victim.getText());
+    mQueue.remove(victim);
+  }
+}
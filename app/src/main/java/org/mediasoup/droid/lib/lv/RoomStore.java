@@ -2,23 +2,33 @@ package org.mediasoup.droid.lib.lv;
 
 import android.text.TextUtils;
 
-import androidx.lifecycle.MutableLiveData;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 import org.mediasoup.droid.Consumer;
 import org.mediasoup.droid.DataConsumer;
 import org.mediasoup.droid.DataProducer;
 import org.mediasoup.droid.Producer;
+import org.mediasoup.droid.lib.AudioLevelMonitor;
 import org.mediasoup.droid.lib.RoomClient;
+import org.mediasoup.droid.lib.model.ChatHistory;
 import org.mediasoup.droid.lib.model.Consumers;
 import org.mediasoup.droid.lib.model.DataConsumers;
 import org.mediasoup.droid.lib.model.DeviceInfo;
 import org.mediasoup.droid.lib.model.Me;
+import org.mediasoup.droid.lib.model.MeState;
 import org.mediasoup.droid.lib.model.Notify;
+import org.mediasoup.droid.lib.model.Peer;
+import org.mediasoup.droid.lib.model.PeerState;
 import org.mediasoup.droid.lib.model.Peers;
 import org.mediasoup.droid.lib.model.Producers;
+import org.mediasoup.droid.lib.model.RenderStats;
 import org.mediasoup.droid.lib.model.RoomInfo;
+import org.mediasoup.droid.lib.model.Score;
+
+import java.util.List;
 
 /**
  * Room state.
@@ -32,34 +42,53 @@ public class RoomStore {
 
   // room
   // mediasoup-demo/app/lib/redux/reducers/room.js
-  private SupplierMutableLiveData<RoomInfo> roomInfo = new SupplierMutableLiveData<>(RoomInfo::new);
+  private SupplierMutableLiveData<RoomInfo> roomInfo =
+      new SupplierMutableLiveData<>("roomInfo", RoomInfo::new);
 
   // me
   // mediasoup-demo/app/lib/redux/reducers/me.js
-  private SupplierMutableLiveData<Me> me = new SupplierMutableLiveData<>(Me::new);
+  private SupplierMutableLiveData<Me> me = new SupplierMutableLiveData<>("me", Me::new);
+
+  // local mic level and speaking state, apart from me as they change up to 10 times a second.
+  private final DistinctLiveData<Integer> meVolume = new DistinctLiveData<>();
+  private final DistinctLiveData<Boolean> meSpeaking = new DistinctLiveData<>();
 
   // producers
   // mediasoup-demo/app/lib/redux/reducers/producers.js
   private SupplierMutableLiveData<Producers> producers =
-      new SupplierMutableLiveData<>(Producers::new);
+      new SupplierMutableLiveData<>("producers", Producers::new);
 
   // peers
   // mediasoup-demo/app/lib/redux/reducers/peer.js
-  private SupplierMutableLiveData<Peers> peers = new SupplierMutableLiveData<>(Peers::new);
+  private SupplierMutableLiveData<Peers> peers =
+      new SupplierMutableLiveData<>("peers", Peers::new);
 
   // consumers
   // mediasoup-demo/app/lib/redux/reducers/consumers.js
   private SupplierMutableLiveData<Consumers> consumers =
-      new SupplierMutableLiveData<>(Consumers::new);
+      new SupplierMutableLiveData<>("consumers", Consumers::new);
 
   // dataConsumers
   // mediasoup-demo/app/lib/redux/reducers/dataConsumers.js
   private SupplierMutableLiveData<DataConsumers> dataConsumers =
-          new SupplierMutableLiveData<>(DataConsumers::new);
+          new SupplierMutableLiveData<>("dataConsumers", DataConsumers::new);
+
+  // render stats of video consumers
+  private SupplierMutableLiveData<RenderStats> renderStats =
+      new SupplierMutableLiveData<>("renderStats", RenderStats::new);
+
+  // optional action journal.
+  @Nullable private volatile ActionJournal journal;
+
+  // view states derived off the main thread.
+  private final ViewStateDeriver deriver = new ViewStateDeriver(me, producers, peers, consumers);
 
   // notify
   // mediasoup-demo/app/lib/redux/reducers/notifications.js
-  private MutableLiveData<Notify> notify = new MutableLiveData<>();
+  private final NotifyQueue notify = new NotifyQueue();
+
+  // chat
+  private final ChatHistory chatHistory = new ChatHistory();
 
   public void setRoomUrl(String roomId, String url) {
     roomInfo.postValue(
@@ -75,15 +104,24 @@ public class RoomStore {
     if (RoomClient.ConnectionState.CLOSED.equals(state)) {
       peers.postValue(Peers::clear);
       me.postValue(Me::clear);
+      meVolume.postIfChanged(AudioLevelMonitor.MIN_VOLUME);
+      meSpeaking.postIfChanged(false);
       producers.postValue(Producers::clear);
       consumers.postValue(Consumers::clear);
+      renderStats.postValue(RenderStats::clear);
+      deriver.clear();
     }
   }
 
   public void setRoomActiveSpeaker(String peerId) {
+    journal(ActionJournal.ACTIVE_SPEAKER, peerId, null, 0, 0);
     roomInfo.postValue(roomInfo -> roomInfo.setActiveSpeakerId(peerId));
   }
 
+  public void setRoomRecentSpeakers(List<String> peerIds) {
+    roomInfo.postValue(roomInfo -> roomInfo.setRecentSpeakerIds(peerIds));
+  }
+
   public void setRoomStatsPeerId(String peerId) {
     roomInfo.postValue(roomInfo -> roomInfo.setStatsPeerId(peerId));
   }
@@ -93,7 +131,7 @@ public class RoomStore {
   }
 
   public void setMe(String peerId, String displayName, DeviceInfo device) {
-    me.postValue(
+    postMe(
         me -> {
           me.setId(peerId);
           me.setDisplayName(displayName);
@@ -102,7 +140,7 @@ public class RoomStore {
   }
 
   public void setMediaCapabilities(boolean canSendMic, boolean canSendCam) {
-    me.postValue(
+    postMe(
         me -> {
           me.setCanSendMic(canSendMic);
           me.setCanSendCam(canSendCam);
@@ -110,51 +148,64 @@ public class RoomStore {
   }
 
   public void setCanChangeCam(boolean canChangeCam) {
-    me.postValue(me -> me.setCanSendCam(canChangeCam));
+    postMe(me -> me.setCanSendCam(canChangeCam));
   }
 
   public void setDisplayName(String displayName) {
-    me.postValue(me -> me.setDisplayName(displayName));
+    postMe(me -> me.setDisplayName(displayName));
   }
 
   public void setAudioOnlyState(boolean enabled) {
-    me.postValue(me -> me.setAudioOnly(enabled));
+    postMe(me -> me.setAudioOnly(enabled));
   }
 
   public void setAudioOnlyInProgress(boolean enabled) {
-    me.postValue(me -> me.setAudioOnlyInProgress(enabled));
+    postMe(me -> me.setAudioOnlyInProgress(enabled));
   }
 
   public void setAudioMutedState(boolean enabled) {
-    me.postValue(me -> me.setAudioMuted(enabled));
+    postMe(me -> me.setAudioMuted(enabled));
+  }
+
+  public void setMeVolume(int volume) {
+    meVolume.postIfChanged(volume);
+  }
+
+  public void setMeSpeaking(boolean speaking) {
+    meSpeaking.postIfChanged(speaking);
   }
 
   public void setRestartIceInProgress(boolean restartIceInProgress) {
-    me.postValue(me -> me.setRestartIceInProgress(restartIceInProgress));
+    postMe(me -> me.setRestartIceInProgress(restartIceInProgress));
   }
 
   public void setCamInProgress(boolean inProgress) {
-    me.postValue(me -> me.setCamInProgress(inProgress));
+    postMe(me -> me.setCamInProgress(inProgress));
   }
 
   public void addProducer(Producer producer) {
-    producers.postValue(producers -> producers.addProducer(producer));
+    postProducers(producers -> producers.addProducer(producer));
   }
 
   public void setProducerPaused(String producerId) {
-    producers.postValue(producers -> producers.setProducerPaused(producerId));
+    postProducers(producers -> producers.setProducerPaused(producerId));
   }
 
   public void setProducerResumed(String producerId) {
-    producers.postValue(producers -> producers.setProducerResumed(producerId));
+    postProducers(producers -> producers.setProducerResumed(producerId));
   }
 
   public void removeProducer(String producerId) {
-    producers.postValue(producers -> producers.removeProducer(producerId));
+    postProducers(producers -> producers.removeProducer(producerId));
   }
 
-  public void setProducerScore(String producerId, JSONArray score) {
-    producers.postValue(producers -> producers.setProducerScore(producerId, score));
+  public void setProducerScore(String producerId, Score score) {
+    Producers.ProducersWrapper wrapper = producers.getValue().getProducer(producerId);
+    if (wrapper != null && score.equals(wrapper.getScore())) {
+      // unchanged, do not wake up observers.
+      return;
+    }
+    postProducers(producers -> producers.setProducerScore(producerId, score));
   }
 
   public void addDataProducer(DataProducer dataProducer) {
@@ -164,14 +215,30 @@ public class RoomStore {
   }
 
   public void addPeer(String peerId, JSONObject peerInfo) {
-    peers.postValue(peersInfo -> peersInfo.addPeer(peerId, peerInfo));
+    addPeer(peerId, new Peer(peerInfo));
+  }
+
+  void addPeer(String peerId, Peer peer) {
+    journal(ActionJournal.ADD_PEER, peerId, peer.getDisplayName(), 0, 0);
+    peers.postValue(peersInfo -> peersInfo.addPeer(peerId, peer));
+    deriver.invalidatePeer(peerId);
+    deriver.invalidatePeerList();
   }
 
   public void setPeerDisplayName(String peerId, String displayName) {
+    journal(ActionJournal.PEER_DISPLAY_NAME, peerId, displayName, 0, 0);
     peers.postValue(peersInfo -> peersInfo.setPeerDisplayName(peerId, displayName));
+    deriver.invalidatePeer(peerId);
+  }
+
+  public void setPeerVolume(String peerId, int volume) {
+    journal(ActionJournal.PEER_VOLUME, peerId, null, volume, 0);
+    peers.postValue(peersInfo -> peersInfo.setPeerVolume(peerId, volume));
+    deriver.invalidatePeer(peerId);
   }
 
   public void removePeer(String peerId) {
+    journal(ActionJournal.REMOVE_PEER, peerId, null, 0, 0);
     roomInfo.postValue(
         roomInfo -> {
           if (!TextUtils.isEmpty(peerId) && peerId.equals(roomInfo.getActiveSpeakerId())) {
@@ -182,33 +249,93 @@ public class RoomStore {
           }
         });
     peers.postValue(peersInfo -> peersInfo.removePeer(peerId));
+    deriver.removePeer(peerId);
   }
 
   public void addConsumer(String peerId, String type, Consumer consumer, boolean remotelyPaused) {
-    consumers.postValue(consumers -> consumers.addConsumer(type, consumer, remotelyPaused));
-    peers.postValue(peers -> peers.addConsumer(peerId, consumer));
+    addConsumer(peerId, type, consumer.getId(), consumer.getKind(), remotelyPaused, consumer);
+  }
+
+  void addConsumer(
+      String peerId,
+      String type,
+      String consumerId,
+      String kind,
+      boolean remotelyPaused,
+      @Nullable Consumer consumer) {
+    journal(
+        ActionJournal.ADD_CONSUMER,
+        peerId,
+        consumerId,
+        ActionJournal.encodeKind(kind),
+        ActionJournal.encodeConsumerType(type, remotelyPaused));
+    consumers.postValue(
+        consumers ->
+            consumers.addConsumer(peerId, type, consumerId, kind, remotelyPaused, consumer));
+    peers.postValue(peers -> peers.addConsumer(peerId, consumerId));
+    deriver.invalidatePeer(peerId);
   }
 
   public void removeConsumer(String peerId, String consumerId) {
+    journal(ActionJournal.REMOVE_CONSUMER, peerId, consumerId, 0, 0);
     consumers.postValue(consumers -> consumers.removeConsumer(consumerId));
     peers.postValue(peers -> peers.removeConsumer(peerId, consumerId));
+    renderStats.postValue(renderStats -> renderStats.removeTrackStats(consumerId));
+    deriver.invalidatePeer(peerId);
   }
 
   public void setConsumerPaused(String consumerId, String originator) {
+    journal(ActionJournal.CONSUMER_PAUSED, consumerId, originator, 0, 0);
     consumers.postValue(consumers -> consumers.setConsumerPaused(consumerId, originator));
+    deriver.invalidatePeer(consumers.getValue().getPeerIdOf(consumerId));
   }
 
   public void setConsumerResumed(String consumerId, String originator) {
+    journal(ActionJournal.CONSUMER_RESUMED, consumerId, originator, 0, 0);
     consumers.postValue(consumers -> consumers.setConsumerResumed(consumerId, originator));
+    deriver.invalidatePeer(consumers.getValue().getPeerIdOf(consumerId));
   }
 
   public void setConsumerCurrentLayers(String consumerId, int spatialLayer, int temporalLayer) {
+    journal(ActionJournal.CONSUMER_LAYERS, consumerId, null, spatialLayer, temporalLayer);
     consumers.postValue(
         consumers -> consumers.setConsumerCurrentLayers(consumerId, spatialLayer, temporalLayer));
+    deriver.invalidatePeer(consumers.getValue().getPeerIdOf(consumerId));
   }
 
-  public void setConsumerScore(String consumerId, JSONArray score) {
+  public void setConsumerPreferredLayers(
+      String consumerId, int preferredSpatialLayer, int preferredTemporalLayer) {
+    journal(
+        ActionJournal.CONSUMER_PREFERRED_LAYERS,
+        consumerId,
+        null,
+        preferredSpatialLayer,
+        preferredTemporalLayer);
+    consumers.postValue(
+        consumers ->
+            consumers.setConsumerPreferredLayers(
+                consumerId, preferredSpatialLayer, preferredTemporalLayer));
+    deriver.invalidatePeer(consumers.getValue().getPeerIdOf(consumerId));
+  }
+
+  public void setConsumerScore(String consumerId, Score score) {
+    journal(
+        ActionJournal.CONSUMER_SCORE,
+        consumerId,
+        null,
+        score.getScore(),
+        score.getProducerScore());
+    Consumers.ConsumerWrapper wrapper = consumers.getValue().getConsumer(consumerId);
+    if (wrapper != null && score.equals(wrapper.getScore())) {
+      // unchanged, do not wake up observers.
+      return;
+    }
     consumers.postValue(consumers -> consumers.setConsumerScore(consumerId, score));
+    deriver.invalidatePeer(consumers.getValue().getPeerIdOf(consumerId));
+  }
+
+  public void setRenderStats(String consumerId, RenderStats.TrackStats stats) {
+    renderStats.postValue(renderStats -> renderStats.setTrackStats(consumerId, stats));
   }
 
   public void addDataConsumer(String peerId, DataConsumer dataConsumer) {
@@ -222,23 +349,28 @@ public class RoomStore {
   }
 
   public void addNotify(String text) {
-    notify.postValue(new Notify("info", text));
+    notify.offer(new Notify("info", text));
   }
 
   public void addNotify(String text, int timeout) {
-    notify.postValue(new Notify("info", text, timeout));
+    notify.offer(new Notify("info", text, timeout));
   }
 
   public void addNotify(String type, String text) {
-    notify.postValue(new Notify(type, text));
+    notify.offer(new Notify(type, text));
+  }
+
+  public void addNotifyPeerJoined(String displayName) {
+    notify.offer(Notify.peerJoined(displayName));
   }
 
   public void addNotifyMessage(String title, String text) {
-    notify.postValue(new Notify("message", title, text, 5000));
+    chatHistory.add(title, text);
+    notify.offer(Notify.chatMessage(title, text));
   }
 
   public void addNotify(String text, Throwable throwable) {
-    notify.postValue(new Notify("error", text + throwable.getMessage()));
+    notify.offer(new Notify("error", text + throwable.getMessage()));
   }
 
   public SupplierMutableLiveData<RoomInfo> getRoomInfo() {
@@ -249,10 +381,23 @@ public class RoomStore {
     return me;
   }
 
-  public MutableLiveData<Notify> getNotify() {
+  /** Local mic level in dBov, -127 when silent. */
+  public LiveData<Integer> getMeVolume() {
+    return meVolume;
+  }
+
+  public LiveData<Boolean> getMeSpeaking() {
+    return meSpeaking;
+  }
+
+  public NotifyQueue getNotify() {
     return notify;
   }
 
+  public ChatHistory getChatHistory() {
+    return chatHistory;
+  }
+
   public SupplierMutableLiveData<Peers> getPeers() {
     return peers;
   }
@@ -264,4 +409,127 @@ public class RoomStore {
   public SupplierMutableLiveData<Consumers> getConsumers() {
     return consumers;
   }
+
+  public SupplierMutableLiveData<RenderStats> getRenderStats() {
+    return renderStats;
+  }
+
+  /**
+   * View state of a single peer, emitted only when it changes, or null once the peer is gone.
+   * Unlike {@link #getPeers()} and {@link #getConsumers()} it is not woken up by other peers.
+   */
+  public LiveData<PeerState> peer(@NonNull String peerId) {
+    return deriver.peer(peerId);
+  }
+
+  /** View state of the local peer, emitted only when it changes. */
+  public LiveData<MeState> meState() {
+    return deriver.meState();
+  }
+
+  /** Remote peers in join order, emitted only when peers join or leave. */
+  public LiveData<List<Peer>> peerList() {
+    return deriver.peerList();
+  }
+
+  /** Record the peer and consumer actions applied from now on, null to stop. */
+  public void setJournal(@Nullable ActionJournal journal) {
+    this.journal = journal;
+  }
+
+  @Nullable
+  public ActionJournal getJournal() {
+    return journal;
+  }
+
+  /** This store as the target of a {@link JournalReplayer} replay. */
+  @NonNull
+  public JournalReplayer.Target replayTarget() {
+    return new JournalReplayer.Target() {
+      @Override
+      public void addPeer(String peerId, String displayName) {
+        RoomStore.this.addPeer(peerId, new Peer(peerId, displayName, DeviceInfo.unknownDevice()));
+      }
+
+      @Override
+      public void removePeer(String peerId) {
+        RoomStore.this.removePeer(peerId);
+      }
+
+      @Override
+      public void setPeerDisplayName(String peerId, String displayName) {
+        RoomStore.this.setPeerDisplayName(peerId, displayName);
+      }
+
+      @Override
+      public void setPeerVolume(String peerId, int volume) {
+        RoomStore.this.setPeerVolume(peerId, volume);
+      }
+
+      @Override
+      public void addConsumer(
+          String peerId, String type, String consumerId, String kind, boolean remotelyPaused) {
+        RoomStore.this.addConsumer(peerId, type, consumerId, kind, remotelyPaused, null);
+      }
+
+      @Override
+      public void removeConsumer(String peerId, String consumerId) {
+        RoomStore.this.removeConsumer(peerId, consumerId);
+      }
+
+      @Override
+      public void setConsumerPaused(String consumerId, String originator) {
+        RoomStore.this.setConsumerPaused(consumerId, originator);
+      }
+
+      @Override
+      public void setConsumerResumed(String consumerId, String originator) {
+        RoomStore.this.setConsumerResumed(consumerId, originator);
+      }
+
+      @Override
+      public void setConsumerCurrentLayers(String consumerId, int spatialLayer, int temporalLayer) {
+        RoomStore.this.setConsumerCurrentLayers(consumerId, spatialLayer, temporalLayer);
+      }
+
+      @Override
+      public void setConsumerPreferredLayers(
+          String consumerId, int preferredSpatialLayer, int preferredTemporalLayer) {
+        RoomStore.this.setConsumerPreferredLayers(
+            consumerId, preferredSpatialLayer, preferredTemporalLayer);
+      }
+
+      @Override
+      public void setConsumerScore(String consumerId, Score score) {
+        RoomStore.this.setConsumerScore(consumerId, score);
+      }
+
+      @Override
+      public void setRoomActiveSpeaker(String peerId) {
+        RoomStore.this.setRoomActiveSpeaker(peerId);
+      }
+    };
+  }
+
+  private void journal(byte type, String key1, String key2, int arg1, int arg2) {
+    ActionJournal journal = this.journal;
+    if (journal != null) {
+      journal.record(type, key1, key2, arg1, arg2);
+    }
+  }
+
+  /** Stop the derivation thread, the store must not be used afterwards. */
+  public void dispose() {
+    deriver.dispose();
+  }
+
+  private void postMe(SupplierMutableLiveData.Invoker<Me> invoker) {
+    me.postValue(invoker);
+    deriver.invalidateMe();
+  }
+
+  private void postProducers(SupplierMutableLiveData.Invoker<Producers> invoker) {
+    producers.postValue(invoker);
+    deriver.invalidateMe();
+  }
 }
@@ -4,10 +4,22 @@ import androidx.annotation.NonNull;
 import androidx.core.util.Supplier;
 import androidx.lifecycle.MutableLiveData;
 
+import org.mediasoup.droid.lib.metrics.Tracer;
+
 @SuppressWarnings("WeakerAccess")
 public class SupplierMutableLiveData<T> extends MutableLiveData<T> {
 
+  // Trace sections of the mutations and of the dispatch to observers.
+  private final String mMutateSection;
+  private final String mDispatchSection;
+
   public SupplierMutableLiveData(@NonNull Supplier<T> supplier) {
+    this("value", supplier);
+  }
+
+  public SupplierMutableLiveData(@NonNull String name, @NonNull Supplier<T> supplier) {
+    mMutateSection = "trace.store." + name + ".mutate";
+    mDispatchSection = "trace.store." + name + ".dispatch";
     setValue(supplier.get());
   }
 
@@ -23,8 +35,17 @@ public class SupplierMutableLiveData<T> extends MutableLiveData<T> {
   }
 
   public void postValue(@NonNull Invoker<T> invoker) {
+    long startNs = Tracer.begin(mMutateSection);
     T value = getValue();
     invoker.invokeAction(value);
+    Tracer.end(mMutateSection, startNs);
     postValue(value);
   }
+
+  @Override
+  public void setValue(T value) {
+    long startNs = Tracer.begin(mDispatchSection);
+    super.setValue(value);
+    Tracer.end(mDispatchSection, startNs);
+  }
 }
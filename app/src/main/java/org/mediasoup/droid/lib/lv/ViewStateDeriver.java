@@ -0,0 +1,169 @@
+package org.mediasoup.droid.lib.lv;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+import androidx.lifecycle.LiveData;
+
+import org.mediasoup.droid.lib.model.Consumers;
+import org.mediasoup.droid.lib.model.Me;
+import org.mediasoup.droid.lib.model.MeState;
+import org.mediasoup.droid.lib.model.Peer;
+import org.mediasoup.droid.lib.model.PeerState;
+import org.mediasoup.droid.lib.model.Peers;
+import org.mediasoup.droid.lib.model.Producers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Derives immutable view states from the store models on a dedicated "derive" thread.
+ *
+ * <p>Store mutations only mark what they touched as dirty; one derive pass then recomputes each
+ * dirty slice once, however many mutations hit it in the meantime (e.g. score floods). Results
+ * are posted through {@link DistinctLiveData}, so the main thread only binds states that changed.
+ */
+class ViewStateDeriver {
+
+  @NonNull private final SupplierMutableLiveData<Me> mMe;
+  @NonNull private final SupplierMutableLiveData<Producers> mProducers;
+  @NonNull private final SupplierMutableLiveData<Peers> mPeers;
+  @NonNull private final SupplierMutableLiveData<Consumers> mConsumers;
+
+  @NonNull private final HandlerThread mThread;
+  @NonNull private final Handler mHandler;
+  private final Runnable mDeriveJob = this::derive;
+
+  // Slices somebody asked for, keyed by peerId.
+  private final Map<String, DistinctLiveData<PeerState>> mPeerStates = new ConcurrentHashMap<>();
+  private final DistinctLiveData<MeState> mMeState = new DistinctLiveData<>();
+  private final DistinctLiveData<List<Peer>> mPeerList = new DistinctLiveData<>();
+
+  // Guarded by this.
+  private final Set<String> mDirtyPeers = new HashSet<>();
+  private boolean mMeDirty;
+  private boolean mPeerListDirty;
+  private boolean mScheduled;
+
+  ViewStateDeriver(
+      @NonNull SupplierMutableLiveData<Me> me,
+      @NonNull SupplierMutableLiveData<Producers> producers,
+      @NonNull SupplierMutableLiveData<Peers> peers,
+      @NonNull SupplierMutableLiveData<Consumers> consumers) {
+    mMe = me;
+    mProducers = producers;
+    mPeers = peers;
+    mConsumers = consumers;
+    mThread = new HandlerThread("derive");
+    mThread.start();
+    mHandler = new Handler(mThread.getLooper());
+    invalidateMe();
+    invalidatePeerList();
+  }
+
+  LiveData<PeerState> peer(@NonNull String peerId) {
+    DistinctLiveData<PeerState> state = mPeerStates.get(peerId);
+    if (state == null) {
+      DistinctLiveData<PeerState> created = new DistinctLiveData<>();
+      state = mPeerStates.putIfAbsent(peerId, created);
+      if (state == null) {
+        state = created;
+        invalidatePeer(peerId);
+      }
+    }
+    return state;
+  }
+
+  LiveData<MeState> meState() {
+    return mMeState;
+  }
+
+  LiveData<List<Peer>> peerList() {
+    return mPeerList;
+  }
+
+  synchronized void invalidatePeer(String peerId) {
+    if (TextUtils.isEmpty(peerId)) {
+      return;
+    }
+    mDirtyPeers.add(peerId);
+    schedule();
+  }
+
+  synchronized void invalidateMe() {
+    mMeDirty = true;
+    schedule();
+  }
+
+  synchronized void invalidatePeerList() {
+    mPeerListDirty = true;
+    schedule();
+  }
+
+  void removePeer(String peerId) {
+    DistinctLiveData<PeerState> state = mPeerStates.remove(peerId);
+    if (state != null) {
+      state.postIfChanged(null);
+    }
+    invalidatePeerList();
+  }
+
+  void clear() {
+    for (DistinctLiveData<PeerState> state : mPeerStates.values()) {
+      state.postIfChanged(null);
+    }
+    mPeerStates.clear();
+    invalidateMe();
+    invalidatePeerList();
+  }
+
+  void dispose() {
+    mHandler.removeCallbacks(mDeriveJob);
+    mThread.quitSafely();
+  }
+
+  private void schedule() {
+    if (!mScheduled) {
+      mScheduled = true;
+      mHandler.post(mDeriveJob);
+    }
+  }
+
+  @WorkerThread
+  private void derive() {
+    List<String> dirtyPeers;
+    boolean meDirty;
+    boolean peerListDirty;
+    synchronized (this) {
+      dirtyPeers = new ArrayList<>(mDirtyPeers);
+      mDirtyPeers.clear();
+      meDirty = mMeDirty;
+      mMeDirty = false;
+      peerListDirty = mPeerListDirty;
+      mPeerListDirty = false;
+      mScheduled = false;
+    }
+
+    Peers peers = mPeers.getValue();
+    for (String peerId : dirtyPeers) {
+      DistinctLiveData<PeerState> state = mPeerStates.get(peerId);
+      if (state != null) {
+        state.postIfChanged(PeerState.derive(peers, mConsumers.getValue(), peerId));
+      }
+    }
+    if (meDirty) {
+      mMeState.postIfChanged(MeState.derive(mMe.getValue(), mProducers.getValue()));
+    }
+    if (peerListDirty) {
+      // already an immutable snapshot.
+      mPeerList.postIfChanged(peers.getAllPeers());
+    }
+  }
+}
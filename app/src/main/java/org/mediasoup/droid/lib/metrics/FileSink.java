@@ -0,0 +1,59 @@
+package org.mediasoup.droid.lib.metrics;
+
+import static org.mediasoup.droid.lib.JsonUtils.jsonPut;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import org.json.JSONObject;
+import org.mediasoup.droid.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * Appends one JSON line per export to a file, tagged with the release, to be pulled and merged
+ * (through the bucket counts) across sessions and compared across releases.
+ */
+public class FileSink implements MetricsSink {
+
+  private static final String TAG = "FileSink";
+
+  // Start over rather than grow without bounds.
+  private static final long MAX_FILE_BYTES = 1024 * 1024;
+
+  @NonNull private final File mFile;
+  @NonNull private final String mRelease;
+
+  public FileSink(@NonNull File file, @NonNull String release) {
+    mFile = file;
+    mRelease = release;
+  }
+
+  @WorkerThread
+  @Override
+  public synchronized void export(@NonNull List<Histogram.Snapshot> snapshots) {
+    JSONObject metrics = new JSONObject();
+    for (Histogram.Snapshot snapshot : snapshots) {
+      jsonPut(metrics, snapshot.getName(), snapshot.toJSONObject());
+    }
+    JSONObject line = new JSONObject();
+    jsonPut(line, "time", System.currentTimeMillis());
+    jsonPut(line, "release", mRelease);
+    jsonPut(line, "metrics", metrics);
+
+    boolean append = mFile.length() < MAX_FILE_BYTES;
+    try (Writer writer =
+        new OutputStreamWriter(new FileOutputStream(mFile, append), Charset.forName("UTF-8"))) {
+      writer.write(line.toString());
+      writer.write('\n');
+    } catch (IOException e) {
+      Logger.e(TAG, "export() | failed:", e);
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package org.mediasoup.droid.lib.metrics;
+
+import static org.mediasoup.droid.lib.JsonUtils.jsonPut;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of durations with log-linear buckets: exact below 8, then 8 buckets per power of two,
+ * so any percentile is within 12.5% of the real value. Recording is a couple of shifts and an
+ * increment; the bucket counts are exported too, so sessions can be merged before computing
+ * percentiles across a release.
+ */
+public class Histogram {
+
+  private static final int SUB_BITS = 3;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  // Larger values (35 minutes in ms) are clamped.
+  private static final long MAX_VALUE = (1L << 31) - 1;
+  private static final int BUCKET_COUNT = bucketOf(MAX_VALUE) + 1;
+
+  @NonNull private final String mName;
+  private final long[] mCounts = new long[BUCKET_COUNT];
+  private long mCount;
+  private long mSum;
+  private long mMin = Long.MAX_VALUE;
+  private long mMax;
+
+  public Histogram(@NonNull String name) {
+    mName = name;
+  }
+
+  @NonNull
+  public String getName() {
+    return mName;
+  }
+
+  public synchronized void record(long duration) {
+    long value = Math.max(0, Math.min(duration, MAX_VALUE));
+    mCounts[bucketOf(value)]++;
+    mCount++;
+    mSum += value;
+    mMin = Math.min(mMin, value);
+    mMax = Math.max(mMax, value);
+  }
+
+  public synchronized void reset() {
+    Arrays.fill(mCounts, 0);
+    mCount = 0;
+    mSum = 0;
+    mMin = Long.MAX_VALUE;
+    mMax = 0;
+  }
+
+  @NonNull
+  public synchronized Snapshot snapshot() {
+    return new Snapshot(mName, mCounts.clone(), mCount, mSum, mMin, mMax);
+  }
+
+  /** Snapshot and reset at once, so no sample is lost or counted twice between exports. */
+  @NonNull
+  public synchronized Snapshot snapshotAndReset() {
+    Snapshot snapshot = snapshot();
+    reset();
+    return snapshot;
+  }
+
+  static int bucketOf(long value) {
+    if (value < SUB_COUNT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    int sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+    return SUB_COUNT + shift * SUB_COUNT + sub;
+  }
+
+  static long lowerBoundOf(int bucket) {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+    int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+    int sub = (bucket - SUB_COUNT) % SUB_COUNT;
+    return (long) (SUB_COUNT + sub) << shift;
+  }
+
+  /** Immutable copy of a histogram. */
+  public static class Snapshot {
+
+    @NonNull private final String mName;
+    private final long[] mCounts;
+    private final long mCount;
+    private final long mSum;
+    private final long mMin;
+    private final long mMax;
+
+    Snapshot(@NonNull String name, long[] counts, long count, long sum, long min, long max) {
+      mName = name;
+      mCounts = counts;
+      mCount = count;
+      mSum = sum;
+      mMin = min;
+      mMax = max;
+    }
+
+    @NonNull
+    public String getName() {
+      return mName;
+    }
+
+    public long getCount() {
+      return mCount;
+    }
+
+    public long getMin() {
+      return mCount > 0 ? mMin : 0;
+    }
+
+    public long getMax() {
+      return mMax;
+    }
+
+    public long getMean() {
+      return mCount > 0 ? mSum / mCount : 0;
+    }
+
+    /** The value below which {@code percentile} (0 to 100) of the samples fall, approximately. */
+    public long getPercentile(double percentile) {
+      if (mCount == 0) {
+        return 0;
+      }
+      long rank = Math.max(1, (long) Math.ceil(mCount * percentile / 100));
+      long seen = 0;
+      for (int i = 0; i < mCounts.length; i++) {
+        seen += mCounts[i];
+        if (seen >= rank) {
+          // middle of the bucket, within what was actually recorded.
+          long lower = lowerBoundOf(i);
+          long upper = i + 1 < BUCKET_COUNT ? lowerBoundOf(i + 1) - 1 : MAX_VALUE;
+          return Math.max(mMin, Math.min(mMax, lower + (upper - lower) / 2));
+        }
+      }
+      return mMax;
+    }
+
+    @NonNull
+    public JSONObject toJSONObject() {
+      JSONObject json = new JSONObject();
+      jsonPut(json, "count", mCount);
+      jsonPut(json, "min", getMin());
+      jsonPut(json, "max", mMax);
+      jsonPut(json, "mean", getMean());
+      jsonPut(json, "p50", getPercentile(50));
+      jsonPut(json, "p95", getPercentile(95));
+      jsonPut(json, "p99", getPercentile(99));
+      // sparse lower bound -> count, for merging sessions.
+      JSONObject buckets = new JSONObject();
+      for (int i = 0; i < mCounts.length; i++) {
+        if (mCounts[i] > 0) {
+          jsonPut(buckets, String.valueOf(lowerBoundOf(i)), mCounts[i]);
+        }
+      }
+      jsonPut(json, "buckets", buckets);
+      return json;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+      return mName
+          + " count="
+          + mCount
+          + " p50="
+          + getPercentile(50)
+          + " p95="
+          + getPercentile(95)
+          + " p99="
+          + getPercentile(99)
+          + " max="
+          + mMax;
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package org.mediasoup.droid.lib.metrics;
+
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.Logger;
+
+import java.util.List;
+
+/** Dumps one line per histogram to logcat. */
+public class LogcatSink implements MetricsSink {
+
+  private static final String TAG = "Metrics";
+
+  @Override
+  public void export(@NonNull List<Histogram.Snapshot> snapshots) {
+    for (Histogram.Snapshot snapshot : snapshots) {
+      Logger.d(TAG, snapshot.toString());
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.mediasoup.droid.lib.metrics;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+import org.mediasoup.droid.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Join and first-media latencies, aggregated into {@link Histogram}s and handed to the registered
+ * {@link MetricsSink}s on {@link #export()}.
+ *
+ * <p>All timestamps come from {@link #now()}, which is monotonic. Join phases are measured from
+ * {@code RoomClient.join()}; per consumer times from when its media is meant to flow. Durations
+ * are in milliseconds, except the "trace.*" ones recorded by {@link Tracer}, in microseconds.
+ */
+public class Metrics {
+
+  private static final String TAG = "Metrics";
+
+  // Join phases, each the duration of that step.
+  public static final String WS_OPEN = "join.ws_open";
+  public static final String CAPS_FETCH = "join.caps_fetch";
+  public static final String DEVICE_LOAD = "join.device_load";
+  public static final String SEND_TRANSPORT = "join.send_transport";
+  public static final String RECV_TRANSPORT = "join.recv_transport";
+  public static final String JOIN_RESPONSE = "join.join_response";
+  // From join() to being in the room.
+  public static final String JOIN_TOTAL = "join.total";
+  // From join() to our first audio packet / video frame going out.
+  public static final String FIRST_AUDIO_SENT = "media.first_audio_sent";
+  public static final String FIRST_VIDEO_SENT = "media.first_video_sent";
+  // From a consumer being created or resumed, whichever lets media flow, to its first audio
+  // packet / rendered frame.
+  public static final String FIRST_AUDIO_RECEIVED = "consumer.first_audio_received";
+  public static final String FIRST_VIDEO_RENDERED = "consumer.first_video_rendered";
+  // One ICE restart of all transports; from a transport going disconnected or failed until all
+  // are connected again, and how many ICE restarts that took (a count).
+  public static final String ICE_RESTART = "transport.ice_restart";
+  public static final String TRANSPORT_RECOVERY = "transport.recovery";
+  public static final String TRANSPORT_RECOVERY_RESTARTS = "transport.recovery_restarts";
+
+  private static final Metrics sInstance = new Metrics();
+
+  public static Metrics get() {
+    return sInstance;
+  }
+
+  /** Monotonic milliseconds, the clock of every metric. */
+  public static long now() {
+    return SystemClock.elapsedRealtime();
+  }
+
+  private final Map<String, Histogram> mHistograms = new ConcurrentHashMap<>();
+  private final List<MetricsSink> mSinks = new CopyOnWriteArrayList<>();
+  // Video track id -> when its consumer started to flow, until its first frame is rendered.
+  private final Map<String, Long> mAwaitingRender = new ConcurrentHashMap<>();
+
+  private Metrics() {}
+
+  public void addSink(@NonNull MetricsSink sink) {
+    mSinks.add(sink);
+  }
+
+  public void removeSink(@NonNull MetricsSink sink) {
+    mSinks.remove(sink);
+  }
+
+  public void record(@NonNull String name, long durationMs) {
+    Histogram histogram = mHistograms.get(name);
+    if (histogram == null) {
+      mHistograms.putIfAbsent(name, new Histogram(name));
+      histogram = mHistograms.get(name);
+    }
+    histogram.record(durationMs);
+  }
+
+  /** Record the time elapsed since {@code startMs}, as returned by {@link #now()}. */
+  public void recordSince(@NonNull String name, long startMs) {
+    record(name, now() - startMs);
+  }
+
+  /** A video consumer is meant to flow, time its first rendered frame. */
+  public void awaitRender(@NonNull String trackId) {
+    mAwaitingRender.put(trackId, now());
+  }
+
+  public boolean isAwaitingRender(@NonNull String trackId) {
+    return mAwaitingRender.containsKey(trackId);
+  }
+
+  public void onRendered(@NonNull String trackId) {
+    Long startMs = mAwaitingRender.remove(trackId);
+    if (startMs != null) {
+      recordSince(FIRST_VIDEO_RENDERED, startMs);
+    }
+  }
+
+  public void cancelRender(@NonNull String trackId) {
+    mAwaitingRender.remove(trackId);
+  }
+
+  /** Hand what was recorded since the last export to every sink, then start over. */
+  public void export() {
+    List<Histogram.Snapshot> snapshots = new ArrayList<>();
+    for (Histogram histogram : mHistograms.values()) {
+      Histogram.Snapshot snapshot = histogram.snapshotAndReset();
+      if (snapshot.getCount() > 0) {
+        snapshots.add(snapshot);
+      }
+    }
+    if (snapshots.isEmpty()) {
+      return;
+    }
+    for (MetricsSink sink : mSinks) {
+      try {
+        sink.export(snapshots);
+      } catch (RuntimeException e) {
+        Logger.e(TAG, "export() | sink failed:", e);
+      }
+    }
+  }
+}
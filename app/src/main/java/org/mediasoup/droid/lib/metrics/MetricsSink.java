@@ -0,0 +1,11 @@
+package org.mediasoup.droid.lib.metrics;
+
+import androidx.annotation.NonNull;
+
+import java.util.List;
+
+/** Where {@link Metrics#export()} sends the histograms. Called on the exporting thread. */
+public interface MetricsSink {
+
+  void export(@NonNull List<Histogram.Snapshot> snapshots);
+}
@@ -0,0 +1,63 @@
+package org.mediasoup.droid.lib.metrics;
+
+import android.os.Trace;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Optional tracing of the hot paths: systrace sections plus a latency histogram per section in
+ * {@link Metrics}, in microseconds. Switched at runtime; when off every call is one volatile read.
+ *
+ * <p>Sections are named "trace.*". Callers building a name per method only do so when {@link
+ * #isEnabled()}, and pass null otherwise.
+ */
+public class Tracer {
+
+  private static volatile boolean sEnabled;
+
+  public static void setEnabled(boolean enabled) {
+    sEnabled = enabled;
+  }
+
+  public static boolean isEnabled() {
+    return sEnabled;
+  }
+
+  /** Start time for {@link #record}, 0 when tracing is off. */
+  public static long now() {
+    return sEnabled ? System.nanoTime() : 0;
+  }
+
+  /** Open a systrace section on this thread, to be closed by {@link #end} on the same thread. */
+  public static long begin(@Nullable String section) {
+    if (!sEnabled || section == null) {
+      return 0;
+    }
+    Trace.beginSection(section);
+    return System.nanoTime();
+  }
+
+  public static void end(@Nullable String section, long startNs) {
+    if (startNs == 0 || section == null) {
+      return;
+    }
+    Trace.endSection();
+    record(section, startNs);
+  }
+
+  /** Record the time since {@code startNs}, for spans crossing threads (no systrace section). */
+  public static void record(@Nullable String name, long startNs) {
+    if (startNs == 0 || name == null) {
+      return;
+    }
+    Metrics.get().record(name, (System.nanoTime() - startNs) / 1000);
+  }
+
+  /** Record a duration measured elsewhere, in microseconds. */
+  public static void recordMicros(@Nullable String name, long micros) {
+    if (!sEnabled || name == null) {
+      return;
+    }
+    Metrics.get().record(name, micros);
+  }
+}
@@ -0,0 +1,42 @@
+package org.mediasoup.droid.lib.metrics;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Handler that, while {@link Tracer} is on, records how long each message waited in the queue
+ * past its due time and how long it took to run, without wrapping what is posted.
+ */
+public class TracingHandler extends Handler {
+
+  @NonNull private final String mQueueWaitName;
+  @NonNull private final String mDispatchSection;
+
+  public TracingHandler(@NonNull Looper looper, @NonNull String name) {
+    super(looper);
+    mQueueWaitName = "trace." + name + ".queue_wait";
+    mDispatchSection = "trace." + name + ".dispatch";
+  }
+
+  @Override
+  public void dispatchMessage(@NonNull Message msg) {
+    if (!Tracer.isEnabled()) {
+      super.dispatchMessage(msg);
+      return;
+    }
+    // postAtFrontOfQueue() messages have no due time.
+    if (msg.getWhen() > 0) {
+      Tracer.recordMicros(mQueueWaitName, (SystemClock.uptimeMillis() - msg.getWhen()) * 1000);
+    }
+    long startNs = Tracer.begin(mDispatchSection);
+    try {
+      super.dispatchMessage(msg);
+    } finally {
+      Tracer.end(mDispatchSection, startNs);
+    }
+  }
+}
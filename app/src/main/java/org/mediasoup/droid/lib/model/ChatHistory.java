@@ -0,0 +1,64 @@
+package org.mediasoup.droid.lib.model;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All chat messages received in the room, oldest first. Never drops a message; the UI reads it a
+ * page at a time with {@link #page(int, int)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class ChatHistory {
+
+  public static class Message {
+
+    private final String mTitle;
+    private final String mText;
+    private final long mTimestamp;
+
+    Message(String title, String text, long timestamp) {
+      mTitle = title;
+      mText = text;
+      mTimestamp = timestamp;
+    }
+
+    public String getTitle() {
+      return mTitle;
+    }
+
+    public String getText() {
+      return mText;
+    }
+
+    public long getTimestamp() {
+      return mTimestamp;
+    }
+  }
+
+  private final List<Message> mMessages = new ArrayList<>();
+
+  public synchronized void add(String title, String text) {
+    mMessages.add(new Message(title, text, System.currentTimeMillis()));
+  }
+
+  public synchronized int size() {
+    return mMessages.size();
+  }
+
+  /** Up to {@code count} messages starting at {@code from}, oldest first. */
+  @NonNull
+  public synchronized List<Message> page(int from, int count) {
+    if (from < 0 || from >= mMessages.size() || count <= 0) {
+      return Collections.emptyList();
+    }
+    int to = Math.min(mMessages.size(), from + count);
+    return new ArrayList<>(mMessages.subList(from, to));
+  }
+
+  public synchronized void clear() {
+    mMessages.clear();
+  }
+}
@@ -1,8 +1,11 @@
 package org.mediasoup.droid.lib.model;
 
-import org.json.JSONArray;
+import androidx.annotation.Nullable;
+
 import org.mediasoup.droid.Consumer;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -10,25 +13,47 @@ public class Consumers {
 
   public static class ConsumerWrapper {
 
-    private String mType;
-    private boolean mLocallyPaused;
-    private boolean mRemotelyPaused;
-    private int mSpatialLayer;
-    private int mTemporalLayer;
-    private Consumer mConsumer;
-    private JSONArray mScore;
-    private int mPreferredSpatialLayer;
-    private int mPreferredTemporalLayer;
-
-    ConsumerWrapper(String type, boolean remotelyPaused, Consumer consumer) {
+    private final String mId;
+    private final String mKind;
+    private final String mPeerId;
+    private final String mType;
+    @Nullable private final Consumer mConsumer;
+    // Written by the RoomClient worker thread, read from the derive and main threads.
+    private volatile boolean mLocallyPaused;
+    private volatile boolean mRemotelyPaused;
+    // spatial and temporal layer packed by layers(), so readers never see half an update.
+    private volatile long mLayers;
+    private volatile Score mScore;
+    private volatile long mPreferredLayers;
+
+    ConsumerWrapper(
+        String id,
+        String kind,
+        String peerId,
+        String type,
+        boolean remotelyPaused,
+        @Nullable Consumer consumer) {
+      mId = id;
+      mKind = kind;
+      mPeerId = peerId;
       mType = type;
       mLocallyPaused = false;
       mRemotelyPaused = remotelyPaused;
-      mSpatialLayer = -1;
-      mTemporalLayer = -1;
+      mLayers = layers(-1, -1);
       mConsumer = consumer;
-      mPreferredSpatialLayer = -1;
-      mPreferredTemporalLayer = -1;
+      mPreferredLayers = layers(-1, -1);
+    }
+
+    public String getId() {
+      return mId;
+    }
+
+    public String getKind() {
+      return mKind;
+    }
+
+    public String getPeerId() {
+      return mPeerId;
     }
 
     public String getType() {
@@ -44,38 +69,73 @@ public class Consumers {
     }
 
     public int getSpatialLayer() {
-      return mSpatialLayer;
+      return spatialLayerOf(mLayers);
     }
 
     public int getTemporalLayer() {
-      return mTemporalLayer;
+      return temporalLayerOf(mLayers);
+    }
+
+    /** Current spatial and temporal layer, read together, see {@link #spatialLayerOf}. */
+    public long getLayers() {
+      return mLayers;
     }
 
+    // null when replayed from an ActionJournal.
+    @Nullable
     public Consumer getConsumer() {
       return mConsumer;
     }
 
-    public JSONArray getScore() {
+    public Score getScore() {
       return mScore;
     }
 
     public int getPreferredSpatialLayer() {
-      return mPreferredSpatialLayer;
+      return spatialLayerOf(mPreferredLayers);
     }
 
     public int getPreferredTemporalLayer() {
-      return mPreferredTemporalLayer;
+      return temporalLayerOf(mPreferredLayers);
+    }
+
+    public long getPreferredLayers() {
+      return mPreferredLayers;
     }
   }
 
+  static long layers(int spatialLayer, int temporalLayer) {
+    return ((long) spatialLayer << 32) | (temporalLayer & 0xffffffffL);
+  }
+
+  public static int spatialLayerOf(long layers) {
+    return (int) (layers >> 32);
+  }
+
+  public static int temporalLayerOf(long layers) {
+    return (int) layers;
+  }
+
   private final Map<String, ConsumerWrapper> consumers;
 
   public Consumers() {
     consumers = new ConcurrentHashMap<>();
   }
 
-  public void addConsumer(String type, Consumer consumer, boolean remotelyPaused) {
-    consumers.put(consumer.getId(), new ConsumerWrapper(type, remotelyPaused, consumer));
+  public void addConsumer(
+      String peerId, String type, Consumer consumer, boolean remotelyPaused) {
+    addConsumer(peerId, type, consumer.getId(), consumer.getKind(), remotelyPaused, consumer);
+  }
+
+  public void addConsumer(
+      String peerId,
+      String type,
+      String consumerId,
+      String kind,
+      boolean remotelyPaused,
+      @Nullable Consumer consumer) {
+    consumers.put(
+        consumerId, new ConsumerWrapper(consumerId, kind, peerId, type, remotelyPaused, consumer));
   }
 
   public void removeConsumer(String consumerId) {
@@ -113,11 +173,19 @@ public class Consumers {
     if (wrapper == null) {
       return;
     }
-    wrapper.mSpatialLayer = spatialLayer;
-    wrapper.mTemporalLayer = temporalLayer;
+    wrapper.mLayers = layers(spatialLayer, temporalLayer);
   }
 
-  public void setConsumerScore(String consumerId, JSONArray score) {
+  public void setConsumerPreferredLayers(
+      String consumerId, int preferredSpatialLayer, int preferredTemporalLayer) {
+    ConsumerWrapper wrapper = consumers.get(consumerId);
+    if (wrapper == null) {
+      return;
+    }
+    wrapper.mPreferredLayers = layers(preferredSpatialLayer, preferredTemporalLayer);
+  }
+
+  public void setConsumerScore(String consumerId, Score score) {
     ConsumerWrapper wrapper = consumers.get(consumerId);
     if (wrapper == null) {
       return;
@@ -130,6 +198,22 @@ public class Consumers {
     return consumers.get(consumerId);
   }
 
+  public List<ConsumerWrapper> getConsumersOf(String peerId) {
+    List<ConsumerWrapper> wrappers = new ArrayList<>();
+    for (ConsumerWrapper wrapper : consumers.values()) {
+      if (peerId.equals(wrapper.mPeerId)) {
+        wrappers.add(wrapper);
+      }
+    }
+    return wrappers;
+  }
+
+  // Owner of the consumer, null if unknown.
+  public String getPeerIdOf(String consumerId) {
+    ConsumerWrapper wrapper = consumers.get(consumerId);
+    return wrapper != null ? wrapper.mPeerId : null;
+  }
+
   public void clear() {
     consumers.clear();
   }
@@ -0,0 +1,8 @@
+package org.mediasoup.droid.lib.model;
+
+/** State of a local media device (mic, cam, share) as shown by the UI. */
+public enum DeviceState {
+  UNSUPPORTED,
+  ON,
+  OFF
+}
@@ -0,0 +1,137 @@
+package org.mediasoup.droid.lib.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
+
+import org.mediasoup.droid.Producer;
+
+/**
+ * Immutable view state of the local peer: its producers and the derived device states.
+ *
+ * <p>Derived off the main thread by {@link org.mediasoup.droid.lib.lv.RoomStore#meState()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public class MeState {
+
+  @Nullable private final Producer mAudioProducer;
+  @Nullable private final Producer mVideoProducer;
+  @Nullable private final Score mAudioScore;
+  @Nullable private final Score mVideoScore;
+  @NonNull private final DeviceState mMicState;
+  @NonNull private final DeviceState mCamState;
+  @NonNull private final DeviceState mChangeCamState;
+  @NonNull private final DeviceState mShareState;
+
+  private MeState(
+      @Nullable Producers.ProducersWrapper audioPW,
+      @Nullable Producers.ProducersWrapper videoPW,
+      @NonNull DeviceState micState,
+      @NonNull DeviceState camState,
+      @NonNull DeviceState changeCamState,
+      @NonNull DeviceState shareState) {
+    mAudioProducer = audioPW != null ? audioPW.getProducer() : null;
+    mVideoProducer = videoPW != null ? videoPW.getProducer() : null;
+    mAudioScore = audioPW != null ? audioPW.getScore() : null;
+    mVideoScore = videoPW != null ? videoPW.getScore() : null;
+    mMicState = micState;
+    mCamState = camState;
+    mChangeCamState = changeCamState;
+    mShareState = shareState;
+  }
+
+  @NonNull
+  public static MeState derive(@NonNull Me me, @NonNull Producers producers) {
+    Producers.ProducersWrapper audioPW = producers.filter("audio");
+    Producers.ProducersWrapper videoPW = producers.filter("video");
+    Producer audioProducer = audioPW != null ? audioPW.getProducer() : null;
+    boolean cam =
+        videoPW != null && !Producers.ProducersWrapper.TYPE_SHARE.equals(videoPW.getType());
+    boolean share =
+        videoPW != null && Producers.ProducersWrapper.TYPE_SHARE.equals(videoPW.getType());
+
+    DeviceState micState;
+    if (!me.isCanSendMic() || audioProducer == null) {
+      micState = DeviceState.UNSUPPORTED;
+    } else if (!audioProducer.isPaused()) {
+      micState = DeviceState.ON;
+    } else {
+      micState = DeviceState.OFF;
+    }
+
+    DeviceState camState;
+    if (!me.isCanSendMic()) {
+      camState = DeviceState.UNSUPPORTED;
+    } else {
+      camState = cam ? DeviceState.ON : DeviceState.OFF;
+    }
+
+    DeviceState changeCamState = cam && me.isCanChangeCam() ? DeviceState.ON : DeviceState.OFF;
+    DeviceState shareState = share ? DeviceState.ON : DeviceState.OFF;
+    return new MeState(audioPW, videoPW, micState, camState, changeCamState, shareState);
+  }
+
+  @Nullable
+  public Producer getAudioProducer() {
+    return mAudioProducer;
+  }
+
+  @Nullable
+  public Producer getVideoProducer() {
+    return mVideoProducer;
+  }
+
+  @Nullable
+  public Score getAudioScore() {
+    return mAudioScore;
+  }
+
+  @Nullable
+  public Score getVideoScore() {
+    return mVideoScore;
+  }
+
+  @NonNull
+  public DeviceState getMicState() {
+    return mMicState;
+  }
+
+  @NonNull
+  public DeviceState getCamState() {
+    return mCamState;
+  }
+
+  @NonNull
+  public DeviceState getChangeCamState() {
+    return mChangeCamState;
+  }
+
+  @NonNull
+  public DeviceState getShareState() {
+    return mShareState;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof MeState)) {
+      return false;
+    }
+    MeState that = (MeState) o;
+    return mAudioProducer == that.mAudioProducer
+        && mVideoProducer == that.mVideoProducer
+        && mMicState == that.mMicState
+        && mCamState == that.mCamState
+        && mChangeCamState == that.mChangeCamState
+        && mShareState == that.mShareState
+        && ObjectsCompat.equals(mAudioScore, that.mAudioScore)
+        && ObjectsCompat.equals(mVideoScore, that.mVideoScore);
+  }
+
+  @Override
+  public int hashCode() {
+    return ObjectsCompat.hash(mMicState, mCamState, mChangeCamState, mShareState, mAudioScore);
+  }
+}
@@ -9,6 +9,9 @@ public class Notify {
   private String mTitle;
   private String mText;
   private int mTimeout;
+  // Pending notifications with the same key are merged by NotifyQueue.
+  private String mCoalesceKey;
+  private int mCount = 1;
 
   public Notify(String type, String text) {
     this(type, text, 0);
@@ -33,6 +36,45 @@ public class Notify {
     }
   }
 
+  /** "displayName has joined the room", merged with other pending joins. */
+  public static Notify peerJoined(String displayName) {
+    Notify notify = new Notify("info", displayName + " has joined the room");
+    notify.mCoalesceKey = "peerJoined";
+    return notify;
+  }
+
+  /** A chat message, merged with other pending messages (the history keeps all of them). */
+  public static Notify chatMessage(String title, String text) {
+    Notify notify = new Notify("message", title, text, 5000);
+    notify.mCoalesceKey = "chatMessage";
+    return notify;
+  }
+
+  /** Merge {@code newer} into this pending notification. */
+  public Notify coalesce(Notify newer) {
+    int count = mCount + newer.mCount;
+    Notify merged;
+    if ("peerJoined".equals(mCoalesceKey)) {
+      merged = new Notify(mType, count + " people have joined the room");
+    } else if ("chatMessage".equals(mCoalesceKey)) {
+      String title = count + " new messages, latest " + newer.mTitle;
+      merged = new Notify(mType, title, newer.mText, mTimeout);
+    } else {
+      return newer;
+    }
+    merged.mCoalesceKey = mCoalesceKey;
+    merged.mCount = count;
+    return merged;
+  }
+
+  public String getCoalesceKey() {
+    return mCoalesceKey;
+  }
+
+  public int getCount() {
+    return mCount;
+  }
+
   public String getId() {
     return mId;
   }
@@ -4,18 +4,33 @@ import androidx.annotation.NonNull;
 
 import org.json.JSONObject;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * A remote peer.
+ *
+ * <p>Mutated by {@link Peers} only, under its writer lock; readers on any thread see volatile
+ * fields and immutable consumer sets that are replaced, never modified, so they can be iterated
+ * without locking or copying.
+ */
 @SuppressWarnings("WeakerAccess")
 public class Peer extends Info {
 
-  private String mId;
-  private String mDisplayName;
-  private DeviceInfo mDevice;
+  private final String mId;
+  private volatile String mDisplayName;
+  private volatile DeviceInfo mDevice;
+  private volatile int mVolume = -127;
 
-  private Set<String> mConsumers;
-  private Set<String> mDataConsumers;
+  private volatile Set<String> mConsumers = Collections.emptySet();
+  private volatile Set<String> mDataConsumers = Collections.emptySet();
+
+  public Peer(String id, String displayName, @NonNull DeviceInfo device) {
+    mId = id;
+    mDisplayName = displayName;
+    mDevice = device;
+  }
 
   public Peer(@NonNull JSONObject info) {
     mId = info.optString("id");
@@ -30,8 +45,6 @@ public class Peer extends Info {
     } else {
       mDevice = DeviceInfo.unknownDevice();
     }
-    mConsumers = new HashSet<>();
-    mDataConsumers = new HashSet<>();
   }
 
   @Override
@@ -49,18 +62,63 @@ public class Peer extends Info {
     return mDevice;
   }
 
-  public void setDisplayName(String displayName) {
+  void setDisplayName(String displayName) {
     this.mDisplayName = displayName;
   }
 
-  public void setDevice(DeviceInfo device) {
+  void setDevice(DeviceInfo device) {
     this.mDevice = device;
   }
 
+  public int getVolume() {
+    return mVolume;
+  }
+
+  void setVolume(int volume) {
+    this.mVolume = volume;
+  }
+
+  /** Immutable snapshot of the consumer ids. */
   public Set<String> getConsumers() {
     return mConsumers;
   }
+
+  /** Immutable snapshot of the data consumer ids. */
   public Set<String> getDataConsumers() {
     return mDataConsumers;
   }
+
+  void addConsumer(String consumerId) {
+    mConsumers = with(mConsumers, consumerId);
+  }
+
+  void removeConsumer(String consumerId) {
+    mConsumers = without(mConsumers, consumerId);
+  }
+
+  void addDataConsumer(String dataConsumerId) {
+    mDataConsumers = with(mDataConsumers, dataConsumerId);
+  }
+
+  void removeDataConsumer(String dataConsumerId) {
+    mDataConsumers = without(mDataConsumers, dataConsumerId);
+  }
+
+  private static Set<String> with(Set<String> set, String id) {
+    if (set.contains(id)) {
+      return set;
+    }
+    Set<String> copy = new HashSet<>(set);
+    copy.add(id);
+    return Collections.unmodifiableSet(copy);
+  }
+
+  private static Set<String> without(Set<String> set, String id) {
+    if (!set.contains(id)) {
+      return set;
+    }
+    Set<String> copy = new HashSet<>(set);
+    copy.remove(id);
+    return Collections.unmodifiableSet(copy);
+  }
 }
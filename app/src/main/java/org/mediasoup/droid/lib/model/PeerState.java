@@ -0,0 +1,196 @@
+package org.mediasoup.droid.lib.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.ObjectsCompat;
+
+import org.mediasoup.droid.Consumer;
+
+/**
+ * Immutable view state of one remote peer and its audio/video consumers.
+ *
+ * <p>Derived by {@link org.mediasoup.droid.lib.lv.RoomStore#peer(String)} after every mutation
+ * touching the peer, and only emitted when not {@link #equals} to the previous one.
+ */
+@SuppressWarnings("WeakerAccess")
+public class PeerState {
+
+  public static class ConsumerState {
+
+    @NonNull private final String mConsumerId;
+    @Nullable private final Consumer mConsumer;
+    private final String mType;
+    private final boolean mLocallyPaused;
+    private final boolean mRemotelyPaused;
+    private final int mSpatialLayer;
+    private final int mTemporalLayer;
+    private final int mPreferredSpatialLayer;
+    private final int mPreferredTemporalLayer;
+    @Nullable private final Score mScore;
+
+    ConsumerState(@NonNull Consumers.ConsumerWrapper wrapper) {
+      mConsumerId = wrapper.getId();
+      mConsumer = wrapper.getConsumer();
+      mType = wrapper.getType();
+      mLocallyPaused = wrapper.isLocallyPaused();
+      mRemotelyPaused = wrapper.isRemotelyPaused();
+      long layers = wrapper.getLayers();
+      mSpatialLayer = Consumers.spatialLayerOf(layers);
+      mTemporalLayer = Consumers.temporalLayerOf(layers);
+      long preferredLayers = wrapper.getPreferredLayers();
+      mPreferredSpatialLayer = Consumers.spatialLayerOf(preferredLayers);
+      mPreferredTemporalLayer = Consumers.temporalLayerOf(preferredLayers);
+      mScore = wrapper.getScore();
+    }
+
+    @NonNull
+    public String getConsumerId() {
+      return mConsumerId;
+    }
+
+    // null when replayed from an ActionJournal.
+    @Nullable
+    public Consumer getConsumer() {
+      return mConsumer;
+    }
+
+    public String getType() {
+      return mType;
+    }
+
+    public boolean isLocallyPaused() {
+      return mLocallyPaused;
+    }
+
+    public boolean isRemotelyPaused() {
+      return mRemotelyPaused;
+    }
+
+    public int getSpatialLayer() {
+      return mSpatialLayer;
+    }
+
+    public int getTemporalLayer() {
+      return mTemporalLayer;
+    }
+
+    public int getPreferredSpatialLayer() {
+      return mPreferredSpatialLayer;
+    }
+
+    public int getPreferredTemporalLayer() {
+      return mPreferredTemporalLayer;
+    }
+
+    @Nullable
+    public Score getScore() {
+      return mScore;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ConsumerState)) {
+        return false;
+      }
+      ConsumerState that = (ConsumerState) o;
+      return mConsumer == that.mConsumer
+          && mConsumerId.equals(that.mConsumerId)
+          && mLocallyPaused == that.mLocallyPaused
+          && mRemotelyPaused == that.mRemotelyPaused
+          && mSpatialLayer == that.mSpatialLayer
+          && mTemporalLayer == that.mTemporalLayer
+          && mPreferredSpatialLayer == that.mPreferredSpatialLayer
+          && mPreferredTemporalLayer == that.mPreferredTemporalLayer
+          && ObjectsCompat.equals(mType, that.mType)
+          && ObjectsCompat.equals(mScore, that.mScore);
+    }
+
+    @Override
+    public int hashCode() {
+      return ObjectsCompat.hash(
+          mConsumerId, mLocallyPaused, mRemotelyPaused, mSpatialLayer, mScore);
+    }
+  }
+
+  @NonNull private final Peer mPeer;
+  private final String mDisplayName;
+  private final int mVolume;
+  @Nullable private final ConsumerState mAudio;
+  @Nullable private final ConsumerState mVideo;
+
+  PeerState(@NonNull Peer peer, @Nullable ConsumerState audio, @Nullable ConsumerState video) {
+    mPeer = peer;
+    mDisplayName = peer.getDisplayName();
+    mVolume = peer.getVolume();
+    mAudio = audio;
+    mVideo = video;
+  }
+
+  /** Derive the state of {@code peerId}, or null if the peer is gone. */
+  @Nullable
+  public static PeerState derive(
+      @NonNull Peers peers, @NonNull Consumers consumers, @NonNull String peerId) {
+    Peer peer = peers.getPeer(peerId);
+    if (peer == null) {
+      return null;
+    }
+    ConsumerState audio = null;
+    ConsumerState video = null;
+    for (Consumers.ConsumerWrapper wrapper : consumers.getConsumersOf(peerId)) {
+      String kind = wrapper.getKind();
+      if (audio == null && "audio".equals(kind)) {
+        audio = new ConsumerState(wrapper);
+      } else if (video == null && "video".equals(kind)) {
+        video = new ConsumerState(wrapper);
+      }
+    }
+    return new PeerState(peer, audio, video);
+  }
+
+  @NonNull
+  public Peer getPeer() {
+    return mPeer;
+  }
+
+  public String getDisplayName() {
+    return mDisplayName;
+  }
+
+  public int getVolume() {
+    return mVolume;
+  }
+
+  @Nullable
+  public ConsumerState getAudio() {
+    return mAudio;
+  }
+
+  @Nullable
+  public ConsumerState getVideo() {
+    return mVideo;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof PeerState)) {
+      return false;
+    }
+    PeerState that = (PeerState) o;
+    return mPeer == that.mPeer
+        && mVolume == that.mVolume
+        && ObjectsCompat.equals(mDisplayName, that.mDisplayName)
+        && ObjectsCompat.equals(mAudio, that.mAudio)
+        && ObjectsCompat.equals(mVideo, that.mVideo);
+  }
+
+  @Override
+  public int hashCode() {
+    return ObjectsCompat.hash(mPeer.getId(), mDisplayName, mVolume, mAudio, mVideo);
+  }
+}
@@ -1,6 +1,7 @@
 package org.mediasoup.droid.lib.model;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import org.json.JSONObject;
 import org.mediasoup.droid.Consumer;
@@ -13,25 +14,42 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Remote peers, in join order.
+ *
+ * <p>Single writer, many readers: mutations are serialized by the instance lock (in practice they
+ * all come from the RoomClient worker thread, so it is uncontended) and publish a new immutable
+ * snapshot of the peers. Readers (derive thread, main thread, DataChannel threads) only read the
+ * volatile snapshot, never lock and never need a defensive copy.
+ */
 public class Peers {
 
   private static final String TAG = "Peers";
 
-  private Map<String, Peer> mPeersInfo;
+  // Immutable snapshots, replaced on every membership change.
+  private volatile Map<String, Peer> mPeersInfo = Collections.emptyMap();
+  private volatile List<Peer> mPeerList = Collections.emptyList();
 
-  public Peers() {
-    mPeersInfo = Collections.synchronizedMap(new LinkedHashMap<>());
+  public void addPeer(String peerId, @NonNull JSONObject peerInfo) {
+    addPeer(peerId, new Peer(peerInfo));
   }
 
-  public void addPeer(String peerId, @NonNull JSONObject peerInfo) {
-    mPeersInfo.put(peerId, new Peer(peerInfo));
+  public synchronized void addPeer(String peerId, @NonNull Peer peer) {
+    Map<String, Peer> peers = new LinkedHashMap<>(mPeersInfo);
+    peers.put(peerId, peer);
+    publish(peers);
   }
 
-  public void removePeer(String peerId) {
-    mPeersInfo.remove(peerId);
+  public synchronized void removePeer(String peerId) {
+    if (!mPeersInfo.containsKey(peerId)) {
+      return;
+    }
+    Map<String, Peer> peers = new LinkedHashMap<>(mPeersInfo);
+    peers.remove(peerId);
+    publish(peers);
   }
 
-  public void setPeerDisplayName(String peerId, String displayName) {
+  public synchronized void setPeerDisplayName(String peerId, String displayName) {
     Peer peer = mPeersInfo.get(peerId);
     if (peer == null) {
       Logger.e(TAG, "no Protoo found");
@@ -40,57 +58,82 @@ public class Peers {
     peer.setDisplayName(displayName);
   }
 
+  public synchronized void setPeerVolume(String peerId, int volume) {
+    Peer peer = mPeersInfo.get(peerId);
+    if (peer == null) {
+      return;
+    }
+    peer.setVolume(volume);
+  }
+
   public void addConsumer(String peerId, Consumer consumer) {
+    addConsumer(peerId, consumer.getId());
+  }
+
+  public synchronized void addConsumer(String peerId, String consumerId) {
     Peer peer = getPeer(peerId);
     if (peer == null) {
       Logger.e(TAG, "no Peer found for new Consumer");
       return;
     }
 
-    peer.getConsumers().add(consumer.getId());
+    peer.addConsumer(consumerId);
   }
 
-  public void removeConsumer(String peerId, String consumerId) {
+  public synchronized void removeConsumer(String peerId, String consumerId) {
     Peer peer = getPeer(peerId);
     if (peer == null) {
       return;
     }
 
-    peer.getConsumers().remove(consumerId);
+    peer.removeConsumer(consumerId);
   }
 
-  public void addDataConsumer(String peerId, DataConsumer consumer) {
+  public synchronized void addDataConsumer(String peerId, DataConsumer consumer) {
     Peer peer = getPeer(peerId);
     if (peer == null) {
       Logger.e(TAG, "no Peer found for new Data Consumer");
       return;
     }
 
-    peer.getDataConsumers().add(consumer.getId());
+    peer.addDataConsumer(consumer.getId());
   }
 
-  public void removeDataConsumer(String peerId, String consumerId) {
+  public synchronized void removeDataConsumer(String peerId, String consumerId) {
     Peer peer = getPeer(peerId);
     if (peer == null) {
       return;
     }
 
-    peer.getDataConsumers().remove(consumerId);
+    peer.removeDataConsumer(consumerId);
   }
 
   public Peer getPeer(String peerId) {
     return mPeersInfo.get(peerId);
   }
 
+  /** Immutable snapshot of the peers, in join order. */
   public List<Peer> getAllPeers() {
-    List<Peer> peers = new ArrayList<>();
-    for (Map.Entry<String, Peer> info : mPeersInfo.entrySet()) {
-      peers.add(info.getValue());
+    return mPeerList;
+  }
+
+  /** The peer owning {@code dataConsumerId}, null if none. */
+  @Nullable
+  public Peer getPeerOfDataConsumer(String dataConsumerId) {
+    for (Peer peer : mPeerList) {
+      if (peer.getDataConsumers().contains(dataConsumerId)) {
+        return peer;
+      }
     }
-    return peers;
+    return null;
+  }
+
+  public synchronized void clear() {
+    publish(new LinkedHashMap<>());
   }
 
-  public void clear() {
-    mPeersInfo.clear();
+  private void publish(Map<String, Peer> peers) {
+    mPeerList = Collections.unmodifiableList(new ArrayList<>(peers.values()));
+    mPeersInfo = Collections.unmodifiableMap(peers);
   }
 }
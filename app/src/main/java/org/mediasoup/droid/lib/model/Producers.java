@@ -2,7 +2,6 @@ package org.mediasoup.droid.lib.model;
 
 import androidx.annotation.NonNull;
 
-import org.json.JSONArray;
 import org.mediasoup.droid.Producer;
 
 import java.util.Map;
@@ -16,7 +15,7 @@ public class Producers {
     public static final String TYPE_SHARE = "share";
 
     private Producer mProducer;
-    private JSONArray mScore;
+    private Score mScore;
     private String mType;
 
     ProducersWrapper(Producer producer) {
@@ -27,7 +26,7 @@ public class Producers {
       return mProducer;
     }
 
-    public JSONArray getScore() {
+    public Score getScore() {
       return mScore;
     }
 
@@ -70,7 +69,7 @@ public class Producers {
     wrapper.mProducer.resume();
   }
 
-  public void setProducerScore(String producerId, JSONArray score) {
+  public void setProducerScore(String producerId, Score score) {
     ProducersWrapper wrapper = mProducers.get(producerId);
     if (wrapper == null) {
       return;
@@ -78,6 +77,10 @@ public class Producers {
     wrapper.mScore = score;
   }
 
+  public ProducersWrapper getProducer(String producerId) {
+    return mProducers.get(producerId);
+  }
+
   public ProducersWrapper filter(@NonNull String kind) {
     for (ProducersWrapper wrapper : mProducers.values()) {
       if (wrapper.mProducer == null) {
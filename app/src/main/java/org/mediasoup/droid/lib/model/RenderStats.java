@@ -0,0 +1,116 @@
+package org.mediasoup.droid.lib.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@SuppressWarnings("WeakerAccess")
+public class RenderStats {
+
+  public static class TrackStats {
+
+    // Renderer side, from VideoRenderPipeline.
+    private final int mRenderers;
+    private final long mFramesReceived;
+    private final long mFramesRendered;
+    private final long mFramesSkipped;
+    private final long mFramesLate;
+    private final long mSinkDeliveries;
+    private final long mAvgRenderDelayMs;
+    private final float mRenderFps;
+    // Decoder side, from inbound-rtp stats.
+    private final long mFramesDecoded;
+    private final long mFramesDropped;
+    private final float mAvgDecodeMs;
+
+    public TrackStats(
+        int renderers,
+        long framesReceived,
+        long framesRendered,
+        long framesSkipped,
+        long framesLate,
+        long sinkDeliveries,
+        long avgRenderDelayMs,
+        float renderFps,
+        long framesDecoded,
+        long framesDropped,
+        float avgDecodeMs) {
+      mRenderers = renderers;
+      mFramesReceived = framesReceived;
+      mFramesRendered = framesRendered;
+      mFramesSkipped = framesSkipped;
+      mFramesLate = framesLate;
+      mSinkDeliveries = sinkDeliveries;
+      mAvgRenderDelayMs = avgRenderDelayMs;
+      mRenderFps = renderFps;
+      mFramesDecoded = framesDecoded;
+      mFramesDropped = framesDropped;
+      mAvgDecodeMs = avgDecodeMs;
+    }
+
+    public int getRenderers() {
+      return mRenderers;
+    }
+
+    public long getFramesReceived() {
+      return mFramesReceived;
+    }
+
+    public long getFramesRendered() {
+      return mFramesRendered;
+    }
+
+    public long getFramesSkipped() {
+      return mFramesSkipped;
+    }
+
+    public long getFramesLate() {
+      return mFramesLate;
+    }
+
+    public long getSinkDeliveries() {
+      return mSinkDeliveries;
+    }
+
+    public long getAvgRenderDelayMs() {
+      return mAvgRenderDelayMs;
+    }
+
+    public float getRenderFps() {
+      return mRenderFps;
+    }
+
+    public long getFramesDecoded() {
+      return mFramesDecoded;
+    }
+
+    public long getFramesDropped() {
+      return mFramesDropped;
+    }
+
+    public float getAvgDecodeMs() {
+      return mAvgDecodeMs;
+    }
+  }
+
+  private final Map<String, TrackStats> mTrackStats;
+
+  public RenderStats() {
+    mTrackStats = new ConcurrentHashMap<>();
+  }
+
+  public void setTrackStats(String consumerId, TrackStats stats) {
+    mTrackStats.put(consumerId, stats);
+  }
+
+  public void removeTrackStats(String consumerId) {
+    mTrackStats.remove(consumerId);
+  }
+
+  public TrackStats getTrackStats(String consumerId) {
+    return mTrackStats.get(consumerId);
+  }
+
+  public void clear() {
+    mTrackStats.clear();
+  }
+}
@@ -3,12 +3,17 @@ package org.mediasoup.droid.lib.model;
 import static org.mediasoup.droid.lib.RoomClient.ConnectionState;
 import static org.mediasoup.droid.lib.RoomClient.ConnectionState.NEW;
 
+import java.util.Collections;
+import java.util.List;
+
 public class RoomInfo {
 
   private String mUrl;
   private String mRoomId;
   private ConnectionState mConnectionState = NEW;
   private String mActiveSpeakerId;
+  // Most recent speaker first.
+  private List<String> mRecentSpeakerIds = Collections.emptyList();
   private String mStatsPeerId;
   private boolean mFaceDetection = false;
 
@@ -44,6 +49,14 @@ public class RoomInfo {
     this.mActiveSpeakerId = activeSpeakerId;
   }
 
+  public List<String> getRecentSpeakerIds() {
+    return mRecentSpeakerIds;
+  }
+
+  public void setRecentSpeakerIds(List<String> recentSpeakerIds) {
+    this.mRecentSpeakerIds = recentSpeakerIds;
+  }
+
   public String getStatsPeerId() {
     return mStatsPeerId;
   }
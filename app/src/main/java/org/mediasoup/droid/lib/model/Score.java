@@ -0,0 +1,156 @@
+package org.mediasoup.droid.lib.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+/**
+ * Immutable producer or consumer score, parsed once from the protoo notification.
+ *
+ * <p>Per encoding values are packed in primitive arrays and equality is by value, so a score
+ * notification repeating the previous value can be dropped before reaching the store.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Score {
+
+  public static final int UNKNOWN = -1;
+
+  private static final int[] EMPTY = new int[0];
+
+  // Consumer score, UNKNOWN for producers.
+  private final int mScore;
+  // Score of the consumed producer, UNKNOWN for producers.
+  private final int mProducerScore;
+  // One entry per encoding (stream), in encoding order.
+  @NonNull private final int[] mScores;
+  // SSRC of each entry of mScores, empty for consumers.
+  @NonNull private final int[] mSsrcs;
+
+  private Score(int score, int producerScore, @NonNull int[] scores, @NonNull int[] ssrcs) {
+    mScore = score;
+    mProducerScore = producerScore;
+    mScores = scores;
+    mSsrcs = ssrcs;
+  }
+
+  /** A consumer score without per-encoding details, e.g. replayed from an ActionJournal. */
+  @NonNull
+  public static Score consumerScore(int score, int producerScore) {
+    return new Score(score, producerScore, EMPTY, EMPTY);
+  }
+
+  /**
+   * Parse a "producerScore" notification score.
+   *
+   * <p>[{"encodingIdx":0,"ssrc":196184265,"rid":"r0","score":10}, ...]
+   */
+  @NonNull
+  public static Score parseProducerScore(@Nullable JSONArray score) {
+    if (score == null || score.length() == 0) {
+      return new Score(UNKNOWN, UNKNOWN, EMPTY, EMPTY);
+    }
+    int[] scores = new int[score.length()];
+    int[] ssrcs = new int[score.length()];
+    for (int i = 0; i < score.length(); i++) {
+      JSONObject entry = score.optJSONObject(i);
+      if (entry == null) {
+        scores[i] = UNKNOWN;
+        continue;
+      }
+      int index = entry.optInt("encodingIdx", i);
+      if (index < 0 || index >= scores.length) {
+        index = i;
+      }
+      scores[index] = entry.optInt("score", UNKNOWN);
+      // SSRCs are unsigned 32-bit, keep the bits.
+      ssrcs[index] = (int) entry.optLong("ssrc");
+    }
+    return new Score(UNKNOWN, UNKNOWN, scores, ssrcs);
+  }
+
+  /**
+   * Parse a "consumerScore" notification score.
+   *
+   * <p>{"score":10,"producerScore":10,"producerScores":[10,9,0]}
+   */
+  @NonNull
+  public static Score parseConsumerScore(@Nullable JSONObject score) {
+    if (score == null) {
+      return new Score(UNKNOWN, UNKNOWN, EMPTY, EMPTY);
+    }
+    JSONArray producerScores = score.optJSONArray("producerScores");
+    int[] scores = EMPTY;
+    if (producerScores != null && producerScores.length() > 0) {
+      scores = new int[producerScores.length()];
+      for (int i = 0; i < scores.length; i++) {
+        scores[i] = producerScores.optInt(i, UNKNOWN);
+      }
+    }
+    return new Score(
+        score.optInt("score", UNKNOWN), score.optInt("producerScore", UNKNOWN), scores, EMPTY);
+  }
+
+  public int getScore() {
+    return mScore;
+  }
+
+  public int getProducerScore() {
+    return mProducerScore;
+  }
+
+  public int getEncodingCount() {
+    return mScores.length;
+  }
+
+  public int getEncodingScore(int index) {
+    return mScores[index];
+  }
+
+  /** SSRC of the encoding as an unsigned value, 0 if unknown. */
+  public long getEncodingSsrc(int index) {
+    return index < mSsrcs.length ? mSsrcs[index] & 0xffffffffL : 0;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Score)) {
+      return false;
+    }
+    Score that = (Score) o;
+    return mScore == that.mScore
+        && mProducerScore == that.mProducerScore
+        && Arrays.equals(mScores, that.mScores)
+        && Arrays.equals(mSsrcs, that.mSsrcs);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 31 * mScore + mProducerScore;
+    result = 31 * result + Arrays.hashCode(mScores);
+    return 31 * result + Arrays.hashCode(mSsrcs);
+  }
+
+  @NonNull
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    if (mScore != UNKNOWN) {
+      builder.append("score: ").append(mScore);
+      builder.append(", producerScore: ").append(mProducerScore);
+    }
+    for (int i = 0; i < mScores.length; i++) {
+      if (builder.length() > 0) {
+        builder.append(", ");
+      }
+      builder.append('[').append(i).append("] ").append(mScores[i]);
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,168 @@
+package org.mediasoup.droid.lib.socket;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Random;
+
+/**
+ * In-process emulation of a poor signaling link: delay, jitter, loss and a bandwidth cap on each
+ * direction of a {@link WebSocketTransport}. Plain Java driven by the caller's clock and a seeded
+ * random, so the same seed and send times give the same drops and delays, also on a JVM without
+ * Android.
+ *
+ * <p>Messages keep their order as over the real TCP connection: jitter delays the messages behind a
+ * late one instead of reordering them.
+ */
+public class NetworkEmulator {
+
+  public static class Conditions {
+
+    // One way delay, plus up to the jitter at random.
+    private long mDelayMs;
+    private long mJitterMs;
+    // Share of messages dropped, 0 to 1.
+    private double mLoss;
+    // Bits per second, 0 for no cap.
+    private long mBandwidthBps;
+
+    public Conditions setDelayMs(long delayMs) {
+      this.mDelayMs = delayMs;
+      return this;
+    }
+
+    public Conditions setJitterMs(long jitterMs) {
+      this.mJitterMs = jitterMs;
+      return this;
+    }
+
+    public Conditions setLoss(double loss) {
+      this.mLoss = loss;
+      return this;
+    }
+
+    public Conditions setBandwidthBps(long bandwidthBps) {
+      this.mBandwidthBps = bandwidthBps;
+      return this;
+    }
+
+    public long getDelayMs() {
+      return mDelayMs;
+    }
+
+    public long getJitterMs() {
+      return mJitterMs;
+    }
+
+    public double getLoss() {
+      return mLoss;
+    }
+
+    public long getBandwidthBps() {
+      return mBandwidthBps;
+    }
+  }
+
+  /** One direction of the link. */
+  public static class Link {
+
+    @NotNull private final Random mRandom;
+    @NotNull private volatile Conditions mConditions = new Conditions();
+    // When the messages queued so far are all on the wire, and when the last one arrives.
+    private long mBusyUntilMs;
+    private long mLastArrivalMs;
+    private long mSent;
+    private long mDropped;
+
+    Link(long seed) {
+      mRandom = new Random(seed);
+    }
+
+    public void setConditions(@NotNull Conditions conditions) {
+      mConditions = conditions;
+    }
+
+    @NotNull
+    public Conditions getConditions() {
+      return mConditions;
+    }
+
+    /**
+     * How long after {@code nowMs} a message of {@code size} bytes sent then arrives, or -1 if it
+     * is lost. Times must not go backwards between calls.
+     */
+    public synchronized long schedule(int size, long nowMs) {
+      Conditions conditions = mConditions;
+      mSent++;
+      if (conditions.mLoss > 0 && mRandom.nextDouble() < conditions.mLoss) {
+        mDropped++;
+        return -1;
+      }
+      // queued behind what is still being sent.
+      long startMs = Math.max(nowMs, mBusyUntilMs);
+      long sendMs = conditions.mBandwidthBps > 0 ? size * 8000L / conditions.mBandwidthBps : 0;
+      mBusyUntilMs = startMs + sendMs;
+      long jitterMs =
+          conditions.mJitterMs > 0 ? (long) (mRandom.nextDouble() * conditions.mJitterMs) : 0;
+      long arrivalMs = Math.max(mBusyUntilMs + conditions.mDelayMs + jitterMs, mLastArrivalMs);
+      mLastArrivalMs = arrivalMs;
+      return arrivalMs - nowMs;
+    }
+
+    /** Forget what is queued, for a new connection. */
+    public synchronized void reset() {
+      mBusyUntilMs = 0;
+      mLastArrivalMs = 0;
+    }
+
+    public synchronized long getSent() {
+      return mSent;
+    }
+
+    public synchronized long getDropped() {
+      return mDropped;
+    }
+  }
+
+  @NotNull private final Link mUplink;
+  @NotNull private final Link mDownlink;
+
+  public NetworkEmulator(long seed) {
+    mUplink = new Link(seed);
+    mDownlink = new Link(seed + 1);
+  }
+
+  /** The same conditions both ways. */
+  public NetworkEmulator setConditions(@NotNull Conditions conditions) {
+    mUplink.setConditions(conditions);
+    mDownlink.setConditions(conditions);
+    return this;
+  }
+
+  public NetworkEmulator setUplink(@NotNull Conditions conditions) {
+    mUplink.setConditions(conditions);
+    return this;
+  }
+
+  public NetworkEmulator setDownlink(@NotNull Conditions conditions) {
+    mDownlink.setConditions(conditions);
+    return this;
+  }
+
+  /** A new connection: nothing is queued behind the old one's messages any more. */
+  public void reset() {
+    mUplink.reset();
+    mDownlink.reset();
+  }
+
+  /** Messages we send. */
+  @NotNull
+  public Link getUplink() {
+    return mUplink;
+  }
+
+  /** Messages we receive. */
+  @NotNull
+  public Link getDownlink() {
+    return mDownlink;
+  }
+}
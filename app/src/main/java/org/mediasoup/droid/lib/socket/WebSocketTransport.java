@@ -2,11 +2,13 @@ package org.mediasoup.droid.lib.socket;
 
 import android.os.Handler;
 import android.os.HandlerThread;
+import android.os.SystemClock;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.json.JSONObject;
 import org.mediasoup.droid.Logger;
+import org.mediasoup.droid.lib.Logs;
 import org.protoojs.droid.Message;
 import org.protoojs.droid.transports.AbsWebSocketTransport;
 
@@ -34,7 +36,7 @@ public class WebSocketTransport extends AbsWebSocketTransport {
   private static final String TAG = "WebSocketTransport";
   // Closed flag.
   private boolean mClosed;
-  // Connected flag.
+  // Connected flag, handler thread only.
   private boolean mConnected;
   // OKHttpClient.
   private final OkHttpClient mOkHttpClient;
@@ -44,8 +46,15 @@ public class WebSocketTransport extends AbsWebSocketTransport {
   private final RetryStrategy mRetryStrategy;
   // WebSocket instance.
   private WebSocket mWebSocket;
-  // Listener.
-  private Listener mListener;
+  // Listener, set once the protoo Peer takes over the transport.
+  private volatile Listener mListener;
+  // Whether a WebSocket is being opened or open, handler thread only.
+  private boolean mStarted;
+  // Whether a reconnect is waiting out its backoff.
+  private volatile boolean mReconnectScheduled;
+  private final Runnable mReconnectJob = this::doReconnect;
+  // Emulated link conditions for both directions, none by default.
+  @Nullable private volatile NetworkEmulator mEmulator;
 
   private static class RetryStrategy {
 
@@ -92,15 +101,42 @@ public class WebSocketTransport extends AbsWebSocketTransport {
     mRetryStrategy = new RetryStrategy(10, 2, 1000, 8 * 1000);
   }
 
+  /**
+   * Open the WebSocket ahead of {@link #connect}, e.g. while the splash screen shows. Messages
+   * received before connect() are dropped.
+   */
+  public void preconnect() {
+    Logger.d(TAG, "preconnect()");
+    mHandler.post(
+        () -> {
+          if (!mStarted) {
+            newWebSocket();
+          }
+        });
+  }
+
   @Override
   public void connect(Listener listener) {
     Logger.d(TAG, "connect()");
-    mListener = listener;
-    mHandler.post(this::newWebSocket);
+    mHandler.post(
+        () -> {
+          mListener = listener;
+          if (mConnected && mWebSocket != null) {
+            // preconnected and still open.
+            listener.onOpen();
+          } else if (!mStarted) {
+            newWebSocket();
+          }
+        });
   }
 
   private void newWebSocket() {
+    mStarted = true;
     mWebSocket = null;
+    NetworkEmulator emulator = mEmulator;
+    if (emulator != null) {
+      emulator.reset();
+    }
     mOkHttpClient.newWebSocket(
         new Request.Builder().url(mUrl).addHeader("Sec-WebSocket-Protocol", "protoo").build(),
         new ProtooWebSocketListener());
@@ -112,18 +148,45 @@ public class WebSocketTransport extends AbsWebSocketTransport {
       return false;
     }
     Logger.d(TAG, "scheduleReconnect() ");
-    mHandler.postDelayed(
+    mReconnectScheduled = true;
+    mHandler.postDelayed(mReconnectJob, reconnectInterval);
+    return true;
+  }
+
+  private void doReconnect() {
+    mReconnectScheduled = false;
+    if (mClosed) {
+      return;
+    }
+    Logger.w(TAG, "doing reconnect job, retryCount: " + mRetryStrategy.retryCount);
+    mOkHttpClient.dispatcher().cancelAll();
+    newWebSocket();
+    mRetryStrategy.retried();
+  }
+
+  /** Pass messages through {@code emulator} both ways, or directly when null. */
+  public void setNetworkEmulator(@Nullable NetworkEmulator emulator) {
+    mEmulator = emulator;
+  }
+
+  /**
+   * Drop the WebSocket as a network failure would, so it gets reopened the usual way. If it is
+   * already waiting to be reopened, do so now instead of after the backoff.
+   */
+  public void reconnect() {
+    Logger.d(TAG, "reconnect()");
+    mHandler.post(
         () -> {
           if (mClosed) {
             return;
           }
-          Logger.w(TAG, "doing reconnect job, retryCount: " + mRetryStrategy.retryCount);
-          mOkHttpClient.dispatcher().cancelAll();
-          newWebSocket();
-          mRetryStrategy.retried();
-        },
-        reconnectInterval);
-    return true;
+          if (mReconnectScheduled) {
+            mHandler.removeCallbacks(mReconnectJob);
+            doReconnect();
+          } else if (mWebSocket != null) {
+            mWebSocket.cancel();
+          }
+        });
   }
 
   @Override
@@ -132,7 +195,16 @@ public class WebSocketTransport extends AbsWebSocketTransport {
       throw new IllegalStateException("transport closed");
     }
     String payload = message.toString();
-    mHandler.post(
+    long delayMs = 0;
+    NetworkEmulator emulator = mEmulator;
+    if (emulator != null) {
+      // sizes in chars, close enough for JSON.
+      delayMs = emulator.getUplink().schedule(payload.length(), SystemClock.uptimeMillis());
+      if (delayMs < 0) {
+        return payload;
+      }
+    }
+    mHandler.postDelayed(
         () -> {
           if (mClosed) {
             return;
@@ -140,7 +212,8 @@ public class WebSocketTransport extends AbsWebSocketTransport {
           if (mWebSocket != null) {
             mWebSocket.send(payload);
           }
-        });
+        },
+        delayMs);
     return payload;
   }
 
@@ -176,30 +249,38 @@ public class WebSocketTransport extends AbsWebSocketTransport {
 
     @Override
     public void onOpen(@NotNull WebSocket webSocket, @NotNull Response response) {
-      if (mClosed) {
-        return;
-      }
-      Logger.d(TAG, "onOpen() ");
-      mWebSocket = webSocket;
-      mConnected = true;
-      if (mListener != null) {
-        mListener.onOpen();
-      }
-      mRetryStrategy.reset();
+      // on the handler thread, so it cannot race with connect().
+      mHandler.post(
+          () -> {
+            if (mClosed) {
+              return;
+            }
+            Logger.d(TAG, "onOpen() ");
+            mWebSocket = webSocket;
+            mConnected = true;
+            if (mListener != null) {
+              mListener.onOpen();
+            }
+            mRetryStrategy.reset();
+          });
     }
 
     @Override
     public void onClosed(@NotNull WebSocket webSocket, int code, @NotNull String reason) {
       Logger.w(TAG, "onClosed()");
-      if (mClosed) {
-        return;
-      }
-      mClosed = true;
-      mConnected = false;
-      mRetryStrategy.reset();
-      if (mListener != null) {
-        mListener.onClose();
-      }
+      mHandler.post(
+          () -> {
+            if (mClosed) {
+              return;
+            }
+            mClosed = true;
+            mConnected = false;
+            mWebSocket = null;
+            mRetryStrategy.reset();
+            if (mListener != null) {
+              mListener.onClose();
+            }
+          });
     }
 
     @Override
@@ -211,30 +292,54 @@ public class WebSocketTransport extends AbsWebSocketTransport {
     public void onFailure(
         @NotNull WebSocket webSocket, @NotNull Throwable t, @Nullable Response response) {
       Logger.w(TAG, "onFailure()");
+      // on the handler thread, as onOpen(), so connect() never sees a failed socket as open.
+      mHandler.post(
+          () -> {
+            if (mClosed) {
+              return;
+            }
+            boolean wasConnected = mConnected;
+            mConnected = false;
+            if (webSocket == mWebSocket) {
+              mWebSocket = null;
+            }
+            if (scheduleReconnect()) {
+              if (mListener != null) {
+                if (wasConnected) {
+                  mListener.onFail();
+                } else {
+                  mListener.onDisconnected();
+                }
+              }
+            } else {
+              Logger.e(TAG, "give up reconnect. notify closed");
+              mClosed = true;
+              if (mListener != null) {
+                mListener.onClose();
+              }
+              mRetryStrategy.reset();
+            }
+          });
+    }
+
+    @Override
+    public void onMessage(@NotNull WebSocket webSocket, @NotNull String text) {
+      Logs.d(TAG, "onMessage()");
       if (mClosed) {
         return;
       }
-      if (scheduleReconnect()) {
-        if (mListener != null) {
-          if (mConnected) {
-            mListener.onFail();
-          } else {
-            mListener.onDisconnected();
-          }
-        }
-      } else {
-        Logger.e(TAG, "give up reconnect. notify closed");
-        mClosed = true;
-        if (mListener != null) {
-          mListener.onClose();
+      NetworkEmulator emulator = mEmulator;
+      if (emulator != null) {
+        long delayMs = emulator.getDownlink().schedule(text.length(), SystemClock.uptimeMillis());
+        if (delayMs >= 0) {
+          mHandler.postDelayed(() -> deliver(text), delayMs);
         }
-        mRetryStrategy.reset();
+        return;
       }
+      deliver(text);
     }
 
-    @Override
-    public void onMessage(@NotNull WebSocket webSocket, @NotNull String text) {
-      Logger.d(TAG, "onMessage()");
+    private void deliver(String text) {
       if (mClosed) {
         return;
       }
@@ -285,14 +390,13 @@ public class WebSocketTransport extends AbsWebSocketTransport {
 
       final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
 
-      HttpLoggingInterceptor httpLoggingInterceptor =
-          new HttpLoggingInterceptor(s -> Logger.d(TAG, s));
-      httpLoggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BASIC);
-
-      OkHttpClient.Builder builder =
-          new OkHttpClient.Builder()
-              .addInterceptor(httpLoggingInterceptor)
-              .retryOnConnectionFailure(true);
+      OkHttpClient.Builder builder = new OkHttpClient.Builder().retryOnConnectionFailure(true);
+      if (Logs.isDebug()) {
+        HttpLoggingInterceptor httpLoggingInterceptor =
+            new HttpLoggingInterceptor(s -> Logger.d(TAG, s));
+        httpLoggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BASIC);
+        builder.addInterceptor(httpLoggingInterceptor);
+      }
       builder.sslSocketFactory(sslSocketFactory, (X509TrustManager) trustAllCerts[0]);
 
       builder.hostnameVerifier((hostname, session) -> true);
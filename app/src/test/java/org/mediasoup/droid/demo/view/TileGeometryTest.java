@@ -0,0 +1,100 @@
+package org.mediasoup.droid.demo.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TileGeometryTest {
+
+  private static final int GRID = TileLayoutManager.MODE_GRID;
+  private static final int SPEAKER = TileLayoutManager.MODE_SPEAKER;
+
+  @Test
+  public void gridOfOneFillsContainer() {
+    TileGeometry geometry = TileGeometry.compute(GRID, 1, 1600, 900);
+    assertSlot(geometry, 0, 0, 0, 1600, 900);
+    assertEquals(900, geometry.getContentExtent());
+  }
+
+  @Test
+  public void gridOfFourIsTwoByTwo() {
+    TileGeometry geometry = TileGeometry.compute(GRID, 4, 1600, 900);
+    assertSlot(geometry, 0, 0, 0, 800, 450);
+    assertSlot(geometry, 1, 800, 0, 800, 450);
+    assertSlot(geometry, 2, 0, 450, 800, 450);
+    assertSlot(geometry, 3, 800, 450, 800, 450);
+    assertEquals(900, geometry.getContentExtent());
+  }
+
+  @Test
+  public void gridSideBySideInLandscape() {
+    TileGeometry geometry = TileGeometry.compute(GRID, 2, 1600, 900);
+    assertSlot(geometry, 0, 0, 0, 800, 900);
+    assertSlot(geometry, 1, 800, 0, 800, 900);
+  }
+
+  @Test
+  public void gridStacksInPortrait() {
+    TileGeometry geometry = TileGeometry.compute(GRID, 2, 1080, 1920);
+    assertSlot(geometry, 0, 0, 0, 1080, 960);
+    assertSlot(geometry, 1, 0, 960, 1080, 960);
+  }
+
+  @Test
+  public void largeGridScrolls() {
+    TileGeometry geometry = TileGeometry.compute(GRID, 20, 1600, 900);
+    // at most MAX_GRID_ROWS rows fit, the fifth one is below the fold.
+    assertSlot(geometry, 0, 0, 0, 400, 225);
+    assertSlot(geometry, 19, 1200, 900, 400, 225);
+    assertEquals(5 * 225, geometry.getContentExtent());
+  }
+
+  @Test
+  public void speakerOverFilmstrip() {
+    TileGeometry geometry = TileGeometry.compute(SPEAKER, 5, 1600, 900);
+    int stageHeight = geometry.getHeight(0);
+    int stripWidth = geometry.getWidth(1);
+    int stripHeight = geometry.getHeight(1);
+    assertSlot(geometry, 0, 0, 0, 1600, stageHeight);
+    assertEquals(900, stageHeight + stripHeight);
+    assertEquals((int) (900 * TileGeometry.FILMSTRIP_FRACTION), stripHeight);
+    assertTrue(Math.abs(stripWidth - stripHeight * TileGeometry.TILE_ASPECT) <= 1);
+    for (int slot = 1; slot < 5; slot++) {
+      assertSlot(geometry, slot, (slot - 1) * stripWidth, stageHeight, stripWidth, stripHeight);
+    }
+    assertEquals(4 * stripWidth, geometry.getContentExtent());
+  }
+
+  @Test
+  public void loneSpeakerDoesNotScroll() {
+    TileGeometry geometry = TileGeometry.compute(SPEAKER, 1, 1600, 900);
+    assertSlot(geometry, 0, 0, 0, 1600, 900);
+    assertEquals(0, geometry.getContentExtent());
+  }
+
+  @Test
+  public void emptyHasNoSlots() {
+    assertEquals(0, TileGeometry.compute(GRID, 0, 1600, 900).getSlotCount());
+  }
+
+  @Test
+  public void speakerTakesFirstSlot() {
+    // speaker at position 2 of 4, the others keep their order in the filmstrip.
+    assertEquals(1, TileGeometry.slotOf(SPEAKER, 0, 2, 4));
+    assertEquals(2, TileGeometry.slotOf(SPEAKER, 1, 2, 4));
+    assertEquals(0, TileGeometry.slotOf(SPEAKER, 2, 2, 4));
+    assertEquals(3, TileGeometry.slotOf(SPEAKER, 3, 2, 4));
+    // a stale speaker falls back to the first position.
+    assertEquals(0, TileGeometry.slotOf(SPEAKER, 0, 7, 4));
+    assertEquals(2, TileGeometry.slotOf(GRID, 2, 0, 4));
+  }
+
+  private static void assertSlot(
+      TileGeometry geometry, int slot, int left, int top, int width, int height) {
+    assertEquals("left of " + slot, left, geometry.getLeft(slot));
+    assertEquals("top of " + slot, top, geometry.getTop(slot));
+    assertEquals("width of " + slot, width, geometry.getWidth(slot));
+    assertEquals("height of " + slot, height, geometry.getHeight(slot));
+  }
+}
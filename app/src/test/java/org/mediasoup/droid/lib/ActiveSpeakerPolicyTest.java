@@ -0,0 +1,140 @@
+package org.mediasoup.droid.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Handler;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mediasoup.droid.Consumer;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Last-N pauses of {@link ActiveSpeakerPolicy}, against actions that defer resumes while in
+ * background the way RoomClient does.
+ */
+public class ActiveSpeakerPolicyTest {
+
+  private final Map<String, RoomMessageHandler.ConsumerHolder> mConsumers = new LinkedHashMap<>();
+  // Consumers paused on the server, and the ones background mode paused, as in RoomClient.
+  private final Set<String> mPaused = new HashSet<>();
+  private final Set<String> mBackgroundPaused = new HashSet<>();
+  private boolean mInBackground;
+  private ActiveSpeakerPolicy mPolicy;
+
+  private final ActiveSpeakerPolicy.Actions mActions =
+      new ActiveSpeakerPolicy.Actions() {
+        @Override
+        public void pauseConsumer(@NonNull Consumer consumer) {
+          mBackgroundPaused.remove(consumer.getId());
+          mPaused.add(consumer.getId());
+        }
+
+        @Override
+        public void resumeConsumer(@NonNull Consumer consumer) {
+          if (mInBackground) {
+            mBackgroundPaused.add(consumer.getId());
+            return;
+          }
+          mPaused.remove(consumer.getId());
+        }
+
+        @Override
+        public void setConsumerPreferredLayers(
+            @NonNull Consumer consumer, int spatialLayer, int temporalLayer) {}
+
+        @Override
+        public boolean isAudioOnly() {
+          return false;
+        }
+
+        @Override
+        public void setRecentSpeakers(@NonNull List<String> peerIds) {}
+      };
+
+  @Before
+  public void setUp() {
+    addVideoConsumer("alice");
+    addVideoConsumer("bob");
+    // last-N of one, no hysteresis.
+    mPolicy =
+        new ActiveSpeakerPolicy(mConsumers, new LinkedHashMap<>(), new Handler(), mActions, 1, 0);
+  }
+
+  @Test
+  public void keepsOnlyLastNResumed() {
+    mPolicy.onActiveSpeaker("alice");
+    assertFalse(mPaused.contains("alice-video"));
+    assertTrue(mPaused.contains("bob-video"));
+
+    mPolicy.onActiveSpeaker("bob");
+    assertTrue(mPaused.contains("alice-video"));
+    assertFalse(mPaused.contains("bob-video"));
+  }
+
+  @Test
+  public void lastNChangeInBackgroundHoldsOnForeground() {
+    mPolicy.onActiveSpeaker("alice");
+    enterBackground();
+    assertEquals(2, mPaused.size());
+
+    // bob takes the only slot while in background: alice is now out of last-N.
+    mPolicy.onActiveSpeaker("bob");
+    assertEquals(2, mPaused.size());
+
+    exitBackground();
+    assertTrue(mPaused.contains("alice-video"));
+    assertFalse(mPaused.contains("bob-video"));
+
+    // and alice comes back once she speaks again.
+    mPolicy.onActiveSpeaker("alice");
+    assertFalse(mPaused.contains("alice-video"));
+    assertTrue(mPaused.contains("bob-video"));
+  }
+
+  private void addVideoConsumer(String peerId) {
+    String consumerId = peerId + "-video";
+    Consumer consumer =
+        new Consumer(0) {
+          @Override
+          public String getId() {
+            return consumerId;
+          }
+
+          @Override
+          public String getKind() {
+            return "video";
+          }
+
+          @Override
+          public boolean isPaused() {
+            return mPaused.contains(consumerId);
+          }
+        };
+    mConsumers.put(consumerId, new RoomMessageHandler.ConsumerHolder(peerId, consumer));
+  }
+
+  private void enterBackground() {
+    mInBackground = true;
+    for (String consumerId : mConsumers.keySet()) {
+      if (mPaused.add(consumerId)) {
+        mBackgroundPaused.add(consumerId);
+      }
+    }
+  }
+
+  private void exitBackground() {
+    mInBackground = false;
+    mPaused.removeAll(mBackgroundPaused);
+    mBackgroundPaused.clear();
+  }
+}
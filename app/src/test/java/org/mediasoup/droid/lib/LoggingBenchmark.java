@@ -0,0 +1,61 @@
+package org.mediasoup.droid.lib;
+
+import static org.junit.Assume.assumeTrue;
+import static org.mediasoup.droid.lib.JsonUtils.toJsonObject;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.mediasoup.droid.Logger;
+
+/**
+ * Measures what logging one protoo notification costs the signaling thread, the way it used to be
+ * logged (the full JSON concatenated at every call) and through {@link Logs}, with debug logging
+ * off as in release builds. Only runs with {@code -Pbenchmarks}.
+ */
+public class LoggingBenchmark {
+
+  private static final String TAG = "LoggingBenchmark";
+
+  private static final int WARMUP = 2_000;
+  private static final int ITERATIONS = 20_000;
+
+  // A typical "consumerScore", the most frequent notification.
+  private static final String METHOD = "consumerScore";
+  private static final String DATA =
+      "{\"consumerId\":\"6a2b7d3e-9f1c-4b8e-a5d2-0c7e4f9a1b36\","
+          + "\"score\":{\"score\":10,\"producerScore\":9,\"producerScores\":[10,9,7]}}";
+
+  @Before
+  public void setUp() {
+    assumeTrue(Boolean.getBoolean("benchmarks"));
+  }
+
+  @Test
+  public void notificationLogging() {
+    JSONObject data = toJsonObject(DATA);
+    Logs.setDebugEnabled(false);
+    Logs.setLevel(Logs.WARN);
+    before(data, WARMUP);
+    after(data, WARMUP);
+    long beforeNs = before(data, ITERATIONS) / ITERATIONS;
+    long afterNs = after(data, ITERATIONS) / ITERATIONS;
+    System.out.println("per notification: " + beforeNs + " ns before, " + afterNs + " ns after");
+  }
+
+  private static long before(JSONObject data, int iterations) {
+    long startNs = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      Logger.d(TAG, "onNotification() " + METHOD + ", " + data.toString());
+    }
+    return System.nanoTime() - startNs;
+  }
+
+  private static long after(JSONObject data, int iterations) {
+    long startNs = System.nanoTime();
+    for (int i = 0; i < iterations; i++) {
+      RoomClient.logNotification(METHOD, data);
+    }
+    return System.nanoTime() - startNs;
+  }
+}
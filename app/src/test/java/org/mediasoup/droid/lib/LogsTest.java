@@ -0,0 +1,59 @@
+package org.mediasoup.droid.lib;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LogsTest {
+
+  @Test
+  public void formatReplacesPlaceholdersInOrder() {
+    assertEquals("a 1 b 2 c 3", Logs.format("a {} b {} c {}", 1, 2, 3, 3));
+    assertEquals("peer alice joined", Logs.format("peer {} joined", "alice", null, null, 1));
+    assertEquals("null", Logs.format("{}", null, null, null, 1));
+  }
+
+  @Test
+  public void formatKeepsExtraPlaceholdersAndText() {
+    // fewer arguments than placeholders.
+    assertEquals("1 and {}", Logs.format("{} and {}", 1, null, null, 1));
+    // more arguments than placeholders.
+    assertEquals("only 1", Logs.format("only {}", 1, 2, null, 2));
+    assertEquals("no placeholder", Logs.format("no placeholder", 1, null, null, 1));
+    assertEquals("{1}", Logs.format("{{}}", 1, null, null, 1));
+  }
+
+  @Test
+  public void formatCallsToStringLazily() {
+    Object arg =
+        new Object() {
+          @Override
+          public String toString() {
+            return "lazy";
+          }
+        };
+    assertEquals("[lazy]", Logs.format("[{}]", arg, null, null, 1));
+  }
+
+  @Test
+  public void sampleLogsFirstThenOneInEvery() {
+    int logged = 0;
+    for (int i = 0; i < 100; i++) {
+      if (Logs.sample("LogsTest.sample", 10)) {
+        assertEquals(0, i % 10);
+        logged++;
+      }
+    }
+    assertEquals(10, logged);
+  }
+
+  @Test
+  public void debugNeedsToBeEnabled() {
+    assertFalse(Logs.isDebug());
+    assertFalse(Logs.isLoggable(Logs.DEBUG));
+    assertTrue(Logs.isLoggable(Logs.WARN));
+    assertTrue(Logs.isLoggable(Logs.ERROR));
+  }
+}
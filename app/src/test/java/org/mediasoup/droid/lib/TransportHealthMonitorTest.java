@@ -0,0 +1,130 @@
+package org.mediasoup.droid.lib;
+
+import static org.junit.Assert.assertEquals;
+
+import android.os.Handler;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Recovery decisions of {@link TransportHealthMonitor}. The handler does not run anything on the
+ * JVM, so each test calls {@code recover()} where the scheduled job would run.
+ */
+public class TransportHealthMonitorTest {
+
+  private int mRestarts;
+  private int mRecreates;
+  private boolean mRestartFails;
+  private TransportHealthMonitor mMonitor;
+
+  @Before
+  public void setUp() {
+    mMonitor =
+        new TransportHealthMonitor(
+            new Handler(),
+            new TransportHealthMonitor.Actions() {
+              @Override
+              public void restartIce() throws Exception {
+                mRestarts++;
+                if (mRestartFails) {
+                  throw new Exception("timeout");
+                }
+              }
+
+              @Override
+              public void recreateTransports() {
+                mRecreates++;
+              }
+            });
+    mMonitor.onConnectionStateChange("send", "connected");
+    mMonitor.onConnectionStateChange("recv", "connected");
+  }
+
+  @Test
+  public void backoffDoublesUpToMax() {
+    assertEquals(2_000, TransportHealthMonitor.backoffMs(1));
+    assertEquals(4_000, TransportHealthMonitor.backoffMs(2));
+    assertEquals(8_000, TransportHealthMonitor.backoffMs(3));
+    assertEquals(8_000, TransportHealthMonitor.backoffMs(4));
+    assertEquals(8_000, TransportHealthMonitor.backoffMs(100));
+  }
+
+  @Test
+  public void restartsIceThenRecreatesTransports() {
+    mMonitor.onConnectionStateChange("recv", "failed");
+    for (int i = 0; i < 3; i++) {
+      mMonitor.recover();
+    }
+    assertEquals(3, mRestarts);
+    assertEquals(0, mRecreates);
+
+    mMonitor.recover();
+    assertEquals(3, mRestarts);
+    assertEquals(1, mRecreates);
+  }
+
+  @Test
+  public void failedRestartsStillEscalate() {
+    mRestartFails = true;
+    mMonitor.onConnectionStateChange("send", "disconnected");
+    for (int i = 0; i < 4; i++) {
+      mMonitor.recover();
+    }
+    assertEquals(3, mRestarts);
+    assertEquals(1, mRecreates);
+  }
+
+  @Test
+  public void stopsOnceAllTransportsConnect() {
+    mMonitor.onConnectionStateChange("send", "disconnected");
+    mMonitor.onConnectionStateChange("recv", "failed");
+    mMonitor.recover();
+    mMonitor.onConnectionStateChange("send", "connected");
+    // still one transport down.
+    mMonitor.recover();
+    assertEquals(2, mRestarts);
+
+    mMonitor.onConnectionStateChange("recv", "completed");
+    mMonitor.recover();
+    assertEquals(2, mRestarts);
+  }
+
+  @Test
+  public void recreatedTransportsGetRestartsAgain() {
+    // the previous transports failed for good, new ones are created and fail too.
+    mMonitor.onConnectionStateChange("send", "failed");
+    for (int i = 0; i < 4; i++) {
+      mMonitor.recover();
+    }
+    assertEquals(1, mRecreates);
+    mMonitor.onConnectionStateChange("send2", "failed");
+    for (int i = 0; i < 4; i++) {
+      mMonitor.recover();
+    }
+    assertEquals(6, mRestarts);
+    assertEquals(2, mRecreates);
+
+    mMonitor.onConnectionStateChange("send2", "connected");
+    mMonitor.recover();
+    assertEquals(6, mRestarts);
+  }
+
+  @Test
+  public void clearStopsRecovery() {
+    mMonitor.onConnectionStateChange("send", "failed");
+    mMonitor.clear();
+    mMonitor.recover();
+    assertEquals(0, mRestarts);
+  }
+
+  @Test
+  public void closedTransportsAreForgotten() {
+    mMonitor.onConnectionStateChange("recv", "failed");
+    mMonitor.onConnectionStateChange("recv", "closed");
+    // the remaining one is healthy, as is the room.
+    mMonitor.onConnectionStateChange("send", "connected");
+    mMonitor.recover();
+    assertEquals(0, mRestarts);
+  }
+}
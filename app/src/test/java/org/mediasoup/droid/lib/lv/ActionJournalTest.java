@@ -0,0 +1,186 @@
+package org.mediasoup.droid.lib.lv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.mediasoup.droid.lib.model.Score;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ActionJournalTest {
+
+  @Test
+  public void replaysRecordedSession() throws IOException {
+    ActionJournal journal = new ActionJournal(ActionJournal.DEFAULT_CAPACITY);
+    journal.record(ActionJournal.ADD_PEER, "alice", "Alice", 0, 0);
+    journal.record(
+        ActionJournal.ADD_CONSUMER,
+        "alice",
+        "c1",
+        ActionJournal.encodeKind("video"),
+        ActionJournal.encodeConsumerType("simulcast", true));
+    journal.record(ActionJournal.CONSUMER_LAYERS, "c1", null, 2, 1);
+    journal.record(ActionJournal.CONSUMER_SCORE, "c1", null, 9, 10);
+    journal.record(ActionJournal.CONSUMER_RESUMED, "c1", "remote", 0, 0);
+    journal.record(ActionJournal.ACTIVE_SPEAKER, "alice", null, 0, 0);
+    journal.record(ActionJournal.PEER_VOLUME, "alice", null, -40, 0);
+    journal.record(ActionJournal.REMOVE_CONSUMER, "alice", "c1", 0, 0);
+    journal.record(ActionJournal.REMOVE_PEER, "alice", null, 0, 0);
+
+    ActionJournal.Recording recording = ActionJournal.Recording.read(export(journal));
+    assertEquals(9, recording.size());
+
+    RecordingTarget target = new RecordingTarget();
+    JournalReplayer.Result result = JournalReplayer.replay(recording, target, false);
+    assertEquals(
+        Arrays.asList(
+            "addPeer alice Alice",
+            "addConsumer alice simulcast c1 video true",
+            "setConsumerCurrentLayers c1 2 1",
+            "setConsumerScore c1 9 10",
+            "setConsumerResumed c1 remote",
+            "setRoomActiveSpeaker alice",
+            "setPeerVolume alice -40",
+            "removeConsumer alice c1",
+            "removePeer alice"),
+        target.mActions);
+    assertEquals(9, result.getActions());
+    assertEquals(1, result.getCount(ActionJournal.CONSUMER_SCORE));
+  }
+
+  @Test
+  public void keepsLatestRecordsWhenFull() throws IOException {
+    ActionJournal journal = new ActionJournal(3);
+    for (int i = 0; i < 5; i++) {
+      journal.record(ActionJournal.PEER_VOLUME, "peer-" + i, null, i, 0);
+    }
+    assertEquals(3, journal.size());
+
+    RecordingTarget target = new RecordingTarget();
+    JournalReplayer.replay(ActionJournal.Recording.read(export(journal)), target, false);
+    assertEquals(
+        Arrays.asList("setPeerVolume peer-2 2", "setPeerVolume peer-3 3", "setPeerVolume peer-4 4"),
+        target.mActions);
+  }
+
+  @Test
+  public void boundsStringTable() throws IOException {
+    ActionJournal journal = new ActionJournal(3);
+    for (int i = 0; i < 10_000; i++) {
+      journal.record(ActionJournal.ADD_PEER, "peer-" + i, "Peer " + i, 0, 0);
+    }
+    assertTrue(journal.stringCount() <= 1024);
+
+    RecordingTarget target = new RecordingTarget();
+    JournalReplayer.replay(ActionJournal.Recording.read(export(journal)), target, false);
+    assertEquals(
+        Arrays.asList(
+            "addPeer peer-9997 Peer 9997",
+            "addPeer peer-9998 Peer 9998",
+            "addPeer peer-9999 Peer 9999"),
+        target.mActions);
+  }
+
+  @Test
+  public void encodesConsumerType() {
+    int encoded = ActionJournal.encodeConsumerType("svc", false);
+    assertEquals("svc", ActionJournal.decodeConsumerType(encoded));
+    assertFalse(ActionJournal.decodeRemotelyPaused(encoded));
+    assertTrue(
+        ActionJournal.decodeRemotelyPaused(ActionJournal.encodeConsumerType("simple", true)));
+    assertEquals("audio", ActionJournal.decodeKind(ActionJournal.encodeKind("audio")));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws IOException {
+    ActionJournal.Recording.read(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+  }
+
+  private static ByteArrayInputStream export(ActionJournal journal) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    journal.write(out);
+    return new ByteArrayInputStream(out.toByteArray());
+  }
+
+  private static class RecordingTarget implements JournalReplayer.Target {
+
+    final List<String> mActions = new ArrayList<>();
+
+    private void add(Object... values) {
+      StringBuilder builder = new StringBuilder();
+      for (Object value : values) {
+        builder.append(builder.length() > 0 ? " " : "").append(value);
+      }
+      mActions.add(builder.toString());
+    }
+
+    @Override
+    public void addPeer(String peerId, String displayName) {
+      add("addPeer", peerId, displayName);
+    }
+
+    @Override
+    public void removePeer(String peerId) {
+      add("removePeer", peerId);
+    }
+
+    @Override
+    public void setPeerDisplayName(String peerId, String displayName) {
+      add("setPeerDisplayName", peerId, displayName);
+    }
+
+    @Override
+    public void setPeerVolume(String peerId, int volume) {
+      add("setPeerVolume", peerId, volume);
+    }
+
+    @Override
+    public void addConsumer(
+        String peerId, String type, String consumerId, String kind, boolean remotelyPaused) {
+      add("addConsumer", peerId, type, consumerId, kind, remotelyPaused);
+    }
+
+    @Override
+    public void removeConsumer(String peerId, String consumerId) {
+      add("removeConsumer", peerId, consumerId);
+    }
+
+    @Override
+    public void setConsumerPaused(String consumerId, String originator) {
+      add("setConsumerPaused", consumerId, originator);
+    }
+
+    @Override
+    public void setConsumerResumed(String consumerId, String originator) {
+      add("setConsumerResumed", consumerId, originator);
+    }
+
+    @Override
+    public void setConsumerCurrentLayers(String consumerId, int spatialLayer, int temporalLayer) {
+      add("setConsumerCurrentLayers", consumerId, spatialLayer, temporalLayer);
+    }
+
+    @Override
+    public void setConsumerPreferredLayers(
+        String consumerId, int preferredSpatialLayer, int preferredTemporalLayer) {
+      add("setConsumerPreferredLayers", consumerId, preferredSpatialLayer, preferredTemporalLayer);
+    }
+
+    @Override
+    public void setConsumerScore(String consumerId, Score score) {
+      add("setConsumerScore", consumerId, score.getScore(), score.getProducerScore());
+    }
+
+    @Override
+    public void setRoomActiveSpeaker(String peerId) {
+      add("setRoomActiveSpeaker", peerId);
+    }
+  }
+}
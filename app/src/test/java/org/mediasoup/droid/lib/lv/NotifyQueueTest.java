@@ -0,0 +1,119 @@
+package org.mediasoup.droid.lib.lv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.mediasoup.droid.lib.model.Notify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class NotifyQueueTest {
+
+  private static final long START_MS = 10_000;
+
+  @Test
+  public void coalescesPendingJoins() {
+    NotifyQueue queue = new NotifyQueue();
+    queue.offer(Notify.peerJoined("alice"));
+    queue.offer(new Notify("error", "boom"));
+    queue.offer(Notify.peerJoined("bob"));
+    queue.offer(Notify.peerJoined("carol"));
+
+    List<Notify> delivered = drain(queue);
+    assertEquals(2, delivered.size());
+    assertEquals("3 people have joined the room", delivered.get(0).getText());
+    assertEquals(3, delivered.get(0).getCount());
+    assertEquals("boom", delivered.get(1).getText());
+  }
+
+  @Test
+  public void deliversEachOnce() {
+    NotifyQueue queue = new NotifyQueue();
+    queue.offer(new Notify("info", "hello"));
+
+    assertEquals("hello", queue.poll(START_MS).getText());
+    assertNull(queue.poll(START_MS + 60_000));
+    assertEquals(-1, queue.nextDelayMs(START_MS + 60_000));
+  }
+
+  @Test
+  public void spacesDeliveries() {
+    NotifyQueue queue = new NotifyQueue();
+    queue.offer(new Notify("info", "first"));
+    queue.offer(new Notify("info", "second"));
+    queue.offer(new Notify("error", "third"));
+
+    assertEquals("first", queue.poll(START_MS).getText());
+    // global gap.
+    assertNull(queue.poll(START_MS + 500));
+    assertEquals(300, queue.nextDelayMs(START_MS + 500));
+    // "info" still within its interval, the error goes first.
+    assertEquals("third", queue.poll(START_MS + 1000).getText());
+    assertNull(queue.poll(START_MS + 1900));
+    assertEquals(100, queue.nextDelayMs(START_MS + 1900));
+    assertEquals("second", queue.poll(START_MS + 2000).getText());
+  }
+
+  @Test
+  public void dropsOldestInfoWhenFull() {
+    NotifyQueue queue = new NotifyQueue();
+    queue.offer(new Notify("info", "info-0"));
+    queue.offer(new Notify("info", "info-1"));
+    for (int i = 0; i < 15; i++) {
+      queue.offer(new Notify("error", "error-" + i));
+    }
+
+    List<Notify> delivered = drain(queue);
+    assertEquals(16, delivered.size());
+    assertEquals("info-1", delivered.get(0).getText());
+  }
+
+  @Test
+  public void neverDropsMessages() {
+    NotifyQueue queue = new NotifyQueue();
+    for (int i = 0; i < 40; i++) {
+      queue.offer(Notify.chatMessage("peer-" + i, "text-" + i));
+      queue.offer(new Notify("error", "error-" + i));
+    }
+
+    List<Notify> delivered = drain(queue);
+    assertEquals(16, delivered.size());
+    Notify message = delivered.get(0);
+    assertEquals("message", message.getType());
+    assertEquals(40, message.getCount());
+    assertEquals("text-39", message.getText());
+    // the oldest errors made room.
+    assertEquals("error-25", delivered.get(1).getText());
+    assertEquals("error-39", delivered.get(15).getText());
+  }
+
+  @Test
+  public void staysBoundedWithOnlyMessages() {
+    NotifyQueue queue = new NotifyQueue();
+    // messages without a coalesce key, each one pending on its own.
+    for (int i = 0; i < 20; i++) {
+      queue.offer(new Notify("message", "message-" + i));
+    }
+
+    List<Notify> delivered = drain(queue);
+    assertEquals(16, delivered.size());
+    assertEquals("message-4", delivered.get(0).getText());
+    assertEquals("message-19", delivered.get(15).getText());
+  }
+
+  private static List<Notify> drain(NotifyQueue queue) {
+    List<Notify> delivered = new ArrayList<>();
+    long now = START_MS;
+    long delay;
+    while ((delay = queue.nextDelayMs(now)) >= 0) {
+      now += delay;
+      Notify notify = queue.poll(now);
+      if (notify != null) {
+        delivered.add(notify);
+      }
+    }
+    return delivered;
+  }
+}
@@ -0,0 +1,108 @@
+package org.mediasoup.droid.lib.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void bucketsCoverTheirValues() {
+    for (long value = 0; value < 100_000; value++) {
+      int bucket = Histogram.bucketOf(value);
+      assertTrue(Histogram.lowerBoundOf(bucket) <= value);
+      assertTrue(value < Histogram.lowerBoundOf(bucket + 1));
+    }
+    long max = (1L << 31) - 1;
+    assertTrue(Histogram.lowerBoundOf(Histogram.bucketOf(max)) <= max);
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    for (int value = 0; value < 8; value++) {
+      assertEquals(value, Histogram.bucketOf(value));
+      assertEquals(value, Histogram.lowerBoundOf(value));
+    }
+  }
+
+  @Test
+  public void percentilesWithinBucketError() {
+    Histogram histogram = new Histogram("test");
+    for (long value = 1; value <= 10_000; value++) {
+      histogram.record(value);
+    }
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(10_000, snapshot.getCount());
+    assertEquals(1, snapshot.getMin());
+    assertEquals(10_000, snapshot.getMax());
+    assertEquals(5_000, snapshot.getMean());
+    assertWithin(5_000, snapshot.getPercentile(50));
+    assertWithin(9_500, snapshot.getPercentile(95));
+    assertWithin(9_900, snapshot.getPercentile(99));
+    assertWithin(10_000, snapshot.getPercentile(100));
+  }
+
+  @Test
+  public void percentileStaysWithinRecordedRange() {
+    Histogram histogram = new Histogram("test");
+    histogram.record(1000);
+    histogram.record(1001);
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1000, snapshot.getPercentile(0));
+    assertTrue(snapshot.getPercentile(50) >= 1000 && snapshot.getPercentile(50) <= 1001);
+  }
+
+  @Test
+  public void clampsOutOfRange() {
+    Histogram histogram = new Histogram("test");
+    histogram.record(-5);
+    histogram.record(Long.MAX_VALUE);
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(0, snapshot.getMin());
+    assertEquals((1L << 31) - 1, snapshot.getMax());
+  }
+
+  @Test
+  public void emptySnapshot() {
+    Histogram.Snapshot snapshot = new Histogram("test").snapshot();
+    assertEquals(0, snapshot.getCount());
+    assertEquals(0, snapshot.getMin());
+    assertEquals(0, snapshot.getMean());
+    assertEquals(0, snapshot.getPercentile(99));
+  }
+
+  @Test
+  public void snapshotAndResetHandsOverEverySample() {
+    Histogram histogram = new Histogram("test");
+    histogram.record(10);
+    histogram.record(20);
+    assertEquals(2, histogram.snapshotAndReset().getCount());
+    histogram.record(30);
+    Histogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(1, snapshot.getCount());
+    assertEquals(30, snapshot.getMin());
+  }
+
+  @Test
+  public void exportsBuckets() throws Exception {
+    Histogram histogram = new Histogram("test");
+    histogram.record(3);
+    histogram.record(3);
+    histogram.record(100);
+    JSONObject json = histogram.snapshot().toJSONObject();
+    assertEquals(3, json.getLong("count"));
+    JSONObject buckets = json.getJSONObject("buckets");
+    assertEquals(2, buckets.length());
+    assertEquals(2, buckets.getLong("3"));
+    long lowerBound = Histogram.lowerBoundOf(Histogram.bucketOf(100));
+    assertEquals(1, buckets.getLong(String.valueOf(lowerBound)));
+  }
+
+  private static void assertWithin(long expected, long actual) {
+    assertTrue(
+        "expected about " + expected + " but was " + actual,
+        Math.abs(actual - expected) <= expected / 8);
+  }
+}
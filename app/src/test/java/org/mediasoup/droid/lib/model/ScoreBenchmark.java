@@ -0,0 +1,170 @@
+package org.mediasoup.droid.lib.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Handling cost and retained heap of "consumerScore" notifications for 100 consumers, the way they
+ * used to be kept (the notification's JSON, posted every time) and as a {@link Score} (parsed
+ * once, posted only when it changed). Only runs with {@code -Pbenchmarks}, the numbers depend on
+ * the JIT and the GC and are reported, not asserted.
+ */
+public class ScoreBenchmark {
+
+  private static final int CONSUMERS = 100;
+  private static final int ROUNDS = 500;
+  // Copies of the 100 retained scores, for a measurable heap difference.
+  private static final int HEAP_COPIES = 200;
+
+  @Before
+  public void setUp() {
+    assumeTrue(Boolean.getBoolean("benchmarks"));
+  }
+
+  @Test
+  public void consumerScoreNotifications() throws Exception {
+    List<JSONObject> notifications = notifications();
+
+    // warm up both paths.
+    handleBefore(notifications, new HashMap<>());
+    handleAfter(notifications, newConsumers());
+
+    long startNs = System.nanoTime();
+    int beforePosts = handleBefore(notifications, new HashMap<>());
+    long beforeNs = (System.nanoTime() - startNs) / notifications.size();
+
+    startNs = System.nanoTime();
+    int afterPosts = handleAfter(notifications, newConsumers());
+    long afterNs = (System.nanoTime() - startNs) / notifications.size();
+
+    long beforeBytes = retainedBytes(this::retainBefore) / HEAP_COPIES;
+    long afterBytes = retainedBytes(this::retainAfter) / HEAP_COPIES;
+
+    System.out.println(
+        "consumerScore x"
+            + notifications.size()
+            + " for "
+            + CONSUMERS
+            + " consumers: before "
+            + beforeNs
+            + " ns, "
+            + beforePosts
+            + " posts, "
+            + beforeBytes
+            + " B retained; after "
+            + afterNs
+            + " ns, "
+            + afterPosts
+            + " posts, "
+            + afterBytes
+            + " B retained");
+    // scores change every tenth round.
+    assertEquals(CONSUMERS * ROUNDS, beforePosts);
+    assertEquals(CONSUMERS * ROUNDS / 10, afterPosts);
+  }
+
+  // Scores change every tenth round, as they do on a stable network.
+  private static List<JSONObject> notifications() throws Exception {
+    List<JSONObject> notifications = new ArrayList<>(CONSUMERS * ROUNDS);
+    for (int round = 0; round < ROUNDS; round++) {
+      int value = 10 - (round / 10) % 3;
+      for (int i = 0; i < CONSUMERS; i++) {
+        notifications.add(
+            new JSONObject(
+                "{\"consumerId\":\"consumer-"
+                    + i
+                    + "\",\"score\":{\"score\":"
+                    + value
+                    + ",\"producerScore\":"
+                    + value
+                    + ",\"producerScores\":[10,"
+                    + value
+                    + ",7]}}"));
+      }
+    }
+    return notifications;
+  }
+
+  private static Consumers newConsumers() {
+    Consumers consumers = new Consumers();
+    for (int i = 0; i < CONSUMERS; i++) {
+      consumers.addConsumer("peer", "simulcast", "consumer-" + i, "video", false, null);
+    }
+    return consumers;
+  }
+
+  // The notification's score object is kept and posted as is.
+  private static int handleBefore(List<JSONObject> notifications, Map<String, Object> scores) {
+    int posts = 0;
+    for (JSONObject data : notifications) {
+      scores.put(data.optString("consumerId"), data.optJSONObject("score"));
+      posts++;
+    }
+    return posts;
+  }
+
+  private static int handleAfter(List<JSONObject> notifications, Consumers consumers) {
+    int posts = 0;
+    for (JSONObject data : notifications) {
+      String consumerId = data.optString("consumerId");
+      Score score = Score.parseConsumerScore(data.optJSONObject("score"));
+      if (score.equals(consumers.getConsumer(consumerId).getScore())) {
+        continue;
+      }
+      consumers.setConsumerScore(consumerId, score);
+      posts++;
+    }
+    return posts;
+  }
+
+  private Object retainBefore() throws Exception {
+    List<Object> scores = new ArrayList<>(CONSUMERS);
+    for (int i = 0; i < CONSUMERS; i++) {
+      scores.add(new JSONObject("{\"score\":10,\"producerScore\":10,\"producerScores\":[10,9,7]}"));
+    }
+    return scores;
+  }
+
+  private Object retainAfter() throws Exception {
+    List<Object> scores = new ArrayList<>(CONSUMERS);
+    for (int i = 0; i < CONSUMERS; i++) {
+      scores.add(
+          Score.parseConsumerScore(
+              new JSONObject("{\"score\":10,\"producerScore\":10,\"producerScores\":[10,9,7]}")));
+    }
+    return scores;
+  }
+
+  private interface Allocation {
+    Object allocate() throws Exception;
+  }
+
+  private static long retainedBytes(Allocation allocation) throws Exception {
+    long before = usedHeap();
+    List<Object> retained = new ArrayList<>(HEAP_COPIES);
+    for (int i = 0; i < HEAP_COPIES; i++) {
+      retained.add(allocation.allocate());
+    }
+    long bytes = usedHeap() - before;
+    // keep them reachable until measured.
+    assertEquals(HEAP_COPIES, retained.size());
+    return bytes;
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
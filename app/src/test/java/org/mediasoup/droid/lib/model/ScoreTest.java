@@ -0,0 +1,103 @@
+package org.mediasoup.droid.lib.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class ScoreTest {
+
+  @Test
+  public void parseProducerScore_ordersByEncodingIndex() throws Exception {
+    Score score =
+        Score.parseProducerScore(
+            new JSONArray(
+                "[{\"encodingIdx\":1,\"ssrc\":2,\"score\":7},"
+                    + "{\"encodingIdx\":0,\"ssrc\":1,\"score\":10}]"));
+
+    assertEquals(2, score.getEncodingCount());
+    assertEquals(10, score.getEncodingScore(0));
+    assertEquals(7, score.getEncodingScore(1));
+    assertEquals(1, score.getEncodingSsrc(0));
+    assertEquals(2, score.getEncodingSsrc(1));
+    assertEquals(Score.UNKNOWN, score.getScore());
+  }
+
+  @Test
+  public void parseProducerScore_keepsUnsignedSsrc() throws Exception {
+    Score score =
+        Score.parseProducerScore(new JSONArray("[{\"encodingIdx\":0,\"ssrc\":4294967295}]"));
+
+    assertEquals(4294967295L, score.getEncodingSsrc(0));
+  }
+
+  @Test
+  public void parseProducerScore_emptyIsUnknown() throws Exception {
+    assertEquals(0, Score.parseProducerScore(null).getEncodingCount());
+    assertEquals(0, Score.parseProducerScore(new JSONArray()).getEncodingCount());
+  }
+
+  @Test
+  public void parseConsumerScore() throws Exception {
+    Score score =
+        Score.parseConsumerScore(
+            new JSONObject("{\"score\":9,\"producerScore\":8,\"producerScores\":[10,9,0]}"));
+
+    assertEquals(9, score.getScore());
+    assertEquals(8, score.getProducerScore());
+    assertEquals(3, score.getEncodingCount());
+    assertEquals(0, score.getEncodingScore(2));
+    assertEquals(0, score.getEncodingSsrc(0));
+  }
+
+  @Test
+  public void parseConsumerScore_nullIsUnknown() {
+    Score score = Score.parseConsumerScore(null);
+
+    assertEquals(Score.UNKNOWN, score.getScore());
+    assertEquals(Score.UNKNOWN, score.getProducerScore());
+  }
+
+  @Test
+  public void equalsByValue() throws Exception {
+    String json = "{\"score\":10,\"producerScore\":10,\"producerScores\":[10,10]}";
+    Score a = Score.parseConsumerScore(new JSONObject(json));
+    Score b = Score.parseConsumerScore(new JSONObject(json));
+
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    assertNotEquals(
+        a,
+        Score.parseConsumerScore(
+            new JSONObject("{\"score\":10,\"producerScore\":10,\"producerScores\":[10,9]}")));
+    assertNotEquals(Score.consumerScore(10, 10), a);
+  }
+
+  @Test
+  public void repeatedConsumerScoresAreNotPostedAgain() throws Exception {
+    Consumers consumers = new Consumers();
+    consumers.addConsumer("peer", "simulcast", "consumer", "video", false, null);
+    int posts = 0;
+    // each score repeated ten times, as on a stable network, and only posted when it changed as
+    // RoomStore.setConsumerScore() does.
+    for (int round = 0; round < 100; round++) {
+      int value = 10 - (round / 10) % 3;
+      Score score =
+          Score.parseConsumerScore(
+              new JSONObject(
+                  "{\"score\":"
+                      + value
+                      + ",\"producerScore\":"
+                      + value
+                      + ",\"producerScores\":[10]}"));
+      if (!score.equals(consumers.getConsumer("consumer").getScore())) {
+        consumers.setConsumerScore("consumer", score);
+        posts++;
+      }
+    }
+    assertEquals(10, posts);
+    assertEquals(10 - 9 % 3, consumers.getConsumer("consumer").getScore().getScore());
+  }
+}
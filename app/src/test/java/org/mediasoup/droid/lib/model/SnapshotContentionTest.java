@@ -0,0 +1,166 @@
+package org.mediasoup.droid.lib.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * One writer mutates {@link Peers}, {@link Peer} and {@link Consumers} as the RoomClient worker
+ * does, while readers take snapshots as the derive and main threads do. Every snapshot must be
+ * one the writer published, whole.
+ */
+public class SnapshotContentionTest {
+
+  private static final int READERS = 3;
+  private static final int WRITES = 20_000;
+  // Consumer sets are copied on every change, keep them small enough.
+  private static final int CONSUMERS = 2_000;
+
+  private interface Check {
+    void run() throws Exception;
+  }
+
+  @Test
+  public void peersSnapshotsKeepJoinOrder() throws Exception {
+    Peers peers = new Peers();
+    // peers join in id order, and the oldest leave once ten are in the room.
+    Check writer =
+        () -> {
+          for (int i = 0; i < WRITES; i++) {
+            peers.addPeer(peerId(i), new Peer(peerId(i), "peer " + i, new DeviceInfo()));
+            if (i >= 10) {
+              peers.removePeer(peerId(i - 10));
+            }
+          }
+        };
+    Check reader =
+        () -> {
+          List<Peer> snapshot = peers.getAllPeers();
+          int size = snapshot.size();
+          assertTrue(size <= 11);
+          int previous = -1;
+          for (Peer peer : snapshot) {
+            int index = Integer.parseInt(peer.getId().substring(5));
+            // consecutive ids: nothing missing in the middle, nothing reordered.
+            assertTrue(previous == -1 || index == previous + 1);
+            previous = index;
+          }
+          assertEquals(size, snapshot.size());
+        };
+    race(writer, reader);
+    assertEquals(10, peers.getAllPeers().size());
+  }
+
+  @Test
+  public void peerConsumerSetsArePublishedWhole() throws Exception {
+    Peers peers = new Peers();
+    peers.addPeer("peer", new Peer("peer", "peer", new DeviceInfo()));
+    Peer peer = peers.getPeer("peer");
+    Check writer =
+        () -> {
+          for (int i = 0; i < CONSUMERS; i++) {
+            peers.addConsumer("peer", consumerId(i));
+          }
+        };
+    Check reader =
+        () -> {
+          Set<String> snapshot = peer.getConsumers();
+          int size = snapshot.size();
+          // added in order, so a snapshot of n ids holds exactly the first n.
+          for (int i = 0; i < size; i++) {
+            assertTrue(snapshot.contains(consumerId(i)));
+          }
+          assertEquals(size, snapshot.size());
+        };
+    race(writer, reader);
+    assertEquals(CONSUMERS, peer.getConsumers().size());
+  }
+
+  @Test
+  public void consumerLayersAreNeverTorn() throws Exception {
+    Consumers consumers = new Consumers();
+    for (int i = 0; i < 10; i++) {
+      consumers.addConsumer("peer", "simulcast", consumerId(i), "video", false, null);
+    }
+    // spatial and temporal layer are always set to the same value.
+    Check writer =
+        () -> {
+          for (int i = 0; i < WRITES; i++) {
+            String consumerId = consumerId(i % 10);
+            consumers.setConsumerCurrentLayers(consumerId, i, i);
+            consumers.setConsumerPreferredLayers(consumerId, i, i);
+            consumers.setConsumerScore(consumerId, Score.consumerScore(i % 11, i % 11));
+          }
+        };
+    Check reader =
+        () -> {
+          for (Consumers.ConsumerWrapper wrapper : consumers.getConsumersOf("peer")) {
+            long layers = wrapper.getLayers();
+            assertEquals(Consumers.spatialLayerOf(layers), Consumers.temporalLayerOf(layers));
+            long preferred = wrapper.getPreferredLayers();
+            assertEquals(Consumers.spatialLayerOf(preferred), Consumers.temporalLayerOf(preferred));
+            Score score = wrapper.getScore();
+            if (score != null) {
+              assertEquals(score.getScore(), score.getProducerScore());
+            }
+          }
+        };
+    race(writer, reader);
+    Consumers.ConsumerWrapper last = consumers.getConsumer(consumerId(9));
+    assertEquals(WRITES - 1, last.getSpatialLayer());
+    assertEquals(WRITES - 1, last.getTemporalLayer());
+  }
+
+  private static String peerId(int i) {
+    return "peer-" + i;
+  }
+
+  private static String consumerId(int i) {
+    return "consumer-" + i;
+  }
+
+  // Run the writer once while the readers check snapshots in a loop, until it is done.
+  private static void race(Check writer, Check reader) throws Exception {
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < READERS; i++) {
+      threads.add(
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                  do {
+                    reader.run();
+                  } while (!done.get() && failure.get() == null);
+                } catch (Throwable t) {
+                  failure.compareAndSet(null, t);
+                }
+              }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    start.countDown();
+    try {
+      writer.run();
+    } finally {
+      done.set(true);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+    if (failure.get() != null) {
+      throw new AssertionError("inconsistent snapshot", failure.get());
+    }
+  }
+}
@@ -0,0 +1,133 @@
+package org.mediasoup.droid.lib.socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class NetworkEmulatorTest {
+
+  private static final long SEED = 42;
+
+  @Test
+  public void keepsOrderUnderJitter() {
+    NetworkEmulator.Link link = new NetworkEmulator(SEED).getUplink();
+    link.setConditions(new NetworkEmulator.Conditions().setDelayMs(100).setJitterMs(500));
+    long lastArrivalMs = 0;
+    for (long nowMs = 0; nowMs < 10_000; nowMs += 10) {
+      long arrivalMs = nowMs + link.schedule(200, nowMs);
+      assertTrue(arrivalMs >= nowMs + 100);
+      assertTrue(arrivalMs >= lastArrivalMs);
+      lastArrivalMs = arrivalMs;
+    }
+    assertEquals(0, link.getDropped());
+  }
+
+  @Test
+  public void queuesBehindBandwidth() {
+    NetworkEmulator.Link link = new NetworkEmulator(SEED).getUplink();
+    // 1000 bytes per second: 100 ms on the wire per 100 byte message.
+    link.setConditions(new NetworkEmulator.Conditions().setDelayMs(50).setBandwidthBps(8_000));
+    for (int i = 1; i <= 5; i++) {
+      assertEquals(i * 100 + 50, link.schedule(100, 0));
+    }
+    // the burst is still being sent at 300 ms.
+    assertEquals(500 - 300 + 100 + 50, link.schedule(100, 300));
+    // idle again.
+    assertEquals(150, link.schedule(100, 2_000));
+  }
+
+  @Test
+  public void dropRateFollowsLossForFixedSeed() {
+    List<Long> first = scheduleLossy(SEED);
+    assertEquals(first, scheduleLossy(SEED));
+
+    NetworkEmulator.Link link = new NetworkEmulator(SEED).getUplink();
+    link.setConditions(new NetworkEmulator.Conditions().setLoss(0.3));
+    int dropped = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (link.schedule(100, i) < 0) {
+        dropped++;
+      }
+    }
+    assertEquals(10_000, link.getSent());
+    assertEquals(dropped, link.getDropped());
+    assertTrue("dropped " + dropped, Math.abs(dropped - 3_000) < 200);
+  }
+
+  @Test
+  public void directionsAreIndependent() {
+    NetworkEmulator emulator = new NetworkEmulator(SEED);
+    emulator.setUplink(new NetworkEmulator.Conditions().setLoss(1));
+    emulator.setDownlink(new NetworkEmulator.Conditions().setDelayMs(30));
+    assertEquals(-1, emulator.getUplink().schedule(100, 0));
+    assertEquals(30, emulator.getDownlink().schedule(100, 0));
+  }
+
+  /**
+   * A request times out while the link is down and gets through again once it is back, as when
+   * the signaling socket reconnects after an outage.
+   */
+  @Test
+  public void timesOutDuringOutageThenRecovers() {
+    long timeoutMs = 15_000;
+    NetworkEmulator emulator = new NetworkEmulator(SEED);
+    NetworkEmulator.Conditions good = new NetworkEmulator.Conditions().setDelayMs(100);
+    emulator.setConditions(good);
+    List<Boolean> answered = new ArrayList<>();
+    for (long nowMs = 0; nowMs < 60_000; nowMs += 1_000) {
+      if (nowMs == 10_000) {
+        // outage.
+        emulator.setConditions(new NetworkEmulator.Conditions().setLoss(1));
+      } else if (nowMs == 20_000) {
+        // congested: through, but too late.
+        emulator.setConditions(new NetworkEmulator.Conditions().setDelayMs(timeoutMs));
+      } else if (nowMs == 30_000) {
+        // the socket is reopened.
+        emulator.setConditions(good);
+        emulator.reset();
+      }
+      answered.add(roundTripMs(emulator, nowMs) <= timeoutMs);
+    }
+    for (int i = 0; i < answered.size(); i++) {
+      boolean expected = i < 10 || i >= 30;
+      assertEquals("request at " + i + " s", expected, answered.get(i));
+    }
+    assertEquals(10, emulator.getUplink().getDropped());
+  }
+
+  @Test
+  public void congestionHoldsBackLaterMessagesUntilReset() {
+    NetworkEmulator.Link link = new NetworkEmulator(SEED).getUplink();
+    link.setConditions(new NetworkEmulator.Conditions().setDelayMs(10_000));
+    assertEquals(10_000, link.schedule(100, 0));
+    link.setConditions(new NetworkEmulator.Conditions().setDelayMs(100));
+    // same connection: behind the slow one.
+    assertEquals(10_000 - 1_000, link.schedule(100, 1_000));
+    link.reset();
+    assertEquals(100, link.schedule(100, 2_000));
+  }
+
+  // Request up, response down, Long.MAX_VALUE for lost.
+  private static long roundTripMs(NetworkEmulator emulator, long nowMs) {
+    long upMs = emulator.getUplink().schedule(200, nowMs);
+    if (upMs < 0) {
+      return Long.MAX_VALUE;
+    }
+    long downMs = emulator.getDownlink().schedule(200, nowMs + upMs);
+    return downMs < 0 ? Long.MAX_VALUE : upMs + downMs;
+  }
+
+  private static List<Long> scheduleLossy(long seed) {
+    NetworkEmulator.Link link = new NetworkEmulator(seed).getUplink();
+    link.setConditions(new NetworkEmulator.Conditions().setLoss(0.2).setJitterMs(80));
+    List<Long> delays = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      delays.add(link.schedule(100, i * 10L));
+    }
+    return delays;
+  }
+}